@@ -0,0 +1,83 @@
+package com.egorov.lib_food_categories.benchmark;
+
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Синтетические иерархии категорий для бенчмарков.
+ *
+ * @author i.egorov
+ */
+public final class FoodCategoryFixtures {
+
+  private static final ZonedDateTime CREATED_AT =
+      ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  private FoodCategoryFixtures() {
+  }
+
+  /**
+   * Форма иерархии.
+   */
+  public enum Shape {
+    /**
+     * Широкая иерархия: 20 корней, у каждого узла до 30 потомков (3-4 уровня).
+     */
+    WIDE,
+    /**
+     * Глубокая иерархия: 100 цепочек, каждая глубиной size / 100.
+     */
+    DEEP
+  }
+
+  /**
+   * Создает иерархию категорий в перемешанном порядке, как при чтении из базы данных без
+   * сортировки.
+   *
+   * @param shape форма иерархии
+   * @param size  количество категорий
+   * @return категории
+   */
+  public static List<FoodCategory> hierarchy(Shape shape, int size) {
+    List<FoodCategory> categories = new ArrayList<>(size);
+    for (long id = 1; id <= size; id++) {
+      categories.add(category(id, parentId(shape, id, size)));
+    }
+    Collections.shuffle(categories, new Random(42));
+    return categories;
+  }
+
+  /**
+   * Создает одну категорию со всеми заполненными полями.
+   *
+   * @param id       идентификатор
+   * @param parentId идентификатор родителя
+   * @return категория
+   */
+  public static FoodCategory category(long id, Long parentId) {
+    return FoodCategory.builder()
+        .id(id)
+        .parentId(parentId)
+        .name("Категория " + id)
+        .description("Описание категории " + id)
+        .isFinal(id % 3 == 0)
+        .createdAt(CREATED_AT)
+        .updatedAt(CREATED_AT)
+        .build();
+  }
+
+  private static Long parentId(Shape shape, long id, int size) {
+    return switch (shape) {
+      case WIDE -> id <= 20 ? null : (id - 21) / 30 + 1;
+      case DEEP -> {
+        long chains = Math.min(100, size);
+        yield id <= chains ? null : id - chains;
+      }
+    };
+  }
+}
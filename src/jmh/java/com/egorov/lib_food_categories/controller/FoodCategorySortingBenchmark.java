@@ -0,0 +1,44 @@
+package com.egorov.lib_food_categories.controller;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Разбор параметра сортировки в {@link FoodCategoryController#getSorting(String[])}.
+ *
+ * @author i.egorov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FoodCategorySortingBenchmark {
+
+  @Param({"name,asc", "createdAt,desc"})
+  private String sort;
+
+  private String[] params;
+
+  @Setup
+  public void setUp() {
+    params = new String[]{sort};
+  }
+
+  @Benchmark
+  public Sort getSorting() {
+    return FoodCategoryController.getSorting(params);
+  }
+}
@@ -0,0 +1,90 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.benchmark.FoodCategoryFixtures;
+import com.egorov.lib_food_categories.benchmark.FoodCategoryFixtures.Shape;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository.HierarchyRow;
+import java.lang.reflect.Proxy;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Сборка дерева категорий в {@link FoodCategoryServiceImpl#getCategoryTree()} без кэша: снимок
+ * иерархии строится заново на каждом вызове. Вместо базы данных используется репозиторий,
+ * возвращающий заранее созданный список.
+ *
+ * @author i.egorov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FoodCategoryTreeBenchmark {
+
+  @Param({"WIDE", "DEEP"})
+  private Shape shape;
+
+  @Param({"1000", "10000"})
+  private int size;
+
+  private FoodCategoryServiceImpl service;
+
+  @Setup
+  public void setUp() {
+    List<FoodCategory> categories = FoodCategoryFixtures.hierarchy(shape, size);
+    List<HierarchyRow> rows = categories.stream()
+        .sorted(Comparator.comparing(FoodCategory::getId))
+        .map(FoodCategoryTreeBenchmark::row)
+        .toList();
+    FoodCategoryRepository repository = (FoodCategoryRepository) Proxy.newProxyInstance(
+        FoodCategoryRepository.class.getClassLoader(),
+        new Class<?>[]{FoodCategoryRepository.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("streamHierarchy")) {
+            return rows.stream();
+          }
+          throw new UnsupportedOperationException(method.getName());
+        });
+    FoodCategoryHierarchyCache hierarchyCache =
+        new FoodCategoryHierarchyCache(repository, TransactionOperations.withoutTransaction());
+    service = new FoodCategoryServiceImpl(repository, null, hierarchyCache, null, null, null);
+  }
+
+  @Benchmark
+  public List<FoodCategoryTreeDto> getCategoryTree() {
+    return service.getCategoryTree();
+  }
+
+  private static HierarchyRow row(FoodCategory category) {
+    return (HierarchyRow) Proxy.newProxyInstance(HierarchyRow.class.getClassLoader(),
+        new Class<?>[]{HierarchyRow.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "getCatalogVersion" -> 0L;
+          case "getId" -> category.getId();
+          case "getParentId" -> category.getParentId();
+          case "getName" -> category.getName();
+          case "getDescription" -> category.getDescription();
+          case "getIsFinal" -> category.getIsFinal();
+          case "getCreatedAt" ->
+              category.getCreatedAt() == null ? null : category.getCreatedAt().toInstant();
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+}
@@ -0,0 +1,37 @@
+package com.egorov.lib_food_categories.util;
+
+import com.egorov.lib_food_categories.benchmark.FoodCategoryFixtures;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Преобразование сущности в DTO сгенерированным MapStruct-маппером.
+ *
+ * @author i.egorov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FoodCategoryMapperBenchmark {
+
+  private final FoodCategoryMapper mapper = new FoodCategoryMapperImpl();
+  private final FoodCategory category = FoodCategoryFixtures.category(42L, 7L);
+
+  @Benchmark
+  public FoodCategoryDto toDto() {
+    return mapper.toDto(category);
+  }
+}
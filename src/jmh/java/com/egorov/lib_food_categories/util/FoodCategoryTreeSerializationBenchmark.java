@@ -0,0 +1,66 @@
+package com.egorov.lib_food_categories.util;
+
+import com.egorov.lib_food_categories.benchmark.FoodCategoryFixtures;
+import com.egorov.lib_food_categories.benchmark.FoodCategoryFixtures.Shape;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Сериализация дерева {@link FoodCategoryTreeDto} в JSON: компактная (как в
+ * предварительно сериализованном ответе /tree) и с отступами (настройка по умолчанию для
+ * остальных ответов).
+ *
+ * @author i.egorov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FoodCategoryTreeSerializationBenchmark {
+
+  @Param({"WIDE", "DEEP"})
+  private Shape shape;
+
+  @Param({"1000", "10000"})
+  private int size;
+
+  private List<FoodCategoryTreeDto> forest;
+  private ObjectWriter compact;
+  private ObjectWriter indented;
+
+  @Setup
+  public void setUp() {
+    forest = FoodCategoryHierarchy.of(FoodCategoryFixtures.hierarchy(shape, size)).forest();
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    compact = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    indented = objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT);
+  }
+
+  @Benchmark
+  public byte[] compact() throws JsonProcessingException {
+    return compact.writeValueAsBytes(forest);
+  }
+
+  @Benchmark
+  public byte[] indented() throws JsonProcessingException {
+    return indented.writeValueAsBytes(forest);
+  }
+}
@@ -0,0 +1,36 @@
+package com.egorov.lib_food_categories.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * Порядок советников кэширования и транзакций. Кэширование всегда выполняется снаружи
+ * транзакции: при промахе транзакция открывается внутри загрузки значения, в том же потоке, где
+ * выполняется метод. Это важно для асинхронного режима кэшей
+ * ({@link FoodCategoryVirtualThreadsConfig}), в котором загрузка при
+ * {@code @Cacheable(sync = true)} выполняется в потоке исполнителя: при обратном порядке метод
+ * выполнялся бы там без транзакции, открытой в потоке вызывающего. Транзакция вызывающего кода
+ * в загрузку не передается, метод работает в собственной.
+ *
+ * <p>Прокси создаются по классам, как и при автонастройке Spring Boot.
+ *
+ * @author i.egorov
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableCaching(proxyTargetClass = true, order = FoodCategoryCachingConfig.CACHING_ORDER)
+@EnableTransactionManagement(proxyTargetClass = true,
+    order = FoodCategoryCachingConfig.TRANSACTION_ORDER)
+public class FoodCategoryCachingConfig {
+
+  /**
+   * Порядок советника кэширования (внешний).
+   */
+  public static final int CACHING_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+  /**
+   * Порядок советника транзакций (внутренний).
+   */
+  public static final int TRANSACTION_ORDER = Ordered.LOWEST_PRECEDENCE;
+}
@@ -0,0 +1,66 @@
+package com.egorov.lib_food_categories.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.concurrent.Executor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * Настройки режима виртуальных потоков. Режим включается свойством
+ * {@code spring.threads.virtual.enabled} и действует только на Java 21 и новее: Spring Boot
+ * переводит на виртуальные потоки обработку запросов Tomcat и {@code applicationTaskExecutor}.
+ *
+ * <p>Загрузка значения в Caffeine при {@code @Cacheable(sync = true)} выполняется внутри
+ * {@code ConcurrentHashMap.compute}, то есть под монитором, и виртуальный поток, ожидающий в
+ * это время ответа базы данных, блокирует поток-носитель. Поэтому в этом режиме кэши
+ * переводятся в асинхронный режим: под блокировкой в кэш кладется только future, загрузка
+ * выполняется в отдельном виртуальном потоке, а ожидающие запросы паркуются без блокировки
+ * носителя. Транзакция загрузки открывается в этом потоке: советник кэширования выполняется
+ * снаружи советника транзакций ({@link FoodCategoryCachingConfig}).
+ *
+ * @author i.egorov
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class FoodCategoryVirtualThreadsConfig {
+
+  /**
+   * Переводит кэши Caffeine в асинхронный режим с загрузкой значений в
+   * {@code applicationTaskExecutor}.
+   *
+   * @param cacheProperties настройки кэшей
+   * @param executor        исполнитель задач приложения (на виртуальных потоках)
+   * @return настройка менеджера кэшей
+   */
+  @Bean
+  public CacheManagerCustomizer<CaffeineCacheManager> asyncCaffeineCacheManagerCustomizer(
+      CacheProperties cacheProperties,
+      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+      Executor executor) {
+    return cacheManager -> asyncLoading(cacheManager,
+        cacheProperties.getCaffeine().getSpec(), executor);
+  }
+
+  /**
+   * Включает асинхронный режим менеджера кэшей.
+   *
+   * @param cacheManager менеджер кэшей
+   * @param spec         спецификация Caffeine из настроек или null
+   * @param executor     исполнитель загрузок
+   */
+  static void asyncLoading(CaffeineCacheManager cacheManager, String spec, Executor executor) {
+    Caffeine<Object, Object> builder = StringUtils.hasText(spec)
+        ? Caffeine.from(spec)
+        : Caffeine.newBuilder();
+    cacheManager.setCaffeine(builder.executor(executor));
+    cacheManager.setAsyncCacheMode(true);
+  }
+}
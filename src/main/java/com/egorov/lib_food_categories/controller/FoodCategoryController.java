@@ -1,31 +1,70 @@
 package com.egorov.lib_food_categories.controller;
 
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryClassifyRequest;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryContainmentRequest;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryIdsRequest;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryImportRequest;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryPatchRequest;
 import com.egorov.lib_food_categories.dto.request.FoodCategoryRequest;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryAncestorsResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryBatchResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryChangesResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryClassificationDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryContainmentResponse;
 import com.egorov.lib_food_categories.dto.response.FoodCategoryDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryImportResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
 import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeWindowDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryWindowDto;
 import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.service.FoodCategoryChangeLog;
+import com.egorov.lib_food_categories.service.FoodCategoryChangeLog.Changes;
+import com.egorov.lib_food_categories.service.FoodCategoryClassificationService;
+import com.egorov.lib_food_categories.service.FoodCategoryEventStream;
+import com.egorov.lib_food_categories.service.FoodCategoryImportService;
+import com.egorov.lib_food_categories.service.FoodCategorySearchIndex;
 import com.egorov.lib_food_categories.service.FoodCategoryService;
+import com.egorov.lib_food_categories.service.FoodCategoryTreeRenderer;
+import com.egorov.lib_food_categories.service.FoodCategoryTreeRenderer.RenderedTree;
+import com.egorov.lib_food_categories.util.FoodCategoryCursorCodec;
 import com.egorov.lib_food_categories.util.FoodCategoryMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Контроллер для работы с категориями продуктов. Предоставляет REST API для CRUD операций с
@@ -38,8 +77,20 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class FoodCategoryController {
 
+  private static final String NDJSON = "application/x-ndjson";
+  private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+  private static final int DEFAULT_CLASSIFY_LIMIT = 3;
+
   private final FoodCategoryService foodCategoryService;
+  private final FoodCategoryImportService foodCategoryImportService;
   private final FoodCategoryMapper mapper;
+  private final ObjectMapper objectMapper;
+  private final FoodCategoryCursorCodec cursorCodec;
+  private final FoodCategoryTreeRenderer treeRenderer;
+  private final FoodCategorySearchIndex searchIndex;
+  private final FoodCategoryClassificationService classificationService;
+  private final FoodCategoryChangeLog changeLog;
+  private final FoodCategoryEventStream eventStream;
 
   /**
    * Создает новую категорию продуктов.
@@ -48,7 +99,6 @@ public class FoodCategoryController {
    * @return ResponseEntity с созданной категорией и HTTP статусом 201 (Created)
    */
   @PostMapping
-  @CacheEvict(value = {"foodCategories", "foodCategoriesTree"}, allEntries = true)
   public ResponseEntity<FoodCategoryDto> create(
       @RequestBody @Valid FoodCategoryRequest request) {
 
@@ -58,16 +108,28 @@ public class FoodCategoryController {
   }
 
   /**
-   * Получает категорию продуктов по идентификатору.
+   * Создает иерархию категорий продуктов одним запросом. Родители задаются клиентскими ключами
+   * других элементов импорта или идентификаторами существующих категорий.
+   *
+   * @param request DTO с импортируемыми категориями
+   * @return ResponseEntity с идентификаторами созданных категорий и HTTP статусом 200 (OK)
+   */
+  @PostMapping("/bulk")
+  public ResponseEntity<FoodCategoryImportResponse> importCategories(
+      @RequestBody @Valid FoodCategoryImportRequest request) {
+
+    return ResponseEntity.ok(foodCategoryImportService.importCategories(request.items()));
+  }
+
+  /**
+   * Получает категорию продуктов по идентификатору. Версия категории передается в ETag.
    *
    * @param id идентификатор категории
    * @return ResponseEntity с найденной категорией и HTTP статусом 200 (OK)
    */
   @GetMapping("/{id}")
-  @Cacheable(value = "foodCategories", key = "#id")
   public ResponseEntity<FoodCategoryDto> getById(@PathVariable Long id) {
-    return ResponseEntity.ok(
-        mapper.toDto(foodCategoryService.findById(id)));
+    return withVersion(foodCategoryService.findById(id));
   }
 
   /**
@@ -92,56 +154,455 @@ public class FoodCategoryController {
   }
 
   /**
-   * Получает дерево категорий продуктов с пагинацией и сортировкой.
+   * Получает категории по списку идентификаторов одним запросом. Отсутствующие категории не
+   * приводят к ошибке, а перечисляются в missingIds.
+   *
+   * @param ids идентификаторы категорий через запятую (не более 1000)
+   * @return ResponseEntity с найденными категориями в порядке запроса и HTTP статусом 200 (OK)
+   */
+  @GetMapping(params = "ids")
+  public ResponseEntity<FoodCategoryBatchResponse> getByIds(@RequestParam List<Long> ids) {
+
+    Map<Long, FoodCategory> found = foodCategoryService.findAllByIds(ids);
+    List<Long> missingIds = ids.stream()
+        .distinct()
+        .filter(id -> !found.containsKey(id))
+        .toList();
+    return ResponseEntity.ok(new FoodCategoryBatchResponse(
+        found.values().stream().map(mapper::toDto).toList(), missingIds));
+  }
+
+  /**
+   * Получает окно категорий продуктов с курсорной (keyset) пагинацией. Режим включается наличием
+   * параметра cursor: пустое значение запрашивает первое окно, далее передается значение
+   * nextCursor из предыдущего ответа. Общее количество строк не подсчитывается.
+   *
+   * @param cursor непрозрачный токен позиции (пустая строка - первое окно)
+   * @param size   размер окна (по умолчанию 20)
+   * @param sort   параметры сортировки (по умолчанию "name,asc")
+   * @return ResponseEntity с окном категорий и HTTP статусом 200 (OK)
+   */
+  @GetMapping(params = "cursor")
+  public ResponseEntity<FoodCategoryWindowDto> scroll(
+      @RequestParam String cursor,
+      @RequestParam(defaultValue = "20") int size,
+      @RequestParam(defaultValue = "name,asc") String[] sort) {
+
+    Sort sorting = getSorting(sort);
+    KeysetScrollPosition position = cursor.isBlank()
+        ? ScrollPosition.keyset()
+        : cursorCodec.decode(cursor, sorting);
+    Window<FoodCategory> window = foodCategoryService.scroll(position, sorting, size);
+
+    return ResponseEntity.ok(new FoodCategoryWindowDto(
+        window.map(mapper::toDto).getContent(), nextCursor(window, sorting)));
+  }
+
+  /**
+   * Ищет категории по началу названия (без учета регистра и диакритических знаков).
    *
+   * @param prefix префикс названия
+   * @param limit  максимальное количество результатов
+   * @return ResponseEntity с найденными категориями и HTTP статусом 200 (OK)
+   */
+  @GetMapping("/search")
+  public ResponseEntity<List<FoodCategoryMinimalDto>> search(
+      @RequestParam String prefix,
+      @RequestParam(defaultValue = "10") int limit) {
+
+    return ResponseEntity.ok(searchIndex.search(prefix, limit));
+  }
+
+  /**
+   * Подбирает категории для пакета произвольных строк (например, ингредиентов рецепта).
+   *
+   * @param request DTO со строками и количеством категорий на строку
+   * @return ResponseEntity с результатами в порядке строк и HTTP статусом 200 (OK)
+   */
+  @PostMapping("/classify")
+  public ResponseEntity<List<FoodCategoryClassificationDto>> classify(
+      @RequestBody @Valid FoodCategoryClassifyRequest request) {
+
+    int limit = request.limit() != null ? request.limit() : DEFAULT_CLASSIFY_LIMIT;
+    return ResponseEntity.ok(classificationService.classify(request.texts(), limit));
+  }
+
+  /**
+   * Выгружает все категории продуктов в формате NDJSON (одна категория в строке). Категории
+   * пишутся в ответ по мере чтения из базы данных.
+   *
+   * @param response HTTP-ответ, в который пишутся категории
+   * @throws IOException если запись в ответ не удалась
+   */
+  @GetMapping(value = "/export", produces = NDJSON)
+  public void export(HttpServletResponse response) throws IOException {
+    response.setContentType(NDJSON);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+    ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    OutputStream out = response.getOutputStream();
+    foodCategoryService.exportAll(category -> {
+      try {
+        out.write(writer.writeValueAsBytes(mapper.toDto(category)));
+        out.write('\n');
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    out.flush();
+  }
+
+  /**
+   * Получает изменения каталога после указанной позиции для синхронизации локальной копии
+   * клиента. Без параметра since возвращается только токен текущей позиции: клиент получает его
+   * до полной загрузки каталога и затем запрашивает изменения начиная с него.
+   *
+   * @param since токен позиции из предыдущего ответа
+   * @param limit максимальное количество изменений в ответе (по умолчанию 1000)
+   * @return ResponseEntity с измененными и удаленными категориями и HTTP статусом 200 (OK)
+   */
+  @GetMapping("/changes")
+  public ResponseEntity<FoodCategoryChangesResponse> getChanges(
+      @RequestParam(required = false) String since,
+      @RequestParam(defaultValue = "1000") int limit) {
+
+    if (since == null) {
+      return ResponseEntity.ok(new FoodCategoryChangesResponse(List.of(), List.of(),
+          changeLog.currentToken(), false));
+    }
+    Changes changes = changeLog.changesSince(since, limit);
+    return ResponseEntity.ok(new FoodCategoryChangesResponse(
+        changes.upserts().stream().map(mapper::toDto).toList(), changes.tombstones(),
+        changes.nextToken(), changes.hasMore()));
+  }
+
+  /**
+   * Подписывает клиента на поток изменений каталога (Server-Sent Events). Первое событие
+   * {@code ready} содержит токен ленты изменений; далее после фиксации каждого изменения приходят
+   * события {@code created}, {@code updated}, {@code deleted} и {@code imported}. Если клиент не
+   * успевает читать поток, часть событий отбрасывается и приходит событие {@code resync}: клиенту
+   * нужно запросить ленту изменений со своего последнего токена.
+   *
+   * @return SSE-соединение с потоком изменений
+   */
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream() {
+    return eventStream.subscribe();
+  }
+
+  /**
+   * Получает все категории в минимальном виде: идентификатор, родитель (для корней не выводится)
+   * и название. Ответ - компактный JSON-массив с ETag по версии каталога, поэтому клиент может
+   * хранить его у себя и проверять актуальность через If-None-Match. Версия читается до категорий
+   * и проверяется первой: при совпадении категории не загружаются, а тело ответа не может быть
+   * старше своего ETag.
+   *
+   * @param ifNoneMatch значение заголовка If-None-Match
+   * @return ResponseEntity со списком категорий в JSON и HTTP статусом 200 (OK) или 304 (Not
+   *     Modified)
+   * @throws IOException если сериализация списка не удалась
+   */
+  @GetMapping(value = "/minimal", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<byte[]> getAllMinimal(
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+      throws IOException {
+
+    String etag = "\"minimal-" + changeLog.catalogVersion() + "\"";
+    if (matchesEtag(ifNoneMatch, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    List<FoodCategoryMinimalDto> categories = foodCategoryService.findAllMinimal();
+    byte[] json = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT)
+        .writeValueAsBytes(categories);
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(json);
+  }
+
+  /**
+   * Получает дерево категорий продуктов. Ответ отдается заранее сериализованным (и при поддержке
+   * клиентом - сжатым gzip); если ETag из If-None-Match совпадает с текущим, возвращается 304 без
+   * тела.
+   *
+   * @param ifNoneMatch    значение заголовка If-None-Match
+   * @param acceptEncoding значение заголовка Accept-Encoding
+   * @return ResponseEntity с деревом категорий в JSON и HTTP статусом 200 (OK) или 304 (Not
+   *     Modified)
+   */
+  @GetMapping(value = "/tree", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<byte[]> getCategoryTree(
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding) {
+
+    RenderedTree tree = treeRenderer.getTree();
+    boolean gzip = acceptsGzip(acceptEncoding);
+    String etag = gzip ? tree.gzipEtag() : tree.etag();
+
+    if (matchesEtag(ifNoneMatch, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(etag)
+          .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+          .build();
+    }
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .eTag(etag)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .contentType(MediaType.APPLICATION_JSON);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(gzip ? tree.gzip() : tree.json());
+  }
+
+  /**
+   * Получает дерево категорий продуктов, ограниченное по глубине, для постепенной загрузки дерева
+   * клиентом. У категорий последнего уровня вместо подкатегорий указывается childCount.
+   *
+   * @param depth максимальная глубина относительно корневых категорий (0 - только корни)
    * @return ResponseEntity с деревом категорий и HTTP статусом 200 (OK)
    */
-  @GetMapping("/tree")
-  @Cacheable("foodCategoriesTree")
-  public ResponseEntity<List<FoodCategoryTreeDto>> getCategoryTree() {
+  @GetMapping(value = "/tree", params = "depth")
+  public ResponseEntity<List<FoodCategoryTreeDto>> getCategoryTree(@RequestParam int depth) {
+
+    return ResponseEntity.ok(foodCategoryService.getCategoryTree(depth));
+  }
 
-    return ResponseEntity.ok(foodCategoryService.getCategoryTree());
+  /**
+   * Получает окно прямых потомков категории с курсорной (keyset) пагинацией. Подкатегории
+   * потомков не включаются, для каждого указывается childCount.
+   *
+   * @param id     идентификатор родительской категории
+   * @param cursor непрозрачный токен позиции (по умолчанию - первое окно)
+   * @param size   размер окна (по умолчанию 20)
+   * @param sort   параметры сортировки (по умолчанию "name,asc")
+   * @return ResponseEntity с окном потомков и HTTP статусом 200 (OK)
+   */
+  @GetMapping("/{id}/children")
+  public ResponseEntity<FoodCategoryTreeWindowDto> getChildren(
+      @PathVariable Long id,
+      @RequestParam(defaultValue = "") String cursor,
+      @RequestParam(defaultValue = "20") int size,
+      @RequestParam(defaultValue = "name,asc") String[] sort) {
+
+    Sort sorting = getSorting(sort);
+    KeysetScrollPosition position = cursor.isBlank()
+        ? ScrollPosition.keyset()
+        : cursorCodec.decode(cursor, sorting);
+    Window<FoodCategoryTreeDto> window =
+        foodCategoryService.scrollChildren(id, position, sorting, size);
+
+    return ResponseEntity.ok(
+        new FoodCategoryTreeWindowDto(window.getContent(), nextCursor(window, sorting)));
+  }
+
+  /**
+   * Получает ветку дерева категорий с корнем в указанной категории.
+   *
+   * @param id       идентификатор корня ветки
+   * @param maxDepth максимальная глубина ветки (по умолчанию без ограничения)
+   * @return ResponseEntity с веткой дерева и HTTP статусом 200 (OK)
+   */
+  @GetMapping("/{id}/subtree")
+  public ResponseEntity<FoodCategoryTreeDto> getSubtree(
+      @PathVariable Long id,
+      @RequestParam(required = false) Integer maxDepth) {
+
+    return ResponseEntity.ok(foodCategoryService.getSubtree(id, maxDepth));
+  }
+
+  /**
+   * Получает пути от корня до каждой из указанных категорий (хлебные крошки).
+   *
+   * @param request DTO с идентификаторами категорий
+   * @return ResponseEntity с путями категорий и HTTP статусом 200 (OK)
+   */
+  @PostMapping("/ancestors")
+  public ResponseEntity<FoodCategoryAncestorsResponse> getAncestors(
+      @RequestBody @Valid FoodCategoryIdsRequest request) {
+
+    return ResponseEntity.ok(foodCategoryService.findPaths(request.ids()));
+  }
+
+  /**
+   * Проверяет вхождение категорий в ветки указанных категорий, например для проверки ингредиентов
+   * по правилам диеты.
+   *
+   * @param request DTO с проверяемыми категориями и корнями веток
+   * @return ResponseEntity с результатами проверки и HTTP статусом 200 (OK)
+   */
+  @PostMapping("/containment")
+  public ResponseEntity<FoodCategoryContainmentResponse> getContainment(
+      @RequestBody @Valid FoodCategoryContainmentRequest request) {
+
+    return ResponseEntity.ok(
+        foodCategoryService.findContainment(request.ids(), request.ancestorIds()));
   }
 
   /**
-   * Обновляет существующую категорию продуктов.
+   * Обновляет существующую категорию продуктов. Если передан If-Match, категория обновляется
+   * только при совпадении версии, иначе возвращается 412.
    *
    * @param id      идентификатор категории для обновления
+   * @param ifMatch значение заголовка If-Match (ETag категории)
    * @param request DTO с обновленными данными категории
    * @return ResponseEntity с обновленной категорией и HTTP статусом 200 (OK)
    */
   @PutMapping("/{id}")
-  @CacheEvict(value = {"foodCategories", "foodCategoriesTree"}, allEntries = true)
   public ResponseEntity<FoodCategoryDto> update(
       @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody @Valid FoodCategoryRequest request) {
 
-    return ResponseEntity.ok(
-        mapper.toDto(foodCategoryService.update(id, request)));
+    return withVersion(foodCategoryService.update(id, request, parseIfMatch(ifMatch)));
   }
 
   /**
-   * Удаляет категорию продуктов по идентификатору.
+   * Частично изменяет категорию продуктов по правилам JSON Merge Patch (RFC 7396): изменяются
+   * только переданные поля, а поля со значением null удаляются. Если передан If-Match, категория
+   * изменяется только при совпадении версии, иначе возвращается 412.
    *
-   * @param id идентификатор категории для удаления
+   * @param id      идентификатор категории
+   * @param ifMatch значение заголовка If-Match (ETag категории)
+   * @param request DTO с изменяемыми полями
+   * @return ResponseEntity с измененной категорией и HTTP статусом 200 (OK)
+   */
+  @PatchMapping(value = "/{id}",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MERGE_PATCH_JSON})
+  public ResponseEntity<FoodCategoryDto> patch(
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody @Valid FoodCategoryPatchRequest request) {
+
+    return withVersion(foodCategoryService.patch(id, request, parseIfMatch(ifMatch)));
+  }
+
+  /**
+   * Удаляет категорию продуктов по идентификатору. Категорию с подкатегориями можно удалить
+   * только вместе со всей веткой, передав cascade=true; без него возвращается 409.
+   *
+   * @param id      идентификатор категории для удаления
+   * @param cascade true, если нужно удалить категорию вместе со всеми потомками
    */
   @DeleteMapping("/{id}")
   @ResponseStatus(HttpStatus.NO_CONTENT)
-  @CacheEvict(value = {"foodCategories", "foodCategoriesTree"}, allEntries = true)
-  public void delete(@PathVariable Long id) {
-    foodCategoryService.delete(id);
+  public void delete(@PathVariable Long id,
+      @RequestParam(defaultValue = "false") boolean cascade) {
+    foodCategoryService.delete(id, cascade);
+  }
+
+  /**
+   * Проверяет, совпадает ли ETag с одним из значений If-None-Match. Для If-None-Match
+   * используется слабое сравнение, поэтому префикс W/ игнорируется.
+   *
+   * @param ifNoneMatch значение заголовка If-None-Match
+   * @param etag        текущий ETag
+   * @return true, если у клиента актуальная версия
+   */
+  static boolean matchesEtag(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String value = candidate.trim();
+      if (value.startsWith("W/")) {
+        value = value.substring(2);
+      }
+      if (value.equals("*") || value.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Извлекает ожидаемую версию категории из If-Match. Для If-Match используется сильное
+   * сравнение, поэтому слабые ETag не принимаются.
+   *
+   * @param ifMatch значение заголовка If-Match
+   * @return версия категории или null, если заголовок не передан или равен *
+   * @throws FoodCategoryBadRequestException если значение не является ETag категории
+   */
+  static Long parseIfMatch(String ifMatch) {
+    if (ifMatch == null || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    String value = ifMatch.trim();
+    if (!value.matches("\"\\d{1,18}\"")) {
+      throw new FoodCategoryBadRequestException("Invalid If-Match header: " + ifMatch);
+    }
+    return Long.parseLong(value.substring(1, value.length() - 1));
+  }
+
+  /**
+   * Кодирует позицию после последнего элемента окна.
+   *
+   * @param window  окно элементов
+   * @param sorting сортировка, с которой было получено окно
+   * @return токен следующего окна или null, если окно последнее
+   */
+  private String nextCursor(Window<?> window, Sort sorting) {
+    return window.hasNext() && !window.isEmpty()
+        ? cursorCodec.encode(sorting,
+        (KeysetScrollPosition) window.positionAt(window.size() - 1))
+        : null;
+  }
+
+  /**
+   * Формирует ответ с категорией и ее версией в ETag.
+   *
+   * @param category категория
+   * @return ResponseEntity с категорией и HTTP статусом 200 (OK)
+   */
+  private ResponseEntity<FoodCategoryDto> withVersion(FoodCategory category) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (category.getVersion() != null) {
+      response.eTag("\"" + category.getVersion() + "\"");
+    }
+    return response.body(mapper.toDto(category));
+  }
+
+  /**
+   * Проверяет, принимает ли клиент содержимое, сжатое gzip.
+   *
+   * @param acceptEncoding значение заголовка Accept-Encoding
+   * @return true, если gzip (или *) указан без q=0
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String candidate : acceptEncoding.split(",")) {
+      String[] parts = candidate.trim().split(";");
+      String coding = parts[0].trim();
+      if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) {
+        continue;
+      }
+      boolean rejected = false;
+      for (int i = 1; i < parts.length; i++) {
+        String param = parts[i].trim().replace(" ", "");
+        rejected |= param.matches("q=0(\\.0{0,3})?");
+      }
+      return !rejected;
+    }
+    return false;
   }
 
   /**
-   * Создает объект Sort на основе параметров сортировки.
+   * Создает объект Sort на основе параметров сортировки. Значение по умолчанию "name,asc" Spring
+   * разбивает по запятой на два элемента массива, поэтому элементы сначала объединяются.
    *
    * @param sort массив строк с параметрами сортировки
    * @return объект Sort
    */
   static Sort getSorting(String[] sort) {
-    return Sort.by(sort[0].split(",")[1].equals("desc")
+    String[] parts = String.join(",", sort).split(",");
+    return Sort.by(parts.length > 1 && parts[1].equals("desc")
             ? Sort.Direction.DESC
             : Sort.Direction.ASC,
-        sort[0].split(",")[0]);
+        parts[0]);
   }
 }
\ No newline at end of file
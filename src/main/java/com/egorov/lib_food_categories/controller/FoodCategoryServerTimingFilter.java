@@ -0,0 +1,152 @@
+package com.egorov.lib_food_categories.controller;
+
+import com.egorov.lib_food_categories.util.FoodCategorySqlStatistics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Фильтр, считающий SQL-запросы каждого HTTP-запроса. Количество запросов и время работы с базой
+ * данных отдаются в заголовке {@code Server-Timing} и записываются в журнал с полями MDC
+ * {@value #STATEMENTS_MDC_KEY} и {@value #DB_MILLIS_MDC_KEY}.
+ *
+ * <p>Заголовок добавляется перед тем, как ответ начинает записываться: к этому моменту
+ * обработчик уже выполнил свои запросы. Для потоковых ответов (выгрузка) в заголовок попадают
+ * только запросы до начала записи, а в журнал - все запросы.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FoodCategoryServerTimingFilter extends OncePerRequestFilter {
+
+  /**
+   * Имя заголовка с метриками запроса.
+   */
+  public static final String SERVER_TIMING = "Server-Timing";
+
+  /**
+   * Поле MDC с количеством SQL-запросов.
+   */
+  public static final String STATEMENTS_MDC_KEY = "sqlStatements";
+
+  /**
+   * Поле MDC с временем выполнения SQL-запросов в миллисекундах.
+   */
+  public static final String DB_MILLIS_MDC_KEY = "sqlMillis";
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    long startedAt = System.nanoTime();
+    FoodCategorySqlStatistics statistics = FoodCategorySqlStatistics.start();
+    TimingResponse timingResponse = new TimingResponse(response, statistics, startedAt);
+    try {
+      chain.doFilter(request, timingResponse);
+    } finally {
+      FoodCategorySqlStatistics.stop();
+      timingResponse.addTimingHeader();
+      logStatistics(request, response, statistics, startedAt);
+    }
+  }
+
+  /**
+   * Формирует значение заголовка {@code Server-Timing}.
+   *
+   * @param statistics счетчик SQL-запросов
+   * @param totalNanos общее время обработки запроса в наносекундах
+   * @return значение заголовка
+   */
+  static String serverTiming(FoodCategorySqlStatistics statistics, long totalNanos) {
+    return String.format(Locale.ROOT, "db;dur=%.3f;desc=\"%d statements\", app;dur=%.3f",
+        millis(statistics.getNanos()), statistics.getStatements(), millis(totalNanos));
+  }
+
+  private void logStatistics(HttpServletRequest request, HttpServletResponse response,
+      FoodCategorySqlStatistics statistics, long startedAt) {
+    String dbMillis = String.format(Locale.ROOT, "%.3f", millis(statistics.getNanos()));
+    MDC.put(STATEMENTS_MDC_KEY, String.valueOf(statistics.getStatements()));
+    MDC.put(DB_MILLIS_MDC_KEY, dbMillis);
+    try {
+      log.info("{} {} -> {}: {} SQL statements, {} ms in database, {} ms total",
+          request.getMethod(), request.getRequestURI(), response.getStatus(),
+          statistics.getStatements(), dbMillis,
+          String.format(Locale.ROOT, "%.3f", millis(System.nanoTime() - startedAt)));
+    } finally {
+      MDC.remove(STATEMENTS_MDC_KEY);
+      MDC.remove(DB_MILLIS_MDC_KEY);
+    }
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  /**
+   * Ответ, добавляющий заголовок {@code Server-Timing} непосредственно перед началом записи тела
+   * или фиксацией заголовков.
+   */
+  private static final class TimingResponse extends HttpServletResponseWrapper {
+
+    private final FoodCategorySqlStatistics statistics;
+    private final long startedAt;
+    private boolean headerAdded;
+
+    private TimingResponse(HttpServletResponse response, FoodCategorySqlStatistics statistics,
+        long startedAt) {
+      super(response);
+      this.statistics = statistics;
+      this.startedAt = startedAt;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      addTimingHeader();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      addTimingHeader();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      addTimingHeader();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      addTimingHeader();
+      super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      addTimingHeader();
+      super.sendError(sc, msg);
+    }
+
+    private void addTimingHeader() {
+      if (!headerAdded && !isCommitted()) {
+        headerAdded = true;
+        setHeader(SERVER_TIMING, serverTiming(statistics, System.nanoTime() - startedAt));
+      }
+    }
+  }
+}
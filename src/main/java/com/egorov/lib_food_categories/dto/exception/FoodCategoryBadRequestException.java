@@ -0,0 +1,14 @@
+package com.egorov.lib_food_categories.dto.exception;
+
+/**
+ * Исключение, выбрасываемое при некорректных параметрах запроса к категориям продуктов, которые
+ * не проверяются аннотациями валидации: размер окна, токены, заголовки, связи импортируемых
+ * категорий.
+ *
+ * @author i.egorov
+ */
+public class FoodCategoryBadRequestException extends RuntimeException {
+  public FoodCategoryBadRequestException(String message) {
+    super(message);
+  }
+}
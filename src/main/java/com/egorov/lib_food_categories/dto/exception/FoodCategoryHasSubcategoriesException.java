@@ -0,0 +1,13 @@
+package com.egorov.lib_food_categories.dto.exception;
+
+/**
+ * Исключение, выбрасываемое при удалении категории продуктов, у которой есть подкатегории, без
+ * явного запроса на удаление всей ветки.
+ *
+ * @author i.egorov
+ */
+public class FoodCategoryHasSubcategoriesException extends RuntimeException {
+  public FoodCategoryHasSubcategoriesException(Long id) {
+    super("Food category " + id + " has subcategories, use cascade=true to delete the branch");
+  }
+}
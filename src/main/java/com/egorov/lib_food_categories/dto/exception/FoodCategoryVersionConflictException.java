@@ -0,0 +1,13 @@
+package com.egorov.lib_food_categories.dto.exception;
+
+/**
+ * Исключение, выбрасываемое при изменении категории продуктов, версия которой не совпадает с
+ * ожидаемой клиентом (заголовок If-Match).
+ *
+ * @author i.egorov
+ */
+public class FoodCategoryVersionConflictException extends RuntimeException {
+  public FoodCategoryVersionConflictException(Long id, Long expectedVersion) {
+    super("Food category " + id + " was modified, expected version: " + expectedVersion);
+  }
+}
@@ -2,6 +2,7 @@ package com.egorov.lib_food_categories.dto.exception;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -46,6 +47,49 @@ public class GlobalExceptionHandler {
     return ValidationErrorResponse.fromBindingResult(bindingResult);
   }
 
+  /**
+   * Обрабатывает исключения, связанные с некорректными параметрами запроса. Другие
+   * IllegalArgumentException считаются внутренними ошибками и сюда не попадают.
+   *
+   * @param ex исключение типа FoodCategoryBadRequestException
+   * @return объект ErrorResponse с сообщением об ошибке
+   */
+  @ExceptionHandler(FoodCategoryBadRequestException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public ErrorResponse handleBadRequest(FoodCategoryBadRequestException ex) {
+    log.warn("Bad request: {}", ex.getMessage());
+    return new ErrorResponse(ex.getMessage());
+  }
+
+  /**
+   * Обрабатывает конфликты версий: версия из If-Match устарела или категорию одновременно изменил
+   * другой запрос.
+   *
+   * @param ex исключение типа FoodCategoryVersionConflictException или
+   *           OptimisticLockingFailureException
+   * @return объект ErrorResponse с сообщением об ошибке
+   */
+  @ExceptionHandler({FoodCategoryVersionConflictException.class,
+      OptimisticLockingFailureException.class})
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public ErrorResponse handleVersionConflict(RuntimeException ex) {
+    log.warn("Version conflict: {}", ex.getMessage());
+    return new ErrorResponse(ex.getMessage());
+  }
+
+  /**
+   * Обрабатывает попытку удалить категорию с подкатегориями без удаления всей ветки.
+   *
+   * @param ex исключение типа FoodCategoryHasSubcategoriesException
+   * @return объект ErrorResponse с сообщением об ошибке
+   */
+  @ExceptionHandler(FoodCategoryHasSubcategoriesException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public ErrorResponse handleHasSubcategories(FoodCategoryHasSubcategoriesException ex) {
+    log.warn("Conflict: {}", ex.getMessage());
+    return new ErrorResponse(ex.getMessage());
+  }
+
   /**
    * Обрабатывает все непредвиденные исключения.
    *
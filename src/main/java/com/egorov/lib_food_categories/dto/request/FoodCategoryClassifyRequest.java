@@ -0,0 +1,27 @@
+package com.egorov.lib_food_categories.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * DTO запроса классификации произвольных строк (например, ингредиентов рецепта).
+ *
+ * @author i.egorov
+ * @param texts строки для классификации (не более 10000 за один запрос)
+ * @param limit максимальное количество категорий для каждой строки (по умолчанию 3)
+ */
+public record FoodCategoryClassifyRequest(
+    @NotEmpty
+    @Size(max = 10_000)
+    List<@NotNull String> texts,
+
+    @Min(1)
+    @Max(20)
+    Integer limit
+) {
+
+}
@@ -0,0 +1,25 @@
+package com.egorov.lib_food_categories.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * DTO запроса пакетной проверки вхождения категорий в ветки других категорий.
+ *
+ * @author i.egorov
+ * @param ids         идентификаторы проверяемых категорий (не более 1000 за один запрос)
+ * @param ancestorIds идентификаторы корней веток (не более 1000 за один запрос)
+ */
+public record FoodCategoryContainmentRequest(
+    @NotEmpty
+    @Size(max = 1000)
+    List<@NotNull Long> ids,
+
+    @NotEmpty
+    @Size(max = 1000)
+    List<@NotNull Long> ancestorIds
+) {
+
+}
@@ -0,0 +1,20 @@
+package com.egorov.lib_food_categories.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * DTO запроса с набором идентификаторов категорий для пакетных операций.
+ *
+ * @author i.egorov
+ * @param ids идентификаторы категорий (не более 1000 за один запрос)
+ */
+public record FoodCategoryIdsRequest(
+    @NotEmpty
+    @Size(max = 1000)
+    List<@NotNull Long> ids
+) {
+
+}
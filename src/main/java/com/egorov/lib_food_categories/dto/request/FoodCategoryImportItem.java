@@ -0,0 +1,39 @@
+package com.egorov.lib_food_categories.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+/**
+ * DTO одной категории в пакетном импорте. Родитель задается либо ключом другой категории из того
+ * же импорта, либо идентификатором уже существующей категории.
+ *
+ * @author i.egorov
+ * @param key         ключ категории на стороне клиента, уникальный в пределах импорта
+ * @param parentKey   ключ родительской категории из того же импорта
+ * @param parentId    идентификатор существующей родительской категории
+ * @param name        название категории
+ * @param description описание категории
+ * @param isFinal     флаг конечной категории
+ */
+@Builder
+public record FoodCategoryImportItem(
+    @NotBlank
+    @Size(max = 100)
+    String key,
+
+    @Size(max = 100)
+    String parentKey,
+
+    Long parentId,
+
+    @NotBlank
+    @Size(max = 100)
+    String name,
+
+    String description,
+
+    boolean isFinal
+) {
+
+}
@@ -0,0 +1,21 @@
+package com.egorov.lib_food_categories.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * DTO запроса пакетного импорта иерархии категорий.
+ *
+ * @author i.egorov
+ * @param items импортируемые категории (не более 50000 за один запрос)
+ */
+public record FoodCategoryImportRequest(
+    @NotEmpty
+    @Size(max = 50_000)
+    List<@Valid @NotNull FoodCategoryImportItem> items
+) {
+
+}
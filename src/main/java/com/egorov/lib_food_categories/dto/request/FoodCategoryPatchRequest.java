@@ -0,0 +1,51 @@
+package com.egorov.lib_food_categories.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO частичного изменения категории продуктов по правилам JSON Merge Patch (RFC 7396).
+ * Отсутствующее в запросе поле остается null и не изменяется; поле, переданное как null,
+ * становится пустым Optional и удаляется: описание сбрасывается, а категория с parentId: null
+ * становится корневой. Название и флаг конечной категории обязательны и удалить их нельзя.
+ *
+ * <p>Поэтому DTO - класс с сеттерами, а не record: Jackson вызывает сеттер только для
+ * присутствующих полей, тогда как параметр конструктора record получил бы пустой Optional и для
+ * отсутствующего поля.
+ *
+ * @author i.egorov
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FoodCategoryPatchRequest {
+
+  /**
+   * Идентификатор нового родителя. Пустое значение делает категорию корневой.
+   */
+  private Optional<Long> parentId;
+
+  /**
+   * Новое название категории.
+   */
+  private Optional<@NotNull @Size(max = 100) @Pattern(regexp = "(?s).*\\S.*") String> name;
+
+  /**
+   * Новое описание категории. Пустое значение сбрасывает описание.
+   */
+  private Optional<String> description;
+
+  /**
+   * Новый флаг конечной категории.
+   */
+  private Optional<@NotNull Boolean> isFinal;
+}
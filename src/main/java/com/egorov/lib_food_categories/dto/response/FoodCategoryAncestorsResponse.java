@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO ответа на пакетный запрос путей категорий.
+ *
+ * @author i.egorov
+ * @param paths      пути найденных категорий в порядке запроса
+ * @param missingIds идентификаторы, для которых категории не найдены
+ */
+public record FoodCategoryAncestorsResponse(
+    List<FoodCategoryPathDto> paths,
+    List<Long> missingIds
+) {
+
+}
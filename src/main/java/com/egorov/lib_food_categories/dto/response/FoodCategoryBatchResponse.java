@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO ответа на пакетный запрос категорий по идентификаторам.
+ *
+ * @author i.egorov
+ * @param categories найденные категории в порядке запроса
+ * @param missingIds идентификаторы, для которых категории не найдены
+ */
+public record FoodCategoryBatchResponse(
+    List<FoodCategoryDto> categories,
+    List<Long> missingIds
+) {
+
+}
@@ -0,0 +1,21 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO ответа ленты изменений каталога.
+ *
+ * @author i.egorov
+ * @param upserts    созданные или измененные категории в актуальном состоянии
+ * @param tombstones идентификаторы удаленных категорий
+ * @param nextToken  токен для следующего запроса изменений
+ * @param hasMore    есть ли изменения, не вошедшие в ответ (их нужно запросить сразу)
+ */
+public record FoodCategoryChangesResponse(
+    List<FoodCategoryDto> upserts,
+    List<Long> tombstones,
+    String nextToken,
+    boolean hasMore
+) {
+
+}
@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO результата классификации одной строки.
+ *
+ * @author i.egorov
+ * @param text    исходная строка
+ * @param matches подходящие категории по убыванию оценки
+ */
+public record FoodCategoryClassificationDto(
+    String text,
+    List<FoodCategoryMatchDto> matches
+) {
+
+}
@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO результата проверки вхождения одной категории в ветки.
+ *
+ * @author i.egorov
+ * @param id          идентификатор проверяемой категории
+ * @param ancestorIds идентификаторы из запроса, в ветки которых входит категория (включая ее саму)
+ */
+public record FoodCategoryContainmentDto(
+    Long id,
+    List<Long> ancestorIds
+) {
+
+}
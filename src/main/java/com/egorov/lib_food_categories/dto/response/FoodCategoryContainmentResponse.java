@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO ответа на пакетную проверку вхождения категорий в ветки.
+ *
+ * @author i.egorov
+ * @param results    результаты для найденных категорий в порядке запроса
+ * @param missingIds идентификаторы из запроса, для которых категории не найдены
+ */
+public record FoodCategoryContainmentResponse(
+    List<FoodCategoryContainmentDto> results,
+    List<Long> missingIds
+) {
+
+}
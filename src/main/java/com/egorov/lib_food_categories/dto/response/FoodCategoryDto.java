@@ -60,4 +60,10 @@ public class FoodCategoryDto {
    * Формат: ISO-8601 с учетом временной зоны.
    */
   private ZonedDateTime updatedAt;
+
+  /**
+   * Версия категории.
+   * Передается в заголовке If-Match при изменении категории.
+   */
+  private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.Set;
+
+/**
+ * DTO события потока изменений каталога (Server-Sent Events). Тип события передается в имени
+ * события SSE, незаполненные поля не выводятся.
+ *
+ * @author i.egorov
+ * @param id          идентификатор созданной, измененной или удаленной категории
+ * @param category    состояние категории после создания или изменения
+ * @param affectedIds удаленные категории (включая потомков) или созданные при импорте
+ * @param token       токен ленты изменений, начиная с которого клиент получает события потока
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FoodCategoryEventDto(
+    Long id,
+    FoodCategoryDto category,
+    Set<Long> affectedIds,
+    String token
+) {
+
+}
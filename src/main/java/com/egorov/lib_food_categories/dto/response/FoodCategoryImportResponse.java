@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.Map;
+
+/**
+ * DTO результата пакетного импорта категорий.
+ *
+ * @author i.egorov
+ * @param created количество созданных категорий
+ * @param ids     идентификаторы созданных категорий по клиентским ключам
+ */
+public record FoodCategoryImportResponse(
+    int created,
+    Map<String, Long> ids
+) {
+
+}
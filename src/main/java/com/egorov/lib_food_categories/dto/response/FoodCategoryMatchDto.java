@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+/**
+ * DTO категории, подобранной для текста.
+ *
+ * @author i.egorov
+ * @param id    идентификатор категории
+ * @param name  название категории
+ * @param score оценка совпадения от 0 до 1
+ */
+public record FoodCategoryMatchDto(
+    Long id,
+    String name,
+    double score
+) {
+
+}
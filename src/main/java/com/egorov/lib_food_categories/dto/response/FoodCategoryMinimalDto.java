@@ -1,16 +1,30 @@
 package com.egorov.lib_food_categories.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * Минимальное DTO для представления категории продуктов.
  * Содержит только базовую информацию о категории.
  *
  * @author i.egorov
  * @param id уникальный идентификатор категории
+ * @param parentId идентификатор родительской категории (не выводится, если не задан)
  * @param name название категории
  */
 public record FoodCategoryMinimalDto(
     Long id,
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Long parentId,
     String name
 ) {
 
-}
\ No newline at end of file
+  /**
+   * Создает DTO без сведений о родителе (для путей и результатов поиска).
+   *
+   * @param id   уникальный идентификатор категории
+   * @param name название категории
+   */
+  public FoodCategoryMinimalDto(Long id, String name) {
+    this(id, null, name);
+  }
+}
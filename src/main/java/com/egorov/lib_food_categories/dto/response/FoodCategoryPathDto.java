@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO пути категории в иерархии (хлебные крошки).
+ *
+ * @author i.egorov
+ * @param id   идентификатор запрошенной категории
+ * @param path категории от корня до запрошенной категории включительно
+ */
+public record FoodCategoryPathDto(
+    Long id,
+    List<FoodCategoryMinimalDto> path
+) {
+
+}
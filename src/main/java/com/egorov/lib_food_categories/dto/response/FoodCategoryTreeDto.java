@@ -1,5 +1,6 @@
 package com.egorov.lib_food_categories.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.ZonedDateTime;
 import java.util.List;
 import lombok.Builder;
@@ -15,6 +16,8 @@ import lombok.Builder;
  * @param isFinal флаг, указывающий является ли категория конечной (не имеет подкатегорий)
  * @param subCategories список подкатегорий (дочерних категорий)
  * @param createdAt дата и время создания категории
+ * @param childCount количество прямых потомков, если подкатегории не включены в ответ из-за
+ *                   ограничения глубины (иначе не выводится)
  */
 @Builder
 public record FoodCategoryTreeDto(
@@ -23,7 +26,23 @@ public record FoodCategoryTreeDto(
     String description,
     boolean isFinal,
     List<FoodCategoryTreeDto> subCategories,
-    ZonedDateTime createdAt
+    ZonedDateTime createdAt,
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Integer childCount
 ) {
 
+  /**
+   * Создает узел дерева с полностью включенными подкатегориями.
+   *
+   * @param id            уникальный идентификатор категории
+   * @param name          название категории
+   * @param description   описание категории
+   * @param isFinal       флаг конечной категории
+   * @param subCategories список подкатегорий
+   * @param createdAt     дата и время создания категории
+   */
+  public FoodCategoryTreeDto(Long id, String name, String description, boolean isFinal,
+      List<FoodCategoryTreeDto> subCategories, ZonedDateTime createdAt) {
+    this(id, name, description, isFinal, subCategories, createdAt, null);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO окна узлов дерева категорий при курсорной (keyset) пагинации.
+ *
+ * @author i.egorov
+ * @param content    узлы текущего окна (без подкатегорий, с количеством прямых потомков)
+ * @param nextCursor непрозрачный токен для получения следующего окна; null, если окно последнее
+ */
+public record FoodCategoryTreeWindowDto(
+    List<FoodCategoryTreeDto> content,
+    String nextCursor
+) {
+
+}
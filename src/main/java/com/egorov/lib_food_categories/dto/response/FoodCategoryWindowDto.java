@@ -0,0 +1,17 @@
+package com.egorov.lib_food_categories.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO окна категорий при курсорной (keyset) пагинации.
+ *
+ * @author i.egorov
+ * @param content    категории текущего окна
+ * @param nextCursor непрозрачный токен для получения следующего окна; null, если окно последнее
+ */
+public record FoodCategoryWindowDto(
+    List<FoodCategoryDto> content,
+    String nextCursor
+) {
+
+}
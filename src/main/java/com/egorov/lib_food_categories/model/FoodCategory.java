@@ -6,9 +6,12 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.time.ZonedDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -26,7 +29,10 @@ import org.hibernate.annotations.UpdateTimestamp;
  * @author i.egorov
  */
 @Entity
-@Table(name = "food_categories")
+@Table(name = "food_categories", indexes = {
+    @Index(name = "idx_food_categories_name_id", columnList = "name, id"),
+    @Index(name = "idx_food_categories_parent_name_id", columnList = "parent_id, name, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,10 +42,13 @@ import org.hibernate.annotations.UpdateTimestamp;
 public class FoodCategory {
 
   /**
-   * Уникальный идентификатор категории
+   * Уникальный идентификатор категории.
+   * Выдается пулом из последовательности, что позволяет группировать INSERT в JDBC-батчи.
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "food_categories_id_seq")
+  @SequenceGenerator(name = "food_categories_id_seq", sequenceName = "food_categories_id_seq",
+      allocationSize = 50)
   private Long id;
 
   /**
@@ -85,4 +94,12 @@ public class FoodCategory {
   @UpdateTimestamp
   @Column(name = "updated_at")
   private ZonedDateTime updatedAt;
+
+  /**
+   * Версия записи для оптимистической блокировки.
+   * Увеличивается при каждом изменении и передается клиентам в ETag.
+   */
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
 }
\ No newline at end of file
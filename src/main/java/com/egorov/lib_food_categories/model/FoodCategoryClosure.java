@@ -0,0 +1,54 @@
+package com.egorov.lib_food_categories.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Запись таблицы замыканий иерархии категорий. Для каждой категории хранит связь со всеми ее
+ * предками (включая саму категорию с глубиной 0), что позволяет получать всех предков или всех
+ * потомков одним индексированным запросом.
+ *
+ * @author i.egorov
+ */
+@Entity
+@Table(name = "food_category_closure", indexes = {
+    @Index(name = "idx_food_category_closure_descendant", columnList = "descendant_id, depth")
+})
+@IdClass(FoodCategoryClosureId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FoodCategoryClosure {
+
+  /**
+   * Идентификатор категории-предка
+   */
+  @Id
+  @Column(name = "ancestor_id", nullable = false)
+  private Long ancestorId;
+
+  /**
+   * Идентификатор категории-потомка
+   */
+  @Id
+  @Column(name = "descendant_id", nullable = false)
+  private Long descendantId;
+
+  /**
+   * Расстояние между предком и потомком в уровнях иерархии.
+   * 0 - запись категории о самой себе.
+   */
+  @Column(name = "depth", nullable = false)
+  private int depth;
+}
@@ -0,0 +1,23 @@
+package com.egorov.lib_food_categories.model;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Составной ключ записи таблицы замыканий: пара (предок, потомок).
+ *
+ * @author i.egorov
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class FoodCategoryClosureId implements Serializable {
+
+  private Long ancestorId;
+
+  private Long descendantId;
+}
@@ -0,0 +1,130 @@
+package com.egorov.lib_food_categories.repository;
+
+import com.egorov.lib_food_categories.model.FoodCategoryClosure;
+import com.egorov.lib_food_categories.model.FoodCategoryClosureId;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Репозиторий таблицы замыканий иерархии категорий. Все методы изменения должны вызываться в той
+ * же транзакции, что и изменение самих категорий.
+ *
+ * @author i.egorov
+ */
+@Repository
+public interface FoodCategoryClosureRepository
+    extends JpaRepository<FoodCategoryClosure, FoodCategoryClosureId> {
+
+  boolean existsByAncestorIdAndDescendantId(Long ancestorId, Long descendantId);
+
+  long countByDepth(int depth);
+
+  List<FoodCategoryClosure> findAllByDescendantIdIn(Collection<Long> descendantIds);
+
+  /**
+   * Добавляет записи для новой категории: связь с самой собой и со всеми предками родителя.
+   *
+   * @param id       идентификатор новой категории
+   * @param parentId идентификатор родителя или null для корневой категории
+   * @return количество добавленных записей
+   */
+  @Modifying
+  @Query(value = """
+      INSERT INTO food_category_closure (ancestor_id, descendant_id, depth)
+      SELECT :id, :id, 0
+      UNION ALL
+      SELECT cl.ancestor_id, :id, cl.depth + 1
+      FROM food_category_closure cl
+      WHERE cl.descendant_id = :parentId
+      """, nativeQuery = true)
+  int insertNode(@Param("id") Long id, @Param("parentId") Long parentId);
+
+  /**
+   * Отрывает поддерево от прежних предков: удаляет связи, ведущие в поддерево извне. Связи внутри
+   * поддерева сохраняются.
+   *
+   * @param id идентификатор корня поддерева
+   * @return количество удаленных записей
+   */
+  @Modifying
+  @Query(value = """
+      DELETE FROM food_category_closure
+      WHERE descendant_id IN (
+          SELECT descendant_id FROM food_category_closure WHERE ancestor_id = :id)
+        AND ancestor_id NOT IN (
+          SELECT descendant_id FROM food_category_closure WHERE ancestor_id = :id)
+      """, nativeQuery = true)
+  int detachSubtree(@Param("id") Long id);
+
+  /**
+   * Присоединяет поддерево к новому родителю: связывает всех предков родителя (включая его самого)
+   * со всеми узлами поддерева.
+   *
+   * @param id       идентификатор корня поддерева
+   * @param parentId идентификатор нового родителя
+   * @return количество добавленных записей
+   */
+  @Modifying
+  @Query(value = """
+      INSERT INTO food_category_closure (ancestor_id, descendant_id, depth)
+      SELECT supertree.ancestor_id, subtree.descendant_id, supertree.depth + subtree.depth + 1
+      FROM food_category_closure supertree
+      CROSS JOIN food_category_closure subtree
+      WHERE supertree.descendant_id = :parentId
+        AND subtree.ancestor_id = :id
+      """, nativeQuery = true)
+  int attachSubtree(@Param("id") Long id, @Param("parentId") Long parentId);
+
+  /**
+   * Удаляет все записи, относящиеся к узлам поддерева.
+   *
+   * @param id идентификатор корня поддерева
+   * @return количество удаленных записей
+   */
+  @Modifying
+  @Query(value = """
+      DELETE FROM food_category_closure
+      WHERE descendant_id IN (
+          SELECT descendant_id FROM food_category_closure WHERE ancestor_id = :id)
+      """, nativeQuery = true)
+  int deleteSubtree(@Param("id") Long id);
+
+  /**
+   * Берет транзакционную рекомендательную блокировку перестроения таблицы замыканий. Блокировка
+   * снимается при завершении транзакции, поэтому одновременно проверять и перестраивать таблицу
+   * может только один экземпляр приложения.
+   *
+   * @return всегда 1
+   */
+  @Query(value = """
+      SELECT 1 FROM pg_advisory_xact_lock(hashtext('food_category_closure'))
+      """, nativeQuery = true)
+  int lockForRebuild();
+
+  /**
+   * Заполняет таблицу замыканий по текущим значениям parent_id. Предполагается, что таблица
+   * предварительно очищена.
+   *
+   * @return количество добавленных записей
+   */
+  @Modifying
+  @Query(value = """
+      WITH RECURSIVE paths (ancestor_id, descendant_id, depth) AS (
+          SELECT c.id, c.id, 0
+          FROM food_categories c
+          UNION ALL
+          SELECT p.ancestor_id, c.id, p.depth + 1
+          FROM paths p
+          JOIN food_categories c ON c.parent_id = p.descendant_id
+      )
+      INSERT INTO food_category_closure (ancestor_id, descendant_id, depth)
+      SELECT ancestor_id, descendant_id, depth
+      FROM paths
+      """, nativeQuery = true)
+  int rebuild();
+}
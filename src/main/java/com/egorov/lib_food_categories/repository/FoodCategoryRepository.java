@@ -1,14 +1,213 @@
 package com.egorov.lib_food_categories.repository;
 
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
 import com.egorov.lib_food_categories.model.FoodCategory;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface FoodCategoryRepository extends JpaRepository<FoodCategory, Long> {
 
-  List<FoodCategory> findByParentIdIsNull();
-
   List<FoodCategory> findAllByParentId(Long parentId);
-}
\ No newline at end of file
+
+  boolean existsByParentId(Long parentId);
+
+  /**
+   * Возвращает окно прямых потомков категории после указанной позиции без подсчета общего
+   * количества строк.
+   *
+   * @param parentId идентификатор родительской категории
+   * @param position позиция, после которой начинается окно
+   * @param sort     сортировка (идентификатор добавляется автоматически для однозначности)
+   * @param limit    размер окна
+   * @return окно категорий
+   */
+  Window<FoodCategory> findAllByParentId(Long parentId, ScrollPosition position, Sort sort,
+      Limit limit);
+
+  /**
+   * Подсчитывает прямых потомков для каждой из указанных категорий одним агрегирующим запросом.
+   * Категории без потомков в результат не попадают.
+   *
+   * @param parentIds идентификаторы родительских категорий
+   * @return количество потомков по идентификаторам родителей
+   */
+  @Query("""
+      select c.parentId as parentId, count(c) as childCount
+      from FoodCategory c
+      where c.parentId in :parentIds
+      group by c.parentId
+      """)
+  List<ChildCount> countChildren(@Param("parentIds") Collection<Long> parentIds);
+
+  /**
+   * Возвращает окно категорий после указанной позиции без подсчета общего количества строк.
+   *
+   * @param position позиция, после которой начинается окно
+   * @param sort     сортировка (идентификатор добавляется автоматически для однозначности)
+   * @param limit    размер окна
+   * @return окно категорий
+   */
+  Window<FoodCategory> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+  /**
+   * Возвращает все категории в виде проекции из идентификатора, родителя и названия. Запрос
+   * выбирает только эти три столбца и не создает управляемых сущностей.
+   *
+   * @return все категории в порядке идентификаторов
+   */
+  @Query("""
+      select new com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto(
+          c.id, c.parentId, c.name)
+      from FoodCategory c
+      order by c.id
+      """)
+  List<FoodCategoryMinimalDto> findAllMinimal();
+
+  /**
+   * Потоково читает все категории в порядке идентификаторов. Строки подгружаются из курсора
+   * порциями по 500, поэтому поток должен читаться внутри транзакции и быть закрыт после чтения.
+   *
+   * @return поток всех категорий
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select c from FoodCategory c order by c.id")
+  Stream<FoodCategory> streamAll();
+
+  /**
+   * Потоково читает одним запросом версию каталога и столбцы всех категорий, нужные для снимка
+   * иерархии, в порядке идентификаторов. Версия и категории берутся из одного снимка базы данных,
+   * поэтому согласованы без отдельной транзакции REPEATABLE READ. Строка версии присоединяется
+   * слева, поэтому при пустой таблице категорий возвращается одна строка без категории (id равен
+   * null). Сущности не создаются; строки подгружаются из курсора порциями по 500, поэтому поток
+   * должен читаться внутри транзакции и быть закрыт после чтения.
+   *
+   * @return поток строк снимка иерархии
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query(value = """
+      SELECT v.version AS "catalogVersion", c.id AS "id", c.parent_id AS "parentId",
+          c.name AS "name", c.description AS "description", c.is_final AS "isFinal",
+          c.created_at AS "createdAt"
+      FROM food_category_catalog_version v
+      LEFT JOIN food_categories c ON TRUE
+      WHERE v.id = 1
+      ORDER BY c.id
+      """, nativeQuery = true)
+  Stream<HierarchyRow> streamHierarchy();
+
+  /**
+   * Возвращает текущую версию каталога, которую увеличивает каждое зафиксированное изменение.
+   *
+   * @return версия каталога или 0, если изменений еще не было
+   */
+  @Query(value = """
+      SELECT COALESCE(MAX(version), 0) FROM food_category_catalog_version WHERE id = 1
+      """, nativeQuery = true)
+  long catalogVersion();
+
+  /**
+   * Частично изменяет категорию одним условным UPDATE. Значения null для названия и флага
+   * конечной категории оставляют поле без изменений; описание и родитель изменяются только при
+   * установленных флагах и могут быть сброшены в null. Строка предварительно блокируется в том же
+   * запросе, поэтому прежний родитель читается из последней зафиксированной версии.
+   *
+   * @param id             идентификатор категории
+   * @param name           новое название или null
+   * @param setDescription true, если описание нужно заменить значением description
+   * @param description    новое описание или null, чтобы сбросить описание
+   * @param isFinal        новый флаг конечной категории или null
+   * @param setParent      true, если родителя нужно заменить значением parentId
+   * @param parentId       новый родитель или null, чтобы сделать категорию корневой
+   * @param version        ожидаемая версия категории или null, если версия не проверяется
+   * @return список из прежнего родителя категории (null для корневой) или пустой список, если
+   *     категория не найдена или ее версия не совпала
+   */
+  @Query(value = """
+      WITH old AS (
+          SELECT id, parent_id FROM food_categories WHERE id = :id FOR UPDATE
+      )
+      UPDATE food_categories c
+      SET name = COALESCE(CAST(:name AS varchar), c.name),
+          description = CASE WHEN :setDescription THEN CAST(:description AS text)
+                             ELSE c.description END,
+          is_final = COALESCE(CAST(:isFinal AS boolean), c.is_final),
+          parent_id = CASE WHEN :setParent THEN CAST(:parentId AS bigint) ELSE c.parent_id END,
+          version = c.version + 1,
+          updated_at = CURRENT_TIMESTAMP
+      FROM old
+      WHERE c.id = old.id
+        AND (CAST(:version AS bigint) IS NULL OR c.version = CAST(:version AS bigint))
+      RETURNING old.parent_id
+      """, nativeQuery = true)
+  List<Long> patch(@Param("id") Long id, @Param("name") String name,
+      @Param("setDescription") boolean setDescription,
+      @Param("description") String description, @Param("isFinal") Boolean isFinal,
+      @Param("setParent") boolean setParent, @Param("parentId") Long parentId,
+      @Param("version") Long version);
+
+  /**
+   * Удаляет категорию вместе со всеми ее потомками по таблице замыканий. Внешнего ключа на
+   * parent_id нет, поэтому потомки удаляются явно; метод вызывается до удаления записей поддерева
+   * из таблицы замыканий.
+   *
+   * @param id идентификатор корня удаляемой ветки
+   * @return идентификаторы фактически удаленных категорий
+   */
+  @Query(value = """
+      DELETE FROM food_categories
+      WHERE id = :id
+         OR id IN (SELECT descendant_id FROM food_category_closure WHERE ancestor_id = :id)
+      RETURNING id
+      """, nativeQuery = true)
+  List<Long> deleteSubtree(@Param("id") Long id);
+
+  /**
+   * Строка снимка иерархии: версия каталога и столбцы категории.
+   */
+  interface HierarchyRow {
+
+    long getCatalogVersion();
+
+    Long getId();
+
+    Long getParentId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getIsFinal();
+
+    Instant getCreatedAt();
+  }
+
+  /**
+   * Проекция количества прямых потомков категории.
+   */
+  interface ChildCount {
+
+    Long getParentId();
+
+    long getChildCount();
+  }
+}
@@ -0,0 +1,64 @@
+package com.egorov.lib_food_categories.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Точечно поддерживает кэши категорий после зафиксированных изменений. Из кэша отдельных
+ * категорий удаляются только измененная категория и ее прежний и новый родители. Снимок иерархии
+ * следит за версией каталога сам ({@link FoodCategoryHierarchyCache}); дерево и индекс слов
+ * отдельно не кэшируются и строятся по снимку.
+ *
+ * @author i.egorov
+ */
+@Component
+@RequiredArgsConstructor
+public class FoodCategoryCacheInvalidator {
+
+  private final CacheManager cacheManager;
+
+  /**
+   * Применяет изменение к кэшам после фиксации транзакции. Выполняется раньше остальных
+   * слушателей, чтобы они видели уже исправленные кэши.
+   *
+   * @param event событие изменения категорий
+   */
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(FoodCategoryChangedEvent event) {
+    Cache categories = cache("foodCategories");
+
+    switch (event.type()) {
+      case CREATED, UPDATED ->
+          evict(categories, event.id(), event.parentId(), event.previousParentId());
+      case DELETED -> {
+        event.affectedIds().forEach(categories::evict);
+        evict(categories, event.parentId());
+      }
+      case IMPORTED -> {
+      }
+      case RESET -> categories.clear();
+    }
+  }
+
+  private void evict(Cache cache, Long... ids) {
+    for (Long id : ids) {
+      if (id != null) {
+        cache.evict(id);
+      }
+    }
+  }
+
+  private Cache cache(String name) {
+    Cache cache = cacheManager.getCache(name);
+    if (cache == null) {
+      throw new IllegalStateException("Cache is not configured: " + name);
+    }
+    return cache;
+  }
+}
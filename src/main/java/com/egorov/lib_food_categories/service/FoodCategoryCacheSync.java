@@ -0,0 +1,303 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.egorov.lib_food_categories.service.FoodCategoryChangedEvent.Type;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Согласование локальных кэшей нескольких экземпляров сервиса через PostgreSQL LISTEN/NOTIFY.
+ *
+ * <p>Каждое изменение каталога в транзакции записи увеличивает версию каталога (строка таблицы
+ * {@code food_category_catalog_version}, ее увеличивает {@link FoodCategoryChangeLog}) и
+ * отправляет {@code pg_notify} с идентификаторами изменения и новой версией. PostgreSQL доставляет
+ * уведомление только после фиксации транзакции и в порядке фиксаций, поэтому версии приходят
+ * подряд. Каждый узел слушает канал на отдельном соединении и публикует полученные с других узлов
+ * изменения как локальные {@link FoodCategoryChangedEvent}: кэши, дерево и поисковый индекс
+ * исправляются теми же слушателями, что и при локальной записи. Перед публикацией версия изменения
+ * передается снимку иерархии ({@link FoodCategoryHierarchyCache}), чтобы он не отдавал более
+ * старое состояние. Пропуск версии или переподключение сбрасывают снимок и приводят к событию
+ * RESET.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.lib-food-categories.cache-sync", name = "enabled",
+    havingValue = "true")
+public class FoodCategoryCacheSync implements SmartLifecycle {
+
+  /**
+   * Максимальный размер уведомления до добавления версии. Ограничение PostgreSQL - 8000 байт,
+   * а при приведении jsonb к тексту добавляются пробелы после запятых и двоеточий.
+   */
+  static final int MAX_PAYLOAD_BYTES = 6000;
+
+  static final String NOTIFY_SQL = """
+      SELECT v.version
+      FROM food_category_catalog_version v,
+          pg_notify(?, CAST(CAST(? AS jsonb) || jsonb_build_object('version', v.version)
+              AS text))
+      WHERE v.id = 1
+      """;
+
+  private static final String VERSION_SQL =
+      "SELECT version FROM food_category_catalog_version WHERE id = 1";
+  private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+  private static final int POLL_TIMEOUT_MILLIS = 1000;
+  private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectMapper objectMapper;
+  private final FoodCategoryRepository foodCategoryRepository;
+  private final FoodCategoryHierarchyCache hierarchyCache;
+  private final ApplicationEventPublisher eventPublisher;
+  private final String channel;
+  private final String nodeId = UUID.randomUUID().toString();
+
+  private volatile boolean running;
+  private Thread listener;
+  private volatile long lastVersion = -1;
+
+  public FoodCategoryCacheSync(DataSource dataSource, JdbcTemplate jdbcTemplate,
+      ObjectMapper objectMapper, FoodCategoryRepository foodCategoryRepository,
+      FoodCategoryHierarchyCache hierarchyCache, ApplicationEventPublisher eventPublisher,
+      @Value("${app.lib-food-categories.cache-sync.channel:food_category_changes}")
+      String channel) {
+    if (!CHANNEL.matcher(channel).matches()) {
+      throw new IllegalArgumentException("Invalid notification channel: " + channel);
+    }
+    this.dataSource = dataSource;
+    this.jdbcTemplate = jdbcTemplate;
+    this.objectMapper = objectMapper;
+    this.foodCategoryRepository = foodCategoryRepository;
+    this.hierarchyCache = hierarchyCache;
+    this.eventPublisher = eventPublisher;
+    this.channel = channel;
+  }
+
+  /**
+   * Отправляет уведомление об изменении внутри транзакции записи. Уведомление станет видно
+   * другим узлам только после фиксации и пропадет при откате. Выполняется после записи изменения
+   * в журнал, поэтому уведомление несет уже увеличенную версию каталога.
+   *
+   * @param event событие изменения категорий
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+  public void onChanged(FoodCategoryChangedEvent event) {
+    Long version = jdbcTemplate.queryForObject(NOTIFY_SQL, Long.class, channel, payload(event));
+    log.debug("Published {} of category {} as catalog version {}", event.type(), event.id(),
+        version);
+  }
+
+  /**
+   * Обрабатывает полученное уведомление.
+   *
+   * @param payload текст уведомления
+   */
+  void handle(String payload) {
+    Message message;
+    try {
+      message = objectMapper.readValue(payload, Message.class);
+    } catch (JsonProcessingException e) {
+      log.warn("Cannot parse category change notification, resetting caches", e);
+      reset();
+      return;
+    }
+
+    long previous = lastVersion;
+    lastVersion = Math.max(lastVersion, message.version());
+    if (previous >= 0 && message.version() <= previous) {
+      return;
+    }
+    if (previous >= 0 && message.version() > previous + 1) {
+      log.warn("Missed catalog versions {}..{}, resetting caches", previous + 1,
+          message.version() - 1);
+      reset();
+      return;
+    }
+    if (!nodeId.equals(message.node())) {
+      toEvent(message).ifPresent(event -> {
+        hierarchyCache.apply(event, message.version());
+        eventPublisher.publishEvent(event);
+      });
+    }
+  }
+
+  /**
+   * Сбрасывает снимок иерархии и публикует событие RESET для остальных кэшей.
+   */
+  private void reset() {
+    hierarchyCache.reset();
+    eventPublisher.publishEvent(FoodCategoryChangedEvent.reset());
+  }
+
+  /**
+   * Последняя известная узлу версия каталога.
+   *
+   * @return версия или -1, если канал еще не прослушивается
+   */
+  long lastVersion() {
+    return lastVersion;
+  }
+
+  /**
+   * Формирует текст уведомления без версии (ее добавляет запрос). Если идентификаторов слишком
+   * много для одного уведомления, отправляется RESET.
+   *
+   * @param event событие изменения категорий
+   * @return JSON уведомления
+   */
+  String payload(FoodCategoryChangedEvent event) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(new Message(nodeId, 0, event.type(),
+          event.id(), event.parentId(), event.previousParentId(), event.affectedIds()));
+      if (json.length > MAX_PAYLOAD_BYTES) {
+        json = objectMapper.writeValueAsBytes(
+            new Message(nodeId, 0, Type.RESET, null, null, null, Set.of()));
+      }
+      return new String(json, StandardCharsets.UTF_8);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Восстанавливает событие по уведомлению с другого узла. Для создания и изменения категория
+   * читается из базы данных: уведомление приходит после фиксации, поэтому состояние актуально.
+   *
+   * @param message уведомление
+   * @return событие или пустой Optional, если категория уже удалена (удаление придет следующим
+   *     уведомлением)
+   */
+  private Optional<FoodCategoryChangedEvent> toEvent(Message message) {
+    return switch (message.type()) {
+      case CREATED, UPDATED -> foodCategoryRepository.findById(message.id())
+          .map(category -> changed(message, category));
+      case DELETED -> Optional.of(new FoodCategoryChangedEvent(Type.DELETED, message.id(),
+          message.parentId(), message.parentId(), null, message.affectedIds()));
+      case IMPORTED -> Optional.of(FoodCategoryChangedEvent.imported(message.affectedIds()));
+      case RESET -> Optional.of(FoodCategoryChangedEvent.reset());
+    };
+  }
+
+  private static FoodCategoryChangedEvent changed(Message message, FoodCategory category) {
+    return new FoodCategoryChangedEvent(message.type(), category.getId(),
+        category.getParentId(), message.previousParentId(), category, Set.of());
+  }
+
+  /**
+   * Цикл прослушивания канала. Соединение удерживается из общего пула на все время работы; после
+   * ошибки цикл переподключается и сбрасывает кэши, так как уведомления могли быть пропущены.
+   */
+  private void listen() {
+    boolean reconnect = false;
+    while (running) {
+      try (Connection connection = dataSource.getConnection()) {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channel);
+          try (ResultSet resultSet = statement.executeQuery(VERSION_SQL)) {
+            lastVersion = resultSet.next() ? resultSet.getLong(1) : -1;
+          }
+        }
+        if (reconnect) {
+          reset();
+        }
+        reconnect = true;
+        log.info("Listening for category changes on channel {} from catalog version {}",
+            channel, lastVersion);
+
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              handle(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        if (running) {
+          log.warn("Category change listener failed, reconnecting in {} ms",
+              RECONNECT_DELAY_MILLIS, e);
+          pause();
+        }
+      }
+    }
+  }
+
+  private void pause() {
+    try {
+      Thread.sleep(RECONNECT_DELAY_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    listener = new Thread(this::listen, "food-category-cache-sync");
+    listener.setDaemon(true);
+    listener.start();
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (listener != null) {
+      listener.interrupt();
+      try {
+        listener.join(2L * POLL_TIMEOUT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Уведомление об изменении каталога.
+   *
+   * @param node             узел, выполнивший изменение
+   * @param version          версия каталога после изменения
+   * @param type             тип изменения
+   * @param id               идентификатор измененной категории
+   * @param parentId         идентификатор родителя после изменения
+   * @param previousParentId идентификатор родителя до изменения
+   * @param affectedIds      удаленные или импортированные категории
+   */
+  record Message(String node, long version, Type type, Long id,
+      Long parentId, Long previousParentId, Set<Long> affectedIds) {
+
+  }
+}
@@ -0,0 +1,222 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Журнал изменений каталога для инкрементальной синхронизации клиентов.
+ *
+ * <p>Каждое изменение в транзакции записи увеличивает версию каталога (строка таблицы
+ * {@code food_category_catalog_version}) и записывает в таблицу {@code food_category_changes}
+ * затронутые категории с этой версией. Журнал сжат: для каждой категории хранится только
+ * последнее изменение (актуальное состояние или отметка об удалении), поэтому его размер не
+ * превышает количества когда-либо созданных категорий. Строка версии блокируется до фиксации,
+ * поэтому транзакции записи получают версии в порядке фиксаций, и читатель всегда видит журнал
+ * без пропусков.
+ *
+ * <p>Позиция клиента в журнале - токен из версии и идентификатора последней выданной категории.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FoodCategoryChangeLog {
+
+  /**
+   * Максимальное количество изменений в одном ответе.
+   */
+  static final int MAX_LIMIT = 10_000;
+
+  static final String RECORD_SQL = """
+      WITH v AS (
+        UPDATE food_category_catalog_version SET version = version + 1 WHERE id = 1
+        RETURNING version
+      )
+      INSERT INTO food_category_changes (category_id, version, deleted)
+      SELECT ids.id, v.version, ?
+      FROM v, unnest(CAST(? AS bigint[])) AS ids(id)
+      ON CONFLICT (category_id)
+      DO UPDATE SET version = EXCLUDED.version, deleted = EXCLUDED.deleted
+      """;
+
+  static final String CHANGES_SQL = """
+      SELECT category_id, version, deleted
+      FROM food_category_changes
+      WHERE (version, category_id) > (?, ?)
+      ORDER BY version, category_id
+      LIMIT ?
+      """;
+
+  private static final String VERSION_SQL =
+      "SELECT version FROM food_category_catalog_version WHERE id = 1";
+  private static final Pattern TOKEN = Pattern.compile("(\\d{1,18})-(\\d{1,18})");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final FoodCategoryRepository foodCategoryRepository;
+
+  /**
+   * Записывает изменение в журнал внутри транзакции записи. Выполняется раньше остальных
+   * слушателей фазы BEFORE_COMMIT: уведомление других узлов использует увеличенную здесь версию.
+   *
+   * @param event событие изменения категорий
+   */
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+  public void onChanged(FoodCategoryChangedEvent event) {
+    boolean deleted = event.type() == FoodCategoryChangedEvent.Type.DELETED;
+    int recorded = jdbcTemplate.update(RECORD_SQL, deleted, toArray(changedIds(event)));
+    log.debug("Recorded {} of {} categories in change log", event.type(), recorded);
+  }
+
+  /**
+   * Возвращает токен текущей позиции журнала. Клиент получает его до полной загрузки каталога и
+   * затем запрашивает изменения начиная с него; изменения, уже попавшие в загрузку, повторно
+   * применяются без вреда.
+   *
+   * @return токен текущей позиции
+   */
+  @Transactional(readOnly = true)
+  public String currentToken() {
+    return token(currentVersion(), 0);
+  }
+
+  /**
+   * Возвращает текущую версию каталога.
+   *
+   * @return версия каталога или 0, если изменений еще не было
+   */
+  @Transactional(readOnly = true)
+  public long catalogVersion() {
+    return currentVersion();
+  }
+
+  /**
+   * Возвращает изменения после указанной позиции журнала. Журнал и состояние категорий читаются
+   * из одного снимка базы данных, поэтому состояние каждой категории соответствует ее записи в
+   * журнале.
+   *
+   * @param since токен позиции, после которой нужны изменения
+   * @param limit максимальное количество изменений
+   * @return измененные и удаленные категории и токен следующей позиции
+   * @throws FoodCategoryBadRequestException если токен поврежден или выдан для другого каталога,
+   *                                         либо количество вне допустимого диапазона
+   */
+  @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+  public Changes changesSince(String since, int limit) {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new FoodCategoryBadRequestException(
+          "limit must be between 1 and " + MAX_LIMIT + ": " + limit);
+    }
+    Matcher matcher = TOKEN.matcher(since);
+    if (!matcher.matches()) {
+      throw new FoodCategoryBadRequestException("Invalid change token: " + since);
+    }
+    long version = Long.parseLong(matcher.group(1));
+    long categoryId = Long.parseLong(matcher.group(2));
+    if (version > currentVersion()) {
+      throw new FoodCategoryBadRequestException("Change token is ahead of the catalog: " + since);
+    }
+
+    List<Entry> entries = jdbcTemplate.query(CHANGES_SQL,
+        (resultSet, row) -> new Entry(resultSet.getLong(1), resultSet.getLong(2),
+            resultSet.getBoolean(3)),
+        version, categoryId, limit + 1);
+    boolean hasMore = entries.size() > limit;
+    if (hasMore) {
+      entries = entries.subList(0, limit);
+    }
+    if (entries.isEmpty()) {
+      return new Changes(List.of(), List.of(), since, false);
+    }
+
+    List<Long> upsertIds = new ArrayList<>(entries.size());
+    List<Long> tombstones = new ArrayList<>();
+    for (Entry entry : entries) {
+      (entry.deleted() ? tombstones : upsertIds).add(entry.categoryId());
+    }
+    Map<Long, FoodCategory> found = foodCategoryRepository.findAllById(upsertIds).stream()
+        .collect(Collectors.toMap(FoodCategory::getId, Function.identity()));
+    List<FoodCategory> upserts = upsertIds.stream()
+        .map(found::get)
+        .filter(Objects::nonNull)
+        .toList();
+
+    Entry last = entries.get(entries.size() - 1);
+    return new Changes(upserts, tombstones, token(last.version(), last.categoryId()), hasMore);
+  }
+
+  private long currentVersion() {
+    Long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+    return version == null ? 0 : version;
+  }
+
+  /**
+   * Определяет категории, затронутые изменением.
+   *
+   * @param event событие изменения категорий
+   * @return идентификаторы категорий
+   */
+  static Collection<Long> changedIds(FoodCategoryChangedEvent event) {
+    return switch (event.type()) {
+      case CREATED, UPDATED -> Set.of(event.id());
+      case DELETED, IMPORTED -> event.affectedIds();
+      case RESET -> Set.of();
+    };
+  }
+
+  private static String toArray(Collection<Long> ids) {
+    return ids.stream()
+        .map(String::valueOf)
+        .collect(Collectors.joining(",", "{", "}"));
+  }
+
+  private static String token(long version, long categoryId) {
+    return version + "-" + categoryId;
+  }
+
+  /**
+   * Запись журнала.
+   *
+   * @param categoryId идентификатор категории
+   * @param version    версия каталога, в которой категория изменилась последний раз
+   * @param deleted    признак удаления категории
+   */
+  private record Entry(long categoryId, long version, boolean deleted) {
+
+  }
+
+  /**
+   * Изменения каталога после позиции клиента.
+   *
+   * @param upserts    созданные или измененные категории в актуальном состоянии
+   * @param tombstones идентификаторы удаленных категорий
+   * @param nextToken  токен позиции после последнего выданного изменения
+   * @param hasMore    есть ли изменения, не вошедшие в ответ
+   */
+  public record Changes(List<FoodCategory> upserts, List<Long> tombstones, String nextToken,
+      boolean hasMore) {
+
+  }
+}
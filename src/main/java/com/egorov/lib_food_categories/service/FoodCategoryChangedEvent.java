@@ -0,0 +1,98 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.util.Set;
+
+/**
+ * Событие изменения категорий продуктов. Публикуется сервисами внутри транзакции записи;
+ * слушатели, которым нужно только зафиксированное состояние, подписываются на фазу AFTER_COMMIT.
+ *
+ * @author i.egorov
+ * @param type             тип изменения
+ * @param id               идентификатор измененной категории (null для пакетного импорта и
+ *                         сброса)
+ * @param parentId         идентификатор родителя после изменения
+ * @param previousParentId идентификатор родителя до изменения
+ * @param category         состояние категории после изменения (null для удаления, импорта и
+ *                         сброса)
+ * @param affectedIds      удаленные категории (включая потомков) или созданные при импорте;
+ *                         пусто для создания и изменения одной категории
+ */
+public record FoodCategoryChangedEvent(
+    Type type,
+    Long id,
+    Long parentId,
+    Long previousParentId,
+    FoodCategory category,
+    Set<Long> affectedIds
+) {
+
+  /**
+   * Создает событие о новой категории.
+   *
+   * @param category созданная категория
+   * @return событие CREATED
+   */
+  public static FoodCategoryChangedEvent created(FoodCategory category) {
+    return new FoodCategoryChangedEvent(Type.CREATED, category.getId(), category.getParentId(),
+        category.getParentId(), category, Set.of());
+  }
+
+  /**
+   * Создает событие об изменении категории.
+   *
+   * @param category         категория после изменения
+   * @param previousParentId идентификатор родителя до изменения
+   * @return событие UPDATED
+   */
+  public static FoodCategoryChangedEvent updated(FoodCategory category, Long previousParentId) {
+    return new FoodCategoryChangedEvent(Type.UPDATED, category.getId(), category.getParentId(),
+        previousParentId, category, Set.of());
+  }
+
+  /**
+   * Создает событие об удалении категории вместе с ее потомками.
+   *
+   * @param category   удаленная категория
+   * @param removedIds идентификаторы удаленной категории и всех ее потомков
+   * @return событие DELETED
+   */
+  public static FoodCategoryChangedEvent deleted(FoodCategory category, Set<Long> removedIds) {
+    return new FoodCategoryChangedEvent(Type.DELETED, category.getId(), category.getParentId(),
+        category.getParentId(), null, removedIds);
+  }
+
+  /**
+   * Создает событие о пакетном импорте.
+   *
+   * @param createdIds идентификаторы созданных категорий
+   * @return событие IMPORTED
+   */
+  public static FoodCategoryChangedEvent imported(Set<Long> createdIds) {
+    return new FoodCategoryChangedEvent(Type.IMPORTED, null, null, null, null, createdIds);
+  }
+
+  /**
+   * Создает событие о неизвестных изменениях каталога, после которого все производные от него
+   * данные нужно загрузить заново.
+   *
+   * @return событие RESET
+   */
+  public static FoodCategoryChangedEvent reset() {
+    return new FoodCategoryChangedEvent(Type.RESET, null, null, null, null, Set.of());
+  }
+
+  /**
+   * Тип изменения категорий.
+   */
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED,
+    IMPORTED,
+    /**
+     * Изменения неизвестны (например, пропущены уведомления с других узлов).
+     */
+    RESET
+  }
+}
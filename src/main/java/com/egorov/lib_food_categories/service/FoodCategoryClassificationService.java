@@ -0,0 +1,21 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryClassificationDto;
+import java.util.List;
+
+/**
+ * Сервис сопоставления произвольных строк с категориями продуктов.
+ *
+ * @author i.egorov
+ */
+public interface FoodCategoryClassificationService {
+
+  /**
+   * Подбирает категории для каждой строки.
+   *
+   * @param texts строки для классификации
+   * @param limit максимальное количество категорий для каждой строки
+   * @return результаты в порядке входных строк
+   */
+  List<FoodCategoryClassificationDto> classify(List<String> texts, int limit);
+}
@@ -0,0 +1,48 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryClassificationDto;
+import com.egorov.lib_food_categories.util.FoodCategoryTokenIndex;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Сервис классификации строк по индексу слов в памяти. База данных не используется при
+ * сопоставлении: индекс строится один раз и сбрасывается только при изменении категорий.
+ *
+ * @author i.egorov
+ */
+@Service
+@RequiredArgsConstructor
+public class FoodCategoryClassificationServiceImpl implements FoodCategoryClassificationService {
+
+  /**
+   * Размер пакета, начиная с которого строки сопоставляются параллельно на всех ядрах.
+   */
+  static final int PARALLEL_THRESHOLD = 256;
+
+  private final FoodCategoryTokenIndexCache tokenIndexCache;
+
+  /**
+   * Подбирает категории для каждой строки. Большие пакеты обрабатываются параллельно, порядок
+   * результатов совпадает с порядком строк.
+   *
+   * @param texts строки для классификации
+   * @param limit максимальное количество категорий для каждой строки
+   * @return результаты в порядке входных строк
+   * @author i.egorov
+   */
+  @Override
+  public List<FoodCategoryClassificationDto> classify(List<String> texts, int limit) {
+    FoodCategoryTokenIndex index = tokenIndexCache.getTokenIndex();
+    IntStream positions = IntStream.range(0, texts.size());
+    if (texts.size() >= PARALLEL_THRESHOLD) {
+      positions = positions.parallel();
+    }
+    return positions
+        .mapToObj(i -> new FoodCategoryClassificationDto(texts.get(i),
+            index.match(texts.get(i), limit)))
+        .toList();
+  }
+}
@@ -0,0 +1,48 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.repository.FoodCategoryClosureRepository;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Проверяет таблицу замыканий при старте приложения и перестраивает ее, если она не соответствует
+ * таблице категорий (например, при первом запуске на существующих данных). Экземпляры, стартующие
+ * одновременно, выполняют проверку по очереди под рекомендательной блокировкой PostgreSQL, поэтому
+ * таблицу перестраивает только первый из них, а остальные видят уже согласованную таблицу.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FoodCategoryClosureInitializer {
+
+  private final FoodCategoryRepository foodCategoryRepository;
+  private final FoodCategoryClosureRepository closureRepository;
+
+  /**
+   * Перестраивает таблицу замыканий, если количество записей категорий о самих себе не совпадает
+   * с количеством категорий.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional
+  public void rebuildIfInconsistent() {
+    closureRepository.lockForRebuild();
+    long categories = foodCategoryRepository.count();
+    long indexed = closureRepository.countByDepth(0);
+    if (categories == indexed) {
+      return;
+    }
+
+    log.info("Rebuilding food category closure table: {} categories, {} indexed",
+        categories, indexed);
+    closureRepository.deleteAllInBatch();
+    int rows = closureRepository.rebuild();
+    log.info("Food category closure table rebuilt with {} rows", rows);
+  }
+}
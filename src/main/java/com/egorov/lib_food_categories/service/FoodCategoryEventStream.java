@@ -0,0 +1,366 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryEventDto;
+import com.egorov.lib_food_categories.util.FoodCategoryMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Поток изменений каталога для клиентов по Server-Sent Events.
+ *
+ * <p>Соединения подписчиков обслуживаются асинхронной обработкой запросов сервлет-контейнера и
+ * не занимают потоков, пока им нечего отправлять. Каждое зафиксированное изменение (в том числе
+ * полученное с других узлов) сериализуется один раз и кладется в ограниченную очередь каждого
+ * подписчика; очередь отправляется задачей в собственном пуле отправки, и для одного подписчика
+ * одновременно выполняется не больше одной такой задачи. Если подписчик не успевает читать и его
+ * очередь переполнена, накопленные события отбрасываются и вместо них отправляется событие
+ * {@value #RESYNC}: клиент догоняет каталог через ленту изменений.
+ *
+ * <p>Запись в SSE-соединение блокирующая: если клиент не читает ответ, отправка ждет до тайм-аута
+ * записи сервлет-контейнера ({@code server.tomcat.connection-timeout}). Поэтому пул отправки
+ * отдельный и ограниченный, а не {@code applicationTaskExecutor}: медленные подписчики занимают
+ * только его потоки и не задерживают другие задачи приложения, например построение дерева
+ * категорий. Очередь пула тоже ограничена; подписчик, задачу которого пул не принял, отключается
+ * и переподключается к потоку.
+ *
+ * <p>Первое событие потока - {@value #READY} с токеном ленты изменений. Подписчик регистрируется
+ * до чтения токена, поэтому ни одно изменение после токена не теряется; изменения, попавшие и в
+ * поток, и в ленту, повторно применяются без вреда. Изменения, пришедшие до чтения токена,
+ * отправляются после события {@value #READY}.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@Component
+public class FoodCategoryEventStream implements SmartLifecycle {
+
+  /**
+   * Имя первого события потока с токеном ленты изменений.
+   */
+  public static final String READY = "ready";
+
+  /**
+   * Имя события о пропущенных изменениях: клиенту нужно запросить ленту изменений со своего
+   * последнего токена.
+   */
+  public static final String RESYNC = "resync";
+
+  private static final Set<DataWithMediaType> HEARTBEAT = Collections.unmodifiableSet(
+      SseEmitter.event().comment("heartbeat").build());
+
+  private final FoodCategoryMapper mapper;
+  private final FoodCategoryChangeLog changeLog;
+  private final ObjectWriter writer;
+  private final Executor executor;
+  private final int bufferSize;
+  private final long timeoutMillis;
+  private final long heartbeatMillis;
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final Set<DataWithMediaType> resync;
+
+  private volatile boolean running;
+  private ScheduledExecutorService heartbeats;
+
+  @Autowired
+  public FoodCategoryEventStream(FoodCategoryMapper mapper, FoodCategoryChangeLog changeLog,
+      ObjectMapper objectMapper,
+      @Value("${app.lib-food-categories.stream.senders:4}") int senders,
+      @Value("${app.lib-food-categories.stream.queue-capacity:10000}") int queueCapacity,
+      @Value("${app.lib-food-categories.stream.buffer-size:256}") int bufferSize,
+      @Value("${app.lib-food-categories.stream.timeout:30m}") Duration timeout,
+      @Value("${app.lib-food-categories.stream.heartbeat:30s}") Duration heartbeat) {
+    this(mapper, changeLog, objectMapper, senders(senders, queueCapacity), bufferSize, timeout,
+        heartbeat);
+  }
+
+  FoodCategoryEventStream(FoodCategoryMapper mapper, FoodCategoryChangeLog changeLog,
+      ObjectMapper objectMapper, Executor executor, int bufferSize, Duration timeout,
+      Duration heartbeat) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("Stream buffer size must be positive: " + bufferSize);
+    }
+    this.mapper = mapper;
+    this.changeLog = changeLog;
+    this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    this.executor = executor;
+    this.bufferSize = bufferSize;
+    this.timeoutMillis = timeout.toMillis();
+    this.heartbeatMillis = heartbeat.toMillis();
+    this.resync = event(RESYNC, new FoodCategoryEventDto(null, null, null, null));
+  }
+
+  /**
+   * Создает пул отправки событий. Потоки пула - демоны и завершаются после простоя, поэтому пул
+   * не требует явной остановки.
+   *
+   * @param senders       количество потоков отправки
+   * @param queueCapacity максимальное количество подписчиков, ожидающих отправки
+   * @return пул отправки событий
+   */
+  static ThreadPoolExecutor senders(int senders, int queueCapacity) {
+    CustomizableThreadFactory threadFactory =
+        new CustomizableThreadFactory("food-category-stream-");
+    threadFactory.setDaemon(true);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(senders, senders, 1, TimeUnit.MINUTES,
+        new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Подписывает клиента на поток изменений.
+   *
+   * @return SSE-соединение подписчика
+   */
+  public SseEmitter subscribe() {
+    return subscribe(new SseEmitter(timeoutMillis));
+  }
+
+  /**
+   * Подписывает клиента на поток изменений через указанное соединение.
+   *
+   * @param emitter SSE-соединение подписчика
+   * @return то же соединение
+   */
+  SseEmitter subscribe(SseEmitter emitter) {
+    Subscriber subscriber = new Subscriber(emitter);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onError(error -> subscribers.remove(subscriber));
+    subscribers.add(subscriber);
+    try {
+      subscriber.start(event(READY,
+          new FoodCategoryEventDto(null, null, null, changeLog.currentToken())));
+    } catch (RuntimeException e) {
+      subscribers.remove(subscriber);
+      throw e;
+    }
+    log.debug("Subscribed to category stream, {} subscribers", subscribers.size());
+    return emitter;
+  }
+
+  /**
+   * Рассылает зафиксированное изменение подписчикам.
+   *
+   * @param event событие изменения категорий
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(FoodCategoryChangedEvent event) {
+    if (subscribers.isEmpty()) {
+      return;
+    }
+    Set<DataWithMediaType> message = switch (event.type()) {
+      case CREATED, UPDATED -> event(name(event),
+          new FoodCategoryEventDto(event.id(), mapper.toDto(event.category()), null, null));
+      case DELETED, IMPORTED -> event(name(event),
+          new FoodCategoryEventDto(event.id(), null, event.affectedIds(), null));
+      case RESET -> resync;
+    };
+    subscribers.forEach(subscriber -> subscriber.offer(message));
+  }
+
+  /**
+   * Возвращает количество подписчиков.
+   *
+   * @return количество открытых SSE-соединений
+   */
+  int subscriberCount() {
+    return subscribers.size();
+  }
+
+  private static String name(FoodCategoryChangedEvent event) {
+    return event.type().name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Формирует событие SSE. JSON записывается в одну строку: перевод строки разорвал бы поле
+   * {@code data}.
+   *
+   * @param name имя события
+   * @param data данные события
+   * @return части события для отправки
+   */
+  private Set<DataWithMediaType> event(String name, FoodCategoryEventDto data) {
+    try {
+      return Collections.unmodifiableSet(SseEmitter.event()
+          .name(name)
+          .data(writer.writeValueAsString(data), MediaType.APPLICATION_JSON)
+          .build());
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Отправляет комментарий подписчикам без неотправленных событий, чтобы прокси не закрывали
+   * простаивающие соединения, а оборванные соединения обнаруживались и удалялись.
+   */
+  void sendHeartbeats() {
+    subscribers.forEach(Subscriber::heartbeat);
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "food-category-stream-heartbeat");
+      thread.setDaemon(true);
+      return thread;
+    });
+    heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatMillis, heartbeatMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Закрывает все соединения: открытые SSE-соединения иначе задерживали бы плавную остановку
+   * веб-сервера до истечения их тайм-аута.
+   */
+  @Override
+  public void stop() {
+    running = false;
+    if (heartbeats != null) {
+      heartbeats.shutdownNow();
+    }
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    subscribers.clear();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Подписчик с ограниченной очередью неотправленных событий. До вызова {@link #start} события
+   * только накапливаются: флаг {@code scheduled} установлен и задача отправки не запускается.
+   */
+  private final class Subscriber implements Runnable {
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<Set<DataWithMediaType>> queue;
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final AtomicBoolean scheduled = new AtomicBoolean(true);
+    private volatile Set<DataWithMediaType> first;
+
+    private Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+      this.queue = new LinkedBlockingQueue<>(bufferSize);
+    }
+
+    /**
+     * Начинает отправку: первым отправляется указанное событие, за ним накопленные.
+     *
+     * @param message первое событие
+     */
+    private void start(Set<DataWithMediaType> message) {
+      first = message;
+      scheduled.set(false);
+      schedule();
+    }
+
+    /**
+     * Ставит событие в очередь. При переполнении и при событии RESET очередь очищается, а
+     * подписчику будет отправлено событие resync.
+     *
+     * @param message событие
+     */
+    private void offer(Set<DataWithMediaType> message) {
+      if (message == resync) {
+        queue.clear();
+        overflowed.set(true);
+      } else if (!queue.offer(message)) {
+        queue.clear();
+        if (!overflowed.getAndSet(true)) {
+          log.debug("Category stream subscriber is too slow, dropping events");
+        }
+      }
+      schedule();
+    }
+
+    private void heartbeat() {
+      if (queue.isEmpty() && !overflowed.get()) {
+        offer(HEARTBEAT);
+      }
+    }
+
+    private void schedule() {
+      if (!scheduled.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        executor.execute(this);
+      } catch (RejectedExecutionException e) {
+        close(e);
+      }
+    }
+
+    /**
+     * Отправляет накопленные события. Флаг {@code scheduled} снимается только после того, как
+     * очередь опустела, и проверяется повторно, чтобы не потерять событие, добавленное в этот
+     * момент.
+     */
+    @Override
+    public void run() {
+      try {
+        do {
+          Set<DataWithMediaType> message;
+          while ((message = next()) != null) {
+            emitter.send(message);
+          }
+          scheduled.set(false);
+        } while ((overflowed.get() || !queue.isEmpty()) && scheduled.compareAndSet(false, true));
+      } catch (IOException | IllegalStateException e) {
+        close(e);
+      }
+    }
+
+    private Set<DataWithMediaType> next() {
+      Set<DataWithMediaType> message = first;
+      if (message != null) {
+        first = null;
+        return message;
+      }
+      return overflowed.getAndSet(false) ? resync : queue.poll();
+    }
+
+    /**
+     * Удаляет подписчика после ошибки отправки. Флаг {@code scheduled} остается установленным,
+     * и новые события подписчику больше не отправляются.
+     *
+     * @param error ошибка
+     */
+    private void close(Exception error) {
+      subscribers.remove(this);
+      queue.clear();
+      log.debug("Category stream subscriber disconnected: {}", error.getMessage());
+      emitter.completeWithError(error);
+    }
+  }
+}
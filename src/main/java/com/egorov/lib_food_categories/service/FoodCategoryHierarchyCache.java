@@ -0,0 +1,191 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository.HierarchyRow;
+import com.egorov.lib_food_categories.util.FoodCategoryHierarchy;
+import java.time.ZoneOffset;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Источник снимка иерархии категорий, согласованный с версией каталога. Снимок строит только один
+ * поток: версия каталога и категории читаются одним запросом курсором по возрастанию
+ * идентификаторов и сразу раскладываются в примитивные массивы, без создания сущностей, поэтому
+ * снимок содержит ровно состояние этой версии и строки всей таблицы одновременно в памяти не
+ * находятся.
+ *
+ * <p>Узел помнит последнюю версию каталога, о фиксации которой он знает: свою запись он узнает
+ * после фиксации транзакции, запись другого узла - из уведомления {@link FoodCategoryCacheSync}.
+ * Снимок старше этой версии не отдается, а загружается заново. Поэтому загрузка, начатая до
+ * фиксации и завершившаяся после нее, не может выдать читателю, уже узнавшему об изменении,
+ * снимок без этого изменения. Версия становится известной раньше, чем изменение видят остальные
+ * слушатели (например, {@link FoodCategoryTreeRenderer}).
+ *
+ * <p>Изменение, следующее сразу за версией текущего снимка, переносится в снимок в памяти:
+ * создание, изменение и удаление категорий не требуют повторного чтения таблицы. Заново снимок
+ * загружается только после импорта, сброса или пропуска версии.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@Component
+public class FoodCategoryHierarchyCache {
+
+  private final FoodCategoryRepository foodCategoryRepository;
+  private final TransactionOperations readOnlyTransaction;
+  private final ReentrantLock loadLock = new ReentrantLock();
+  private final Object state = new Object();
+
+  private volatile FoodCategoryHierarchy current;
+  private volatile long latestVersion;
+  private long resets;
+
+  @Autowired
+  public FoodCategoryHierarchyCache(FoodCategoryRepository foodCategoryRepository,
+      PlatformTransactionManager transactionManager) {
+    this(foodCategoryRepository, readOnly(transactionManager));
+  }
+
+  FoodCategoryHierarchyCache(FoodCategoryRepository foodCategoryRepository,
+      TransactionOperations readOnlyTransaction) {
+    this.foodCategoryRepository = foodCategoryRepository;
+    this.readOnlyTransaction = readOnlyTransaction;
+  }
+
+  /**
+   * Возвращает снимок всей иерархии категорий не старше последней известной узлу версии
+   * каталога. Одновременные запросы ждут одной загрузки.
+   *
+   * @return снимок иерархии
+   */
+  public FoodCategoryHierarchy getHierarchy() {
+    long required = latestVersion;
+    FoodCategoryHierarchy snapshot = current;
+    if (snapshot != null && snapshot.catalogVersion() >= required) {
+      return snapshot;
+    }
+
+    loadLock.lock();
+    try {
+      snapshot = current;
+      if (snapshot != null && snapshot.catalogVersion() >= required) {
+        return snapshot;
+      }
+      long epoch;
+      synchronized (state) {
+        epoch = resets;
+      }
+      // Загрузка начинается после того, как версия required стала известна, и поэтому ее видит
+      FoodCategoryHierarchy loaded = readOnlyTransaction.execute(status -> load());
+      synchronized (state) {
+        latestVersion = Math.max(latestVersion, loaded.catalogVersion());
+        if (epoch == resets
+            && (current == null || current.catalogVersion() < loaded.catalogVersion())) {
+          current = loaded;
+        }
+      }
+      return loaded;
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  /**
+   * Учитывает изменение каталога, зафиксированное в указанной версии. Если снимок имеет
+   * предыдущую версию, изменение переносится в него; иначе снимок будет загружен заново при
+   * следующем запросе.
+   *
+   * @param event   событие изменения категорий
+   * @param version версия каталога, в которой зафиксировано изменение
+   */
+  public void apply(FoodCategoryChangedEvent event, long version) {
+    if (event.type() == FoodCategoryChangedEvent.Type.RESET) {
+      reset();
+      return;
+    }
+    synchronized (state) {
+      latestVersion = Math.max(latestVersion, version);
+      FoodCategoryHierarchy snapshot = current;
+      if (snapshot == null || snapshot.catalogVersion() != version - 1) {
+        return;
+      }
+      switch (event.type()) {
+        case CREATED, UPDATED -> current = snapshot.with(event.category(), version);
+        case DELETED -> current = snapshot.without(event.affectedIds(), version);
+        default -> {
+        }
+      }
+    }
+  }
+
+  /**
+   * Сбрасывает снимок, когда версия изменения неизвестна (например, уведомления с других узлов
+   * были пропущены). Загрузки, начатые до сброса, свой результат не сохраняют.
+   */
+  public void reset() {
+    synchronized (state) {
+      current = null;
+      resets++;
+    }
+  }
+
+  /**
+   * Запоминает версию каталога, полученную изменением в транзакции записи, и учитывает изменение
+   * сразу после фиксации, раньше слушателей фазы AFTER_COMMIT. Выполняется после
+   * {@link FoodCategoryChangeLog}, который увеличивает версию и блокирует ее строку до фиксации.
+   *
+   * @param event событие изменения категорий
+   */
+  @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+  public void onChanged(FoodCategoryChangedEvent event) {
+    long version = foodCategoryRepository.catalogVersion();
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        apply(event, version);
+      }
+
+      @Override
+      public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+      }
+    });
+  }
+
+  private FoodCategoryHierarchy load() {
+    FoodCategoryHierarchy.Builder builder = FoodCategoryHierarchy.builder(0);
+    try (Stream<HierarchyRow> rows = foodCategoryRepository.streamHierarchy()) {
+      rows.forEach(row -> {
+        builder.catalogVersion(row.getCatalogVersion());
+        if (row.getId() != null) {
+          builder.add(row.getId(), row.getParentId(), row.getName(), row.getDescription(),
+              Boolean.TRUE.equals(row.getIsFinal()),
+              row.getCreatedAt() == null ? null : row.getCreatedAt().atZone(ZoneOffset.UTC));
+        }
+      });
+    }
+    FoodCategoryHierarchy hierarchy = builder.build();
+    log.debug("Loaded category hierarchy of catalog version {}: {} categories",
+        hierarchy.catalogVersion(), hierarchy.size());
+    return hierarchy;
+  }
+
+  private static TransactionOperations readOnly(PlatformTransactionManager transactionManager) {
+    TransactionTemplate template = new TransactionTemplate(transactionManager);
+    template.setReadOnly(true);
+    return template;
+  }
+}
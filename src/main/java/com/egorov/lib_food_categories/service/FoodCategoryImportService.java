@@ -0,0 +1,26 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryNotFoundException;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryImportItem;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryImportResponse;
+import java.util.List;
+
+/**
+ * Интерфейс сервиса пакетного импорта категорий продуктов.
+ *
+ * @author i.egorov
+ */
+public interface FoodCategoryImportService {
+
+  /**
+   * Создает иерархию категорий одной транзакцией.
+   *
+   * @param items импортируемые категории
+   * @return количество созданных категорий и их идентификаторы по клиентским ключам
+   * @throws FoodCategoryBadRequestException если ключи повторяются, ссылаются на неизвестные ключи
+   *                                         или образуют цикл
+   * @throws FoodCategoryNotFoundException   если существующая родительская категория не найдена
+   */
+  FoodCategoryImportResponse importCategories(List<FoodCategoryImportItem> items);
+}
@@ -0,0 +1,201 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryNotFoundException;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryImportItem;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryImportResponse;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.model.FoodCategoryClosure;
+import com.egorov.lib_food_categories.repository.FoodCategoryClosureRepository;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Сервис пакетного импорта категорий продуктов. Проверяет ссылки на родителей в памяти, создает
+ * категории в порядке "родители раньше потомков" и записывает их пачками: идентификаторы выдаются
+ * пулом из последовательности, поэтому Hibernate может группировать INSERT в JDBC-батчи.
+ *
+ * @author i.egorov
+ */
+@Service
+public class FoodCategoryImportServiceImpl implements FoodCategoryImportService {
+
+  /**
+   * Максимальное количество родителей в одном запросе к таблице замыканий: число параметров
+   * запроса в PostgreSQL ограничено 32 767.
+   */
+  static final int PARENT_CHUNK_SIZE = 1000;
+
+  private final EntityManager entityManager;
+  private final FoodCategoryClosureRepository closureRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final int batchSize;
+
+  public FoodCategoryImportServiceImpl(EntityManager entityManager,
+      FoodCategoryClosureRepository closureRepository,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+    this.entityManager = entityManager;
+    this.closureRepository = closureRepository;
+    this.eventPublisher = eventPublisher;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Создает иерархию категорий одной транзакцией. Вместе с категориями записываются строки
+   * таблицы замыканий, вычисленные в памяти. По завершении публикуется одно событие об импорте.
+   *
+   * @param items импортируемые категории
+   * @return количество созданных категорий и их идентификаторы по клиентским ключам
+   * @throws FoodCategoryBadRequestException если ключи повторяются, ссылаются на неизвестные ключи
+   *                                         или образуют цикл
+   * @throws FoodCategoryNotFoundException   если существующая родительская категория не найдена
+   * @author i.egorov
+   */
+  @Override
+  @Transactional
+  public FoodCategoryImportResponse importCategories(List<FoodCategoryImportItem> items) {
+    List<FoodCategoryImportItem> ordered = sortParentsFirst(items);
+    Map<Long, List<FoodCategoryClosure>> externalAncestors = loadExternalAncestors(items);
+
+    Map<String, Long> ids = new LinkedHashMap<>(items.size() * 4 / 3 + 1);
+    Map<String, List<FoodCategoryClosure>> ancestorsByKey = new HashMap<>();
+    int pending = 0;
+
+    for (FoodCategoryImportItem item : ordered) {
+      List<FoodCategoryClosure> parentAncestors = item.parentKey() != null
+          ? ancestorsByKey.get(item.parentKey())
+          : item.parentId() != null ? externalAncestors.get(item.parentId()) : List.of();
+
+      FoodCategory category = FoodCategory.builder()
+          .parentId(item.parentKey() != null ? ids.get(item.parentKey()) : item.parentId())
+          .name(item.name())
+          .description(item.description())
+          .isFinal(item.isFinal())
+          .build();
+      entityManager.persist(category);
+      ids.put(item.key(), category.getId());
+
+      List<FoodCategoryClosure> ancestors = new ArrayList<>(parentAncestors.size() + 1);
+      ancestors.add(new FoodCategoryClosure(category.getId(), category.getId(), 0));
+      for (FoodCategoryClosure link : parentAncestors) {
+        ancestors.add(new FoodCategoryClosure(link.getAncestorId(), category.getId(),
+            link.getDepth() + 1));
+      }
+      ancestorsByKey.put(item.key(), ancestors);
+
+      for (FoodCategoryClosure link : ancestors) {
+        entityManager.persist(link);
+      }
+      pending += ancestors.size() + 1;
+      if (pending >= batchSize) {
+        flushAndClear();
+        pending = 0;
+      }
+    }
+    flushAndClear();
+
+    eventPublisher.publishEvent(FoodCategoryChangedEvent.imported(Set.copyOf(ids.values())));
+    return new FoodCategoryImportResponse(ids.size(), ids);
+  }
+
+  /**
+   * Проверяет ключи импорта и упорядочивает элементы так, чтобы родитель всегда шел раньше своих
+   * потомков.
+   *
+   * @param items импортируемые категории
+   * @return элементы в порядке обхода в ширину от корней импорта
+   * @throws FoodCategoryBadRequestException если ключи повторяются, ссылаются на неизвестные ключи
+   *                                         или образуют цикл
+   */
+  private List<FoodCategoryImportItem> sortParentsFirst(List<FoodCategoryImportItem> items) {
+    Map<String, List<FoodCategoryImportItem>> childrenByKey = new HashMap<>();
+    Deque<FoodCategoryImportItem> queue = new ArrayDeque<>();
+    Set<String> keys = items.stream()
+        .map(FoodCategoryImportItem::key)
+        .collect(Collectors.toSet());
+    if (keys.size() != items.size()) {
+      throw new FoodCategoryBadRequestException("Import keys must be unique");
+    }
+
+    for (FoodCategoryImportItem item : items) {
+      if (item.parentKey() == null) {
+        queue.add(item);
+        continue;
+      }
+      if (item.parentId() != null) {
+        throw new FoodCategoryBadRequestException(
+            "Import item " + item.key() + " must reference either parentKey or parentId");
+      }
+      if (!keys.contains(item.parentKey())) {
+        throw new FoodCategoryBadRequestException(
+            "Import item " + item.key() + " references unknown parentKey " + item.parentKey());
+      }
+      childrenByKey.computeIfAbsent(item.parentKey(), key -> new ArrayList<>()).add(item);
+    }
+
+    List<FoodCategoryImportItem> ordered = new ArrayList<>(items.size());
+    while (!queue.isEmpty()) {
+      FoodCategoryImportItem item = queue.poll();
+      ordered.add(item);
+      queue.addAll(childrenByKey.getOrDefault(item.key(), List.of()));
+    }
+    if (ordered.size() != items.size()) {
+      throw new FoodCategoryBadRequestException("Import items contain a parentKey cycle");
+    }
+    return ordered;
+  }
+
+  /**
+   * Загружает строки таблицы замыканий для существующих родителей импорта, по запросу на каждые
+   * {@value #PARENT_CHUNK_SIZE} родителей.
+   *
+   * @param items импортируемые категории
+   * @return предки (включая самого родителя) по идентификатору родителя
+   * @throws FoodCategoryNotFoundException если существующая родительская категория не найдена
+   */
+  private Map<Long, List<FoodCategoryClosure>> loadExternalAncestors(
+      List<FoodCategoryImportItem> items) {
+    List<Long> parentIds = items.stream()
+        .map(FoodCategoryImportItem::parentId)
+        .filter(Objects::nonNull)
+        .distinct()
+        .toList();
+    if (parentIds.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<Long, List<FoodCategoryClosure>> ancestors = new HashMap<>();
+    for (int from = 0; from < parentIds.size(); from += PARENT_CHUNK_SIZE) {
+      List<Long> chunk =
+          parentIds.subList(from, Math.min(from + PARENT_CHUNK_SIZE, parentIds.size()));
+      closureRepository.findAllByDescendantIdIn(chunk).forEach(closure -> ancestors
+          .computeIfAbsent(closure.getDescendantId(), key -> new ArrayList<>())
+          .add(closure));
+    }
+    for (Long parentId : parentIds) {
+      if (!ancestors.containsKey(parentId)) {
+        throw new FoodCategoryNotFoundException(parentId);
+      }
+    }
+    return ancestors;
+  }
+
+  private void flushAndClear() {
+    entityManager.flush();
+    entityManager.clear();
+  }
+}
@@ -0,0 +1,40 @@
+package com.egorov.lib_food_categories.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Метрики построения производных структур каталога. Метрики кэшей, пула соединений и вызовов
+ * репозиториев публикуются Spring Boot Actuator автоматически.
+ *
+ * @author i.egorov
+ */
+@Component
+public class FoodCategoryMetrics {
+
+  private final Timer treeBuild;
+  private final DistributionSummary treeNodes;
+
+  public FoodCategoryMetrics(MeterRegistry registry) {
+    this.treeBuild = Timer.builder("food.categories.tree.build")
+        .description("Time to load all categories and assemble the category tree")
+        .register(registry);
+    this.treeNodes = DistributionSummary.builder("food.categories.tree.nodes")
+        .description("Number of categories in an assembled tree")
+        .register(registry);
+  }
+
+  /**
+   * Записывает длительность и размер построения дерева категорий.
+   *
+   * @param nanos длительность построения в наносекундах
+   * @param nodes количество категорий в дереве
+   */
+  public void recordTreeBuild(long nanos, int nodes) {
+    treeBuild.record(nanos, TimeUnit.NANOSECONDS);
+    treeNodes.record(nodes);
+  }
+}
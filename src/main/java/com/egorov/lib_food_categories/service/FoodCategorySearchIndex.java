@@ -0,0 +1,157 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.egorov.lib_food_categories.util.FoodCategoryNameIndex;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Поиск категорий по префиксу названия. Индекс загружается целиком при старте приложения и далее
+ * обновляется по событиям зафиксированных изменений, без обращений к базе данных при поиске.
+ * Полная перезагрузка строит новый индекс рядом с текущим, так что поиск не видит пустого или
+ * частично заполненного индекса.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FoodCategorySearchIndex {
+
+  /**
+   * Максимальное количество результатов поиска.
+   */
+  public static final int MAX_LIMIT = 100;
+
+  /**
+   * Максимальное количество идентификаторов в одном запросе при дозагрузке импортированных
+   * категорий.
+   */
+  static final int LOAD_CHUNK_SIZE = 1000;
+
+  private final FoodCategoryRepository foodCategoryRepository;
+  private final ReentrantLock rebuildLock = new ReentrantLock();
+  private final Object updateLock = new Object();
+  private volatile FoodCategoryNameIndex index = new FoodCategoryNameIndex();
+  private List<Consumer<FoodCategoryNameIndex>> pending;
+
+  /**
+   * Загружает названия всех категорий в новый индекс и подменяет им текущий.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void load() {
+    rebuild(fresh -> {
+      try (Stream<FoodCategory> categories = foodCategoryRepository.streamAll()) {
+        categories.forEach(category -> fresh.put(category.getId(), category.getName()));
+      }
+    });
+    log.info("Food category search index loaded with {} names", index.size());
+  }
+
+  /**
+   * Обновляет индекс после фиксации изменения.
+   *
+   * @param event событие изменения категорий
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(FoodCategoryChangedEvent event) {
+    switch (event.type()) {
+      case CREATED, UPDATED -> {
+        String name = event.category().getName();
+        update(target -> target.put(event.id(), name));
+      }
+      case DELETED -> update(target -> event.affectedIds().forEach(target::remove));
+      case IMPORTED -> {
+        List<FoodCategory> imported = findAllById(event.affectedIds());
+        update(target -> imported.forEach(category ->
+            target.put(category.getId(), category.getName())));
+      }
+      case RESET -> rebuild(fresh -> foodCategoryRepository.findAll()
+          .forEach(category -> fresh.put(category.getId(), category.getName())));
+    }
+  }
+
+  /**
+   * Заполняет новый индекс в стороне от текущего, который продолжает обслуживать поиск, и затем
+   * подменяет его. Изменения, зафиксированные во время заполнения, применяются к обоим индексам,
+   * поэтому не теряются при подмене.
+   *
+   * @param fill заполнение нового индекса
+   */
+  private void rebuild(Consumer<FoodCategoryNameIndex> fill) {
+    rebuildLock.lock();
+    try {
+      synchronized (updateLock) {
+        pending = new ArrayList<>();
+      }
+      FoodCategoryNameIndex fresh = new FoodCategoryNameIndex();
+      try {
+        fill.accept(fresh);
+      } catch (RuntimeException e) {
+        synchronized (updateLock) {
+          pending = null;
+        }
+        throw e;
+      }
+      synchronized (updateLock) {
+        pending.forEach(change -> change.accept(fresh));
+        pending = null;
+        index = fresh;
+      }
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  private void update(Consumer<FoodCategoryNameIndex> change) {
+    synchronized (updateLock) {
+      change.accept(index);
+      if (pending != null) {
+        pending.add(change);
+      }
+    }
+  }
+
+  private List<FoodCategory> findAllById(Collection<Long> ids) {
+    List<Long> remaining = List.copyOf(ids);
+    List<FoodCategory> categories = new ArrayList<>(remaining.size());
+    for (int from = 0; from < remaining.size(); from += LOAD_CHUNK_SIZE) {
+      categories.addAll(foodCategoryRepository.findAllById(
+          remaining.subList(from, Math.min(from + LOAD_CHUNK_SIZE, remaining.size()))));
+    }
+    return categories;
+  }
+
+  /**
+   * Ищет категории, название которых начинается с префикса.
+   *
+   * @param prefix префикс названия
+   * @param limit  максимальное количество результатов (от 1 до {@value #MAX_LIMIT})
+   * @return найденные категории в алфавитном порядке
+   * @throws FoodCategoryBadRequestException если префикс пуст или limit вне допустимого диапазона
+   */
+  public List<FoodCategoryMinimalDto> search(String prefix, int limit) {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new FoodCategoryBadRequestException("limit must be between 1 and " + MAX_LIMIT);
+    }
+    if (FoodCategoryNameIndex.normalize(prefix).isEmpty()) {
+      throw new FoodCategoryBadRequestException("prefix must not be blank");
+    }
+    return index.search(prefix, limit);
+  }
+}
@@ -1,12 +1,24 @@
 package com.egorov.lib_food_categories.service;
 
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryHasSubcategoriesException;
 import com.egorov.lib_food_categories.dto.exception.FoodCategoryNotFoundException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryVersionConflictException;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryPatchRequest;
 import com.egorov.lib_food_categories.dto.request.FoodCategoryRequest;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryAncestorsResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryContainmentResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
 import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
 import com.egorov.lib_food_categories.model.FoodCategory;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -35,6 +47,15 @@ public interface FoodCategoryService {
    */
   FoodCategory findById(Long id);
 
+  /**
+   * Находит категории по списку идентификаторов. Отсутствующие категории пропускаются.
+   *
+   * @param ids идентификаторы категорий (не более 1000)
+   * @return найденные категории по идентификатору в порядке первого упоминания в запросе
+   * @throws FoodCategoryBadRequestException если список пуст или слишком велик
+   */
+  Map<Long, FoodCategory> findAllByIds(List<Long> ids);
+
   /**
    * Возвращает страницу со всеми категориями продуктов.
    *
@@ -43,6 +64,48 @@ public interface FoodCategoryService {
    */
   Page<FoodCategory> findAll(Pageable pageable);
 
+  /**
+   * Возвращает все категории в минимальном виде (идентификатор, родитель и название), упорядоченные
+   * по идентификатору. Из базы данных читаются только эти три столбца.
+   *
+   * @return список категорий
+   */
+  List<FoodCategoryMinimalDto> findAllMinimal();
+
+  /**
+   * Возвращает окно категорий после указанной позиции (курсорная пагинация).
+   *
+   * @param position позиция, после которой начинается окно
+   * @param sort     параметры сортировки
+   * @param size     размер окна
+   * @return окно категорий
+   * @throws FoodCategoryBadRequestException если размер окна вне допустимого диапазона
+   */
+  Window<FoodCategory> scroll(KeysetScrollPosition position, Sort sort, int size);
+
+  /**
+   * Возвращает окно прямых потомков категории после указанной позиции (курсорная пагинация).
+   * Подкатегории потомков не включаются, для каждого указывается количество его прямых потомков.
+   *
+   * @param parentId идентификатор родительской категории
+   * @param position позиция, после которой начинается окно
+   * @param sort     параметры сортировки
+   * @param size     размер окна
+   * @return окно узлов дерева
+   * @throws FoodCategoryNotFoundException   если родительская категория не найдена
+   * @throws FoodCategoryBadRequestException если размер окна вне допустимого диапазона
+   */
+  Window<FoodCategoryTreeDto> scrollChildren(Long parentId, KeysetScrollPosition position,
+      Sort sort, int size);
+
+  /**
+   * Последовательно передает все категории потребителю, не накапливая их в памяти.
+   *
+   * @param consumer обработчик каждой категории
+   * @return количество переданных категорий
+   */
+  long exportAll(Consumer<FoodCategory> consumer);
+
   /**
    * Возвращает иерархическое дерево категорий.
    *
@@ -50,22 +113,82 @@ public interface FoodCategoryService {
    */
   List<FoodCategoryTreeDto> getCategoryTree();
 
+  /**
+   * Возвращает дерево категорий, ограниченное по глубине. Для категорий последнего уровня вместо
+   * подкатегорий указывается количество прямых потомков.
+   *
+   * @param maxDepth максимальная глубина относительно корневых категорий
+   * @return список корневых категорий с вложенными подкатегориями
+   * @throws FoodCategoryBadRequestException если глубина отрицательная
+   */
+  List<FoodCategoryTreeDto> getCategoryTree(int maxDepth);
+
+  /**
+   * Возвращает ветку иерархии с корнем в указанной категории.
+   *
+   * @param id       идентификатор корня ветки
+   * @param maxDepth максимальная глубина ветки относительно корня; null - без ограничения
+   * @return дерево категорий с корнем в указанной категории
+   * @throws FoodCategoryNotFoundException   если категория не найдена
+   * @throws FoodCategoryBadRequestException если глубина отрицательная
+   */
+  FoodCategoryTreeDto getSubtree(Long id, Integer maxDepth);
+
+  /**
+   * Возвращает пути от корня до каждой из указанных категорий.
+   *
+   * @param ids идентификаторы категорий
+   * @return пути найденных категорий в порядке запроса и список ненайденных идентификаторов
+   */
+  FoodCategoryAncestorsResponse findPaths(List<Long> ids);
+
+  /**
+   * Для каждой категории определяет, в ветки каких из указанных категорий она входит (категория
+   * считается входящей в собственную ветку).
+   *
+   * @param ids         идентификаторы проверяемых категорий
+   * @param ancestorIds идентификаторы корней веток
+   * @return результаты для найденных категорий в порядке запроса и ненайденные идентификаторы
+   */
+  FoodCategoryContainmentResponse findContainment(List<Long> ids, List<Long> ancestorIds);
+
   /**
    * Обновляет данные категории.
    *
-   * @param id      идентификатор категории
-   * @param request новые данные категории
+   * @param id              идентификатор категории
+   * @param request         новые данные категории
+   * @param expectedVersion ожидаемая версия категории или null, если версия не проверяется
    * @return обновленная категория
-   * @throws FoodCategoryNotFoundException если категория или родительская категория не найдены
+   * @throws FoodCategoryNotFoundException        если категория или родительская категория не
+   *                                              найдены
+   * @throws FoodCategoryVersionConflictException если версия категории не совпадает с ожидаемой
    */
-  FoodCategory update(Long id, FoodCategoryRequest request);
+  FoodCategory update(Long id, FoodCategoryRequest request, Long expectedVersion);
 
   /**
-   * Удаляет категорию по идентификатору.
+   * Частично изменяет категорию по правилам JSON Merge Patch: изменяются только переданные поля
+   * запроса, а описание и родитель, переданные как null, сбрасываются.
    *
-   * @param id идентификатор категории
-   * @throws FoodCategoryNotFoundException если категория не найдена
+   * @param id              идентификатор категории
+   * @param request         изменяемые поля категории
+   * @param expectedVersion ожидаемая версия категории или null, если версия не проверяется
+   * @return измененная категория
+   * @throws FoodCategoryNotFoundException        если категория или родительская категория не
+   *                                              найдены
+   * @throws FoodCategoryVersionConflictException если версия категории не совпадает с ожидаемой
+   */
+  FoodCategory patch(Long id, FoodCategoryPatchRequest request, Long expectedVersion);
+
+  /**
+   * Удаляет категорию по идентификатору. Категория с подкатегориями удаляется только вместе со
+   * всей веткой и только по явному запросу.
+   *
+   * @param id      идентификатор категории
+   * @param cascade true, если вместе с категорией нужно удалить всех ее потомков
+   * @throws FoodCategoryNotFoundException         если категория не найдена
+   * @throws FoodCategoryHasSubcategoriesException если у категории есть подкатегории, а cascade
+   *                                               не установлен
    */
   @Transactional
-  void delete(Long id);
+  void delete(Long id, boolean cascade);
 }
\ No newline at end of file
@@ -1,16 +1,45 @@
 package com.egorov.lib_food_categories.service;
 
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryHasSubcategoriesException;
 import com.egorov.lib_food_categories.dto.exception.FoodCategoryNotFoundException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryVersionConflictException;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryPatchRequest;
 import com.egorov.lib_food_categories.dto.request.FoodCategoryRequest;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryAncestorsResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryContainmentDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryContainmentResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryPathDto;
 import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
 import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryClosureRepository;
 import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.egorov.lib_food_categories.util.FoodCategoryHierarchy;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,10 +51,29 @@ import org.springframework.transaction.annotation.Transactional;
  */
 @Service
 @RequiredArgsConstructor
-@CacheConfig(cacheNames = {"foodCategories", "foodCategoriesTree"})
 public class FoodCategoryServiceImpl implements FoodCategoryService {
 
+  /**
+   * Через сколько выгруженных категорий очищается контекст персистентности при экспорте.
+   */
+  static final int EXPORT_CLEAR_INTERVAL = 500;
+
+  /**
+   * Максимальный размер окна при курсорной пагинации.
+   */
+  static final int MAX_WINDOW_SIZE = 1000;
+
+  /**
+   * Максимальное количество идентификаторов в пакетном запросе категорий.
+   */
+  static final int MAX_BATCH_SIZE = 1000;
+
   private final FoodCategoryRepository foodCategoryRepository;
+  private final FoodCategoryClosureRepository closureRepository;
+  private final FoodCategoryHierarchyCache hierarchyCache;
+  private final EntityManager entityManager;
+  private final ApplicationEventPublisher eventPublisher;
+  private final CacheManager cacheManager;
 
   /**
    * Создает новую категорию продуктов.
@@ -42,11 +90,14 @@ public class FoodCategoryServiceImpl implements FoodCategoryService {
       FoodCategory parent = findById(foodCategory.getParentId());
       foodCategory.setParentId(parent.getId());
     }
-    return foodCategoryRepository.save(foodCategory);
+    FoodCategory created = foodCategoryRepository.save(foodCategory);
+    closureRepository.insertNode(created.getId(), created.getParentId());
+    eventPublisher.publishEvent(FoodCategoryChangedEvent.created(created));
+    return created;
   }
 
   /**
-   * Находит категорию по идентификатору.
+   * Находит категорию по идентификатору. Результат кэшируется по идентификатору.
    *
    * @param id идентификатор категории
    * @return найденная категория
@@ -54,12 +105,61 @@ public class FoodCategoryServiceImpl implements FoodCategoryService {
    * @author i.egorov
    */
   @Override
+  @Cacheable(value = "foodCategories", key = "#id")
   @Transactional(readOnly = true)
   public FoodCategory findById(Long id) {
     return foodCategoryRepository.findById(id)
         .orElseThrow(() -> new FoodCategoryNotFoundException(id));
   }
 
+  /**
+   * Находит категории по списку идентификаторов. Сначала категории ищутся в кэше foodCategories,
+   * промахи загружаются одним запросом и добавляются в кэш.
+   *
+   * @param ids идентификаторы категорий (не более {@value #MAX_BATCH_SIZE})
+   * @return найденные категории по идентификатору в порядке первого упоминания в запросе
+   * @throws FoodCategoryBadRequestException если список пуст или слишком велик
+   * @author i.egorov
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Map<Long, FoodCategory> findAllByIds(List<Long> ids) {
+    if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+      throw new FoodCategoryBadRequestException("ids must contain from 1 to " + MAX_BATCH_SIZE
+          + " elements");
+    }
+
+    Cache cache = cacheManager.getCache("foodCategories");
+    Map<Long, FoodCategory> found = new HashMap<>(ids.size() * 4 / 3 + 1);
+    Set<Long> misses = new LinkedHashSet<>();
+    for (Long id : ids) {
+      FoodCategory cached = cache != null ? cache.get(id, FoodCategory.class) : null;
+      if (cached != null) {
+        found.put(id, cached);
+      } else {
+        misses.add(id);
+      }
+    }
+
+    if (!misses.isEmpty()) {
+      for (FoodCategory category : foodCategoryRepository.findAllById(misses)) {
+        found.put(category.getId(), category);
+        if (cache != null) {
+          cache.putIfAbsent(category.getId(), category);
+        }
+      }
+    }
+
+    Map<Long, FoodCategory> ordered = new LinkedHashMap<>(found.size() * 4 / 3 + 1);
+    for (Long id : ids) {
+      FoodCategory category = found.get(id);
+      if (category != null) {
+        ordered.putIfAbsent(id, category);
+      }
+    }
+    return ordered;
+  }
+
   /**
    * Возвращает страницу со всеми категориями продуктов.
    *
@@ -74,83 +174,369 @@ public class FoodCategoryServiceImpl implements FoodCategoryService {
   }
 
   /**
-   * Возвращает иерархическое дерево категорий.
+   * Возвращает все категории в минимальном виде. Запрос строит DTO конструктором и не загружает
+   * сущности в контекст персистентности.
    *
-   * @return список корневых категорий с вложенными подкатегориями
+   * @return список категорий, упорядоченный по идентификатору
+   * @author i.egorov
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public List<FoodCategoryMinimalDto> findAllMinimal() {
+    return foodCategoryRepository.findAllMinimal();
+  }
+
+  /**
+   * Возвращает окно категорий после указанной позиции. Запрос использует условие по ключам
+   * сортировки вместо OFFSET и не выполняет подсчет общего количества строк, поэтому стоимость не
+   * зависит от номера окна.
+   *
+   * @param position позиция, после которой начинается окно
+   * @param sort     параметры сортировки
+   * @param size     размер окна
+   * @return окно категорий
+   * @throws FoodCategoryBadRequestException если размер окна вне допустимого диапазона
+   * @author i.egorov
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Window<FoodCategory> scroll(KeysetScrollPosition position, Sort sort, int size) {
+    if (size < 1 || size > MAX_WINDOW_SIZE) {
+      throw new FoodCategoryBadRequestException(
+          "size must be between 1 and " + MAX_WINDOW_SIZE + ": " + size);
+    }
+    return foodCategoryRepository.findBy(position, sort, Limit.of(size));
+  }
+
+  /**
+   * Возвращает окно прямых потомков категории. Окно выбирается по ключам сортировки без OFFSET,
+   * а количество потомков для всех категорий окна подсчитывается одним агрегирующим запросом,
+   * без загрузки самих потомков. Существование родителя проверяется только для пустого окна.
+   *
+   * @param parentId идентификатор родительской категории
+   * @param position позиция, после которой начинается окно
+   * @param sort     параметры сортировки
+   * @param size     размер окна
+   * @return окно узлов дерева
+   * @throws FoodCategoryNotFoundException   если родительская категория не найдена
+   * @throws FoodCategoryBadRequestException если размер окна вне допустимого диапазона
+   * @author i.egorov
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Window<FoodCategoryTreeDto> scrollChildren(Long parentId, KeysetScrollPosition position,
+      Sort sort, int size) {
+    if (size < 1 || size > MAX_WINDOW_SIZE) {
+      throw new FoodCategoryBadRequestException(
+          "size must be between 1 and " + MAX_WINDOW_SIZE + ": " + size);
+    }
+    Window<FoodCategory> window =
+        foodCategoryRepository.findAllByParentId(parentId, position, sort, Limit.of(size));
+    if (window.isEmpty() && !foodCategoryRepository.existsById(parentId)) {
+      throw new FoodCategoryNotFoundException(parentId);
+    }
+
+    Map<Long, Integer> childCounts = new HashMap<>();
+    if (!window.isEmpty()) {
+      List<Long> ids = window.stream().map(FoodCategory::getId).toList();
+      for (FoodCategoryRepository.ChildCount count : foodCategoryRepository.countChildren(ids)) {
+        childCounts.put(count.getParentId(), (int) count.getChildCount());
+      }
+    }
+    return window.map(category -> FoodCategoryTreeDto.builder()
+        .id(category.getId())
+        .name(category.getName())
+        .description(category.getDescription())
+        .isFinal(Boolean.TRUE.equals(category.getIsFinal()))
+        .subCategories(List.of())
+        .createdAt(category.getCreatedAt())
+        .childCount(childCounts.getOrDefault(category.getId(), 0))
+        .build());
+  }
+
+  /**
+   * Последовательно передает все категории потребителю. Категории читаются курсором, а контекст
+   * персистентности периодически очищается, поэтому потребление памяти не зависит от размера
+   * таблицы.
+   *
+   * @param consumer обработчик каждой категории
+   * @return количество переданных категорий
    * @author i.egorov
    */
   @Override
   @Transactional(readOnly = true)
+  public long exportAll(Consumer<FoodCategory> consumer) {
+    long exported = 0;
+    try (Stream<FoodCategory> categories = foodCategoryRepository.streamAll()) {
+      Iterator<FoodCategory> iterator = categories.iterator();
+      while (iterator.hasNext()) {
+        consumer.accept(iterator.next());
+        if (++exported % EXPORT_CLEAR_INTERVAL == 0) {
+          entityManager.clear();
+        }
+      }
+    }
+    return exported;
+  }
+
+  /**
+   * Возвращает иерархическое дерево категорий. Дерево собирается по кэшированному снимку
+   * иерархии, который загружается одним потоковым запросом. Само дерево не кэшируется: снимок уже
+   * хранит каталог в компактном виде, а готовый ответ держит {@link FoodCategoryTreeRenderer}.
+   *
+   * @return список корневых категорий с вложенными подкатегориями
+   * @author i.egorov
+   */
+  @Override
   public List<FoodCategoryTreeDto> getCategoryTree() {
-    List<FoodCategory> rootCategories = foodCategoryRepository.findByParentIdIsNull();
-    return rootCategories.stream()
-        .map(this::convertToTreeDto)
-        .collect(Collectors.toList());
+    return hierarchyCache.getHierarchy().forest();
   }
 
   /**
-   * Обновляет данные категории.
+   * Возвращает дерево категорий, ограниченное по глубине. Дерево собирается по кэшированному
+   * снимку иерархии; количество потомков у категорий последнего уровня берется из снимка, поэтому
+   * работа и размер ответа зависят только от числа выводимых категорий.
    *
-   * @param id      идентификатор категории
-   * @param request новые данные категории
+   * @param maxDepth максимальная глубина относительно корневых категорий
+   * @return список корневых категорий с вложенными подкатегориями
+   * @throws FoodCategoryBadRequestException если глубина отрицательная
+   * @author i.egorov
+   */
+  @Override
+  public List<FoodCategoryTreeDto> getCategoryTree(int maxDepth) {
+    if (maxDepth < 0) {
+      throw new FoodCategoryBadRequestException("depth must not be negative: " + maxDepth);
+    }
+    return hierarchyCache.getHierarchy().forest(maxDepth);
+  }
+
+  /**
+   * Возвращает ветку иерархии с корнем в указанной категории. Ветка собирается по кэшированному
+   * снимку иерархии без обращения к базе данных (кроме загрузки снимка при пустом кэше).
+   *
+   * @param id       идентификатор корня ветки
+   * @param maxDepth максимальная глубина ветки относительно корня; null - без ограничения
+   * @return дерево категорий с корнем в указанной категории
+   * @throws FoodCategoryNotFoundException   если категория не найдена
+   * @throws FoodCategoryBadRequestException если глубина отрицательная
+   * @author i.egorov
+   */
+  @Override
+  public FoodCategoryTreeDto getSubtree(Long id, Integer maxDepth) {
+    if (maxDepth != null && maxDepth < 0) {
+      throw new FoodCategoryBadRequestException("maxDepth must not be negative: " + maxDepth);
+    }
+    int depth = maxDepth == null ? Integer.MAX_VALUE : maxDepth;
+
+    return hierarchyCache.getHierarchy().subtree(id, depth)
+        .orElseThrow(() -> new FoodCategoryNotFoundException(id));
+  }
+
+  /**
+   * Возвращает пути от корня до каждой из указанных категорий. Пути строятся по кэшированному
+   * снимку иерархии, поэтому запрос обходится без обращений к базе данных (кроме загрузки снимка
+   * при пустом кэше).
+   *
+   * @param ids идентификаторы категорий
+   * @return пути найденных категорий в порядке запроса и список ненайденных идентификаторов
+   * @author i.egorov
+   */
+  @Override
+  public FoodCategoryAncestorsResponse findPaths(List<Long> ids) {
+    FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+    List<FoodCategoryPathDto> paths = new ArrayList<>(ids.size());
+    List<Long> missingIds = new ArrayList<>();
+
+    for (Long id : ids) {
+      hierarchy.pathTo(id).ifPresentOrElse(
+          path -> paths.add(new FoodCategoryPathDto(id, path)),
+          () -> missingIds.add(id));
+    }
+    return new FoodCategoryAncestorsResponse(paths, missingIds);
+  }
+
+  /**
+   * Для каждой категории определяет, в ветки каких из указанных категорий она входит. Проверка
+   * выполняется по интервалам номеров кэшированного снимка иерархии: две операции сравнения на
+   * пару без обхода родителей и обращений к базе данных. Снимок сбрасывается после каждого
+   * изменения каталога (в том числе переноса ветки), поэтому нумерация соответствует текущей
+   * иерархии.
+   *
+   * @param ids         идентификаторы проверяемых категорий
+   * @param ancestorIds идентификаторы корней веток
+   * @return результаты для найденных категорий в порядке запроса и ненайденные идентификаторы
+   * @author i.egorov
+   */
+  @Override
+  public FoodCategoryContainmentResponse findContainment(List<Long> ids, List<Long> ancestorIds) {
+    FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+    Set<Long> missingIds = new LinkedHashSet<>();
+    List<Long> knownAncestorIds = new ArrayList<>(ancestorIds.size());
+    for (Long ancestorId : ancestorIds) {
+      if (hierarchy.contains(ancestorId)) {
+        knownAncestorIds.add(ancestorId);
+      } else {
+        missingIds.add(ancestorId);
+      }
+    }
+
+    List<FoodCategoryContainmentDto> results = new ArrayList<>(ids.size());
+    for (Long id : ids) {
+      if (!hierarchy.contains(id)) {
+        missingIds.add(id);
+        continue;
+      }
+      List<Long> containing = new ArrayList<>();
+      for (Long ancestorId : knownAncestorIds) {
+        if (hierarchy.isWithin(id, ancestorId)) {
+          containing.add(ancestorId);
+        }
+      }
+      results.add(new FoodCategoryContainmentDto(id, containing));
+    }
+    return new FoodCategoryContainmentResponse(results, List.copyOf(missingIds));
+  }
+
+  /**
+   * Обновляет данные категории. При смене родителя вся ветка категории переносится в таблице
+   * замыканий в той же транзакции. Изменение, одновременно зафиксированное другим запросом,
+   * обнаруживается по версии записи при сохранении.
+   *
+   * @param id              идентификатор категории
+   * @param request         новые данные категории
+   * @param expectedVersion ожидаемая версия категории или null, если версия не проверяется
    * @return обновленная категория
-   * @throws FoodCategoryNotFoundException если категория или родительская категория не найдены
+   * @throws FoodCategoryNotFoundException        если категория или родительская категория не
+   *                                              найдены
+   * @throws FoodCategoryVersionConflictException если версия категории не совпадает с ожидаемой
+   * @throws FoodCategoryBadRequestException      если новый родитель находится внутри ветки
+   *                                              категории
    * @author i.egorov
    */
   @Override
   @Transactional
-  public FoodCategory update(Long id, FoodCategoryRequest request) {
+  public FoodCategory update(Long id, FoodCategoryRequest request, Long expectedVersion) {
     FoodCategory existingCategory = findById(id);
+    if (expectedVersion != null && !expectedVersion.equals(existingCategory.getVersion())) {
+      throw new FoodCategoryVersionConflictException(id, expectedVersion);
+    }
+    Long previousParentId = existingCategory.getParentId();
 
     existingCategory.setName(request.name());
     existingCategory.setDescription(request.description());
     existingCategory.setIsFinal(request.isFinal());
+    existingCategory.setParentId(request.parentId());
 
-    if (request.parentId() != null) {
-      FoodCategory parent = findById(request.parentId());
-      existingCategory.setParentId(parent.getId());
-    } else {
-      existingCategory.setParentId(null);
+    if (!Objects.equals(previousParentId, existingCategory.getParentId())) {
+      moveSubtree(id, existingCategory.getParentId());
     }
 
-    return foodCategoryRepository.save(existingCategory);
+    FoodCategory updated = foodCategoryRepository.save(existingCategory);
+    eventPublisher.publishEvent(FoodCategoryChangedEvent.updated(updated, previousParentId));
+    return updated;
   }
 
   /**
-   * Удаляет категорию по идентификатору.
+   * Частично изменяет категорию одним условным UPDATE, который сам проверяет версию и возвращает
+   * прежнего родителя, поэтому категория перед изменением не загружается. Отсутствующие в запросе
+   * поля не изменяются, а переданные как null описание и родитель сбрасываются. Если запрос не
+   * изменил ни одной строки, отдельно проверяется, существует ли категория. Измененная категория
+   * читается после UPDATE для ответа и события об изменении.
    *
-   * @param id идентификатор категории
-   * @throws FoodCategoryNotFoundException если категория не найдена
+   * @param id              идентификатор категории
+   * @param request         изменяемые поля категории
+   * @param expectedVersion ожидаемая версия категории или null, если версия не проверяется
+   * @return измененная категория
+   * @throws FoodCategoryNotFoundException        если категория или родительская категория не
+   *                                              найдены
+   * @throws FoodCategoryVersionConflictException если версия категории не совпадает с ожидаемой
+   * @throws FoodCategoryBadRequestException      если новый родитель находится внутри ветки
+   *                                              категории
    * @author i.egorov
    */
   @Override
   @Transactional
-  public void delete(Long id) {
-    FoodCategory category = findById(id);
-    foodCategoryRepository.delete(category);
+  public FoodCategory patch(Long id, FoodCategoryPatchRequest request, Long expectedVersion) {
+    Optional<Long> parentId = request.getParentId();
+    List<Long> previousParent = foodCategoryRepository.patch(id, valueOf(request.getName()),
+        request.getDescription() != null, valueOf(request.getDescription()),
+        valueOf(request.getIsFinal()), parentId != null, valueOf(parentId), expectedVersion);
+    if (previousParent.isEmpty()) {
+      if (!foodCategoryRepository.existsById(id)) {
+        throw new FoodCategoryNotFoundException(id);
+      }
+      throw new FoodCategoryVersionConflictException(id, expectedVersion);
+    }
+
+    Long previousParentId = previousParent.get(0);
+    if (parentId != null && !Objects.equals(parentId.orElse(null), previousParentId)) {
+      moveSubtree(id, parentId.orElse(null));
+    }
+
+    FoodCategory patched = findById(id);
+    eventPublisher.publishEvent(FoodCategoryChangedEvent.updated(patched, previousParentId));
+    return patched;
   }
 
   /**
-   * Преобразует категорию в DTO для дерева категорий.
+   * Удаляет категорию. Категория с подкатегориями удаляется только при cascade: тогда ветка
+   * удаляется одним запросом по таблице замыканий, после чего из таблицы замыканий удаляются ее
+   * записи. В событие об удалении передаются идентификаторы строк, которые запрос удалил на самом
+   * деле.
    *
-   * @param category преобразуемая категория
-   * @return DTO категории с вложенными подкатегориями
+   * @param id      идентификатор категории
+   * @param cascade true, если вместе с категорией нужно удалить всех ее потомков
+   * @throws FoodCategoryNotFoundException         если категория не найдена
+   * @throws FoodCategoryHasSubcategoriesException если у категории есть подкатегории, а cascade
+   *                                               не установлен
    * @author i.egorov
    */
-  private FoodCategoryTreeDto convertToTreeDto(FoodCategory category) {
-    List<FoodCategoryTreeDto> children
-        = foodCategoryRepository.findAllByParentId(category.getId())
-        .stream()
-        .map(this::convertToTreeDto)
-        .collect(Collectors.toList());
+  @Override
+  @Transactional
+  public void delete(Long id, boolean cascade) {
+    FoodCategory category = findById(id);
+    if (!cascade && foodCategoryRepository.existsByParentId(id)) {
+      throw new FoodCategoryHasSubcategoriesException(id);
+    }
+    Set<Long> removedIds = Set.copyOf(foodCategoryRepository.deleteSubtree(id));
+    closureRepository.deleteSubtree(id);
+    eventPublisher.publishEvent(FoodCategoryChangedEvent.deleted(category, removedIds));
+  }
 
-    return new FoodCategoryTreeDto(
-        category.getId(),
-        category.getName(),
-        category.getDescription(),
-        category.getIsFinal(),
-        children,
-        category.getCreatedAt()
-    );
+  /**
+   * Переносит ветку категории под нового родителя в таблице замыканий. Внешнего ключа на
+   * parent_id нет, поэтому существование нового родителя проверяется явно.
+   *
+   * @param id       идентификатор корня переносимой ветки
+   * @param parentId идентификатор нового родителя или null, если ветка становится корневой
+   * @throws FoodCategoryNotFoundException   если новый родитель не найден
+   * @throws FoodCategoryBadRequestException если новый родитель находится внутри переносимой ветки
+   */
+  private void moveSubtree(Long id, Long parentId) {
+    if (parentId != null) {
+      if (!foodCategoryRepository.existsById(parentId)) {
+        throw new FoodCategoryNotFoundException(parentId);
+      }
+      if (id.equals(parentId)
+          || closureRepository.existsByAncestorIdAndDescendantId(id, parentId)) {
+        throw new FoodCategoryBadRequestException(
+            "Food category " + id + " cannot be moved under its own descendant " + parentId);
+      }
+    }
+
+    closureRepository.detachSubtree(id);
+    if (parentId != null && closureRepository.attachSubtree(id, parentId) == 0) {
+      throw new IllegalStateException("Food category " + parentId + " has no closure rows");
+    }
+  }
+
+  /**
+   * Возвращает значение поля частичного изменения.
+   *
+   * @param field поле запроса: null, если поле не передано, или пустое, если передано как null
+   * @return значение поля или null
+   */
+  private static <T> T valueOf(Optional<T> field) {
+    return field == null ? null : field.orElse(null);
   }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.util.FoodCategoryHierarchy;
+import com.egorov.lib_food_categories.util.FoodCategoryTokenIndex;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Источник индекса слов для классификации. Индекс строится по снимку иерархии
+ * ({@link FoodCategoryHierarchyCache}) без обращений к базе данных и пересобирается, когда снимок
+ * сменяется; одновременные запросы ждут одной сборки.
+ *
+ * @author i.egorov
+ */
+@Component
+@RequiredArgsConstructor
+public class FoodCategoryTokenIndexCache {
+
+  private final FoodCategoryHierarchyCache hierarchyCache;
+  private final ReentrantLock buildLock = new ReentrantLock();
+
+  private volatile Built current;
+
+  /**
+   * Возвращает индекс слов названий и описаний всех категорий актуального снимка иерархии.
+   *
+   * @return индекс слов
+   */
+  public FoodCategoryTokenIndex getTokenIndex() {
+    FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+    Built built = current;
+    if (built != null && built.hierarchy() == hierarchy) {
+      return built.index();
+    }
+
+    buildLock.lock();
+    try {
+      built = current;
+      if (built == null || built.hierarchy() != hierarchy) {
+        built = new Built(hierarchy, FoodCategoryTokenIndex.of(hierarchy));
+        current = built;
+      }
+      return built.index();
+    } finally {
+      buildLock.unlock();
+    }
+  }
+
+  /**
+   * Индекс слов и снимок, по которому он построен.
+   *
+   * @param hierarchy снимок иерархии
+   * @param index     индекс слов
+   */
+  private record Built(FoodCategoryHierarchy hierarchy, FoodCategoryTokenIndex index) {
+
+  }
+}
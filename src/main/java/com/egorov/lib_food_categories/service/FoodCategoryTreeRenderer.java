@@ -0,0 +1,200 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
+import com.egorov.lib_food_categories.util.FoodCategoryHierarchy;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Хранит дерево категорий в уже сериализованном виде: компактный JSON и его gzip-версию. Дерево
+ * собирается из снимка иерархии, байты пересобираются при первом запросе после каждого
+ * зафиксированного изменения (в том числе полученного с других узлов).
+ *
+ * <p>ETag дерева - версия каталога из базы данных, из которой собран снимок, поэтому все узлы
+ * выдают для одного состояния каталога один ETag, и он не меняется при перезапуске.
+ *
+ * <p>Пересборка выполняется одной задачей на все одновременные запросы. Пока она идет, запросы
+ * получают предыдущее дерево (stale-while-revalidate); ждать приходится только при самой первой
+ * сборке после запуска.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@Component
+public class FoodCategoryTreeRenderer {
+
+  private final FoodCategoryHierarchyCache hierarchyCache;
+  private final FoodCategoryMetrics metrics;
+  private final ObjectWriter writer;
+  private final Executor executor;
+
+  /**
+   * Количество изменений каталога, полученных узлом; по нему определяется, устарело ли дерево.
+   */
+  private final AtomicLong changes = new AtomicLong();
+  private final AtomicReference<CompletableFuture<RenderedTree>> refresh = new AtomicReference<>();
+  private volatile Rendition rendered;
+
+  public FoodCategoryTreeRenderer(FoodCategoryHierarchyCache hierarchyCache,
+      FoodCategoryMetrics metrics, ObjectMapper objectMapper,
+      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+      Executor executor) {
+    this.hierarchyCache = hierarchyCache;
+    this.metrics = metrics;
+    this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    this.executor = executor;
+  }
+
+  /**
+   * Возвращает сериализованное дерево. Если после сборки каталог изменился, запускает пересборку
+   * и до ее завершения возвращает предыдущее дерево.
+   *
+   * @return байты дерева и их ETag
+   */
+  public RenderedTree getTree() {
+    Rendition current = rendered;
+    if (current != null && current.changes() == changes.get()) {
+      return current.tree();
+    }
+
+    CompletableFuture<RenderedTree> pending = startRefresh();
+    if (current != null) {
+      return current.tree();
+    }
+    try {
+      return pending.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Запускает пересборку дерева, если она еще не идет.
+   *
+   * @return текущая пересборка
+   */
+  private CompletableFuture<RenderedTree> startRefresh() {
+    while (true) {
+      CompletableFuture<RenderedTree> inFlight = refresh.get();
+      if (inFlight != null) {
+        return inFlight;
+      }
+      CompletableFuture<RenderedTree> started = new CompletableFuture<>();
+      if (refresh.compareAndSet(null, started)) {
+        executor.execute(() -> rebuild(started));
+        return started;
+      }
+    }
+  }
+
+  /**
+   * Собирает дерево по текущему снимку иерархии. Слот пересборки освобождается до завершения
+   * future, чтобы изменение, пришедшее после сборки, запустило новую пересборку, а не получило
+   * готовый результат.
+   *
+   * @param future future текущей пересборки
+   */
+  private void rebuild(CompletableFuture<RenderedTree> future) {
+    RenderedTree tree;
+    try {
+      long seen = changes.get();
+      long start = System.nanoTime();
+      FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+      List<FoodCategoryTreeDto> forest = hierarchy.forest();
+      metrics.recordTreeBuild(System.nanoTime() - start, hierarchy.size());
+      tree = render(hierarchy.catalogVersion(), forest);
+      rendered = new Rendition(seen, tree);
+    } catch (RuntimeException e) {
+      log.warn("Cannot rebuild category tree", e);
+      refresh.compareAndSet(future, null);
+      future.completeExceptionally(e);
+      return;
+    }
+    refresh.compareAndSet(future, null);
+    future.complete(tree);
+  }
+
+  /**
+   * Отмечает дерево устаревшим после фиксации изменения. К этому моменту
+   * {@link FoodCategoryHierarchyCache} уже знает версию изменения, поэтому пересборка не получит
+   * снимок иерархии без него.
+   *
+   * @param event событие изменения категорий
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(FoodCategoryChangedEvent event) {
+    changes.incrementAndGet();
+  }
+
+  private RenderedTree render(long catalogVersion, List<FoodCategoryTreeDto> forest) {
+    try {
+      byte[] json = writer.writeValueAsBytes(forest);
+      log.debug("Rendered category tree of catalog version {}: {} bytes", catalogVersion,
+          json.length);
+      return new RenderedTree(catalogVersion, "\"tree-" + catalogVersion + "\"", json,
+          gzip(json));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot serialize category tree", e);
+    }
+  }
+
+  private static byte[] gzip(byte[] json) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Собранное дерево и количество изменений, известных узлу к началу сборки.
+   *
+   * @param changes количество изменений
+   * @param tree    сериализованное дерево
+   */
+  private record Rendition(long changes, RenderedTree tree) {
+
+  }
+
+  /**
+   * Сериализованное дерево категорий.
+   *
+   * @param version версия каталога в базе данных, из которой собрано дерево
+   * @param etag    сильный ETag несжатого представления
+   * @param json    компактный JSON
+   * @param gzip    JSON, сжатый gzip
+   */
+  public record RenderedTree(long version, String etag, byte[] json, byte[] gzip) {
+
+    /**
+     * ETag сжатого представления. Сильный ETag должен отличаться для разных кодировок содержимого.
+     *
+     * @return ETag gzip-представления
+     */
+    public String gzipEtag() {
+      return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.egorov.lib_food_categories.util;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Кодирует позицию курсорной пагинации в непрозрачный токен и обратно. Токен содержит значения
+ * ключей сортировки и идентификатор последней выданной категории, а также сортировку, для которой
+ * он был выдан.
+ *
+ * @author i.egorov
+ */
+@Component
+@RequiredArgsConstructor
+public class FoodCategoryCursorCodec {
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Кодирует позицию после последнего элемента окна.
+   *
+   * @param sort     сортировка, с которой было получено окно
+   * @param position позиция последнего элемента окна
+   * @return непрозрачный токен
+   */
+  public String encode(Sort sort, KeysetScrollPosition position) {
+    try {
+      return ENCODER.encodeToString(objectMapper.writer()
+          .without(SerializationFeature.INDENT_OUTPUT)
+          .writeValueAsBytes(new Cursor(sort.toString(), position.getKeys())));
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot encode cursor", e);
+    }
+  }
+
+  /**
+   * Восстанавливает позицию из токена.
+   *
+   * @param token непрозрачный токен
+   * @param sort  сортировка текущего запроса
+   * @return позиция, с которой продолжается выдача
+   * @throws FoodCategoryBadRequestException если токен поврежден или выдан для другой сортировки
+   */
+  public KeysetScrollPosition decode(String token, Sort sort) {
+    Cursor cursor;
+    try {
+      cursor = objectMapper.readValue(DECODER.decode(token), Cursor.class);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new FoodCategoryBadRequestException("Invalid cursor: " + token);
+    }
+    if (!sort.toString().equals(cursor.sort()) || cursor.keys() == null) {
+      throw new FoodCategoryBadRequestException("Cursor does not match sort: " + sort);
+    }
+
+    Map<String, Object> keys = new LinkedHashMap<>();
+    cursor.keys().forEach((property, value) -> keys.put(property, toPropertyType(property, value)));
+    return ScrollPosition.forward(keys);
+  }
+
+  private Object toPropertyType(String property, Object value) {
+    PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(FoodCategory.class, property);
+    if (descriptor == null) {
+      throw new FoodCategoryBadRequestException("Unknown cursor property: " + property);
+    }
+    try {
+      return objectMapper.convertValue(value, descriptor.getPropertyType());
+    } catch (IllegalArgumentException e) {
+      throw new FoodCategoryBadRequestException("Invalid cursor value of " + property);
+    }
+  }
+
+  private record Cursor(String sort, Map<String, Object> keys) {
+
+  }
+}
@@ -0,0 +1,634 @@
+package com.egorov.lib_food_categories.util;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Неизменяемый снимок всей иерархии категорий в примитивных массивах. Каждой категории
+ * соответствует позиция в массиве идентификаторов, отсортированном по возрастанию; родитель
+ * хранится индексом, а прямые потомки - непрерывным отрезком общего массива (формат CSR). Поиск
+ * категории по идентификатору - двоичный поиск, без карты и упакованных {@code Long}.
+ *
+ * <p>Одинаковые названия и описания хранятся одним экземпляром строки. По снимку строятся дерево,
+ * ветки, списки прямых потомков и пути от корня без обращений к базе данных. Категории, чей
+ * родитель отсутствует в снимке, не попадают в дерево, но доступны по идентификатору.
+ *
+ * <p>Категории дерева пронумерованы в порядке обхода в глубину (pre-order), поэтому ветка любой
+ * категории занимает непрерывный интервал номеров, и проверка вхождения одной категории в ветку
+ * другой сводится к двум сравнениям чисел.
+ *
+ * <p>Снимок хранит версию каталога, из которой он собран: по ней узлы согласованно помечают
+ * производные представления, например ETag дерева.
+ *
+ * <p>Изменение одной категории переносится в новый снимок без чтения базы данных
+ * ({@link #with(FoodCategory, long)}, {@link #without(Collection, long)}). При изменении только
+ * полей категории массивы структуры дерева используются новым снимком совместно, копируются лишь
+ * массивы полей; перенос в другого родителя, создание и удаление пересобирают структуру из
+ * массивов текущего снимка.
+ *
+ * @author i.egorov
+ */
+public final class FoodCategoryHierarchy {
+
+  private static final int ROOT = -1;
+  private static final int DETACHED = -2;
+
+  private final long[] ids;
+  private final int[] parents;
+  private final int[] childOffsets;
+  private final int[] children;
+  private final int[] roots;
+  private final int[] preorder;
+  private final int[] subtreeSizes;
+  private final Map<Long, Long> detachedParentIds;
+  private final String[] names;
+  private final String[] descriptions;
+  private final BitSet finals;
+  private final BitSet hasCreatedAt;
+  private final long[] createdAtSeconds;
+  private final int[] createdAtNanos;
+  private final ZoneId zone;
+  private final long catalogVersion;
+
+  private FoodCategoryHierarchy(Builder builder, int[] parents, int[] childOffsets,
+      int[] children, int[] roots, int[] preorder, int[] subtreeSizes,
+      Map<Long, Long> detachedParentIds) {
+    int size = builder.size;
+    this.ids = Arrays.copyOf(builder.ids, size);
+    this.parents = parents;
+    this.childOffsets = childOffsets;
+    this.children = children;
+    this.roots = roots;
+    this.preorder = preorder;
+    this.subtreeSizes = subtreeSizes;
+    this.detachedParentIds = detachedParentIds;
+    this.names = Arrays.copyOf(builder.names, size);
+    this.descriptions = Arrays.copyOf(builder.descriptions, size);
+    this.finals = (BitSet) builder.finals.clone();
+    this.hasCreatedAt = (BitSet) builder.hasCreatedAt.clone();
+    this.createdAtSeconds = Arrays.copyOf(builder.createdAtSeconds, size);
+    this.createdAtNanos = Arrays.copyOf(builder.createdAtNanos, size);
+    this.zone = builder.zone;
+    this.catalogVersion = builder.catalogVersion;
+  }
+
+  /**
+   * Копия снимка с общей структурой дерева и собственными массивами полей категорий.
+   */
+  private FoodCategoryHierarchy(FoodCategoryHierarchy source, ZoneId zone, long catalogVersion) {
+    this.ids = source.ids;
+    this.parents = source.parents;
+    this.childOffsets = source.childOffsets;
+    this.children = source.children;
+    this.roots = source.roots;
+    this.preorder = source.preorder;
+    this.subtreeSizes = source.subtreeSizes;
+    this.detachedParentIds = source.detachedParentIds;
+    this.names = source.names.clone();
+    this.descriptions = source.descriptions.clone();
+    this.finals = (BitSet) source.finals.clone();
+    this.hasCreatedAt = (BitSet) source.hasCreatedAt.clone();
+    this.createdAtSeconds = source.createdAtSeconds.clone();
+    this.createdAtNanos = source.createdAtNanos.clone();
+    this.zone = zone;
+    this.catalogVersion = catalogVersion;
+  }
+
+  /**
+   * Строит снимок по коллекции категорий в произвольном порядке.
+   *
+   * @param categories все категории иерархии
+   * @return снимок иерархии
+   * @throws IllegalArgumentException если идентификаторы повторяются
+   */
+  public static FoodCategoryHierarchy of(Collection<FoodCategory> categories) {
+    List<FoodCategory> sorted = new ArrayList<>(categories);
+    sorted.sort(Comparator.comparing(FoodCategory::getId));
+    Builder builder = builder(sorted.size());
+    sorted.forEach(builder::add);
+    return builder.build();
+  }
+
+  /**
+   * Создает построитель снимка для категорий, поступающих по возрастанию идентификаторов.
+   *
+   * @param expectedSize ожидаемое количество категорий
+   * @return построитель
+   */
+  public static Builder builder(int expectedSize) {
+    return new Builder(expectedSize);
+  }
+
+  /**
+   * Количество категорий в снимке.
+   *
+   * @return количество категорий
+   */
+  public int size() {
+    return ids.length;
+  }
+
+  /**
+   * Версия каталога, из которой собран снимок.
+   *
+   * @return версия каталога
+   */
+  public long catalogVersion() {
+    return catalogVersion;
+  }
+
+  /**
+   * Возвращает снимок следующей версии каталога с созданной или измененной категорией. Если
+   * родитель категории не изменился, структура дерева не пересобирается.
+   *
+   * @param category       категория после изменения
+   * @param catalogVersion версия каталога, в которой зафиксировано изменение
+   * @return новый снимок; текущий снимок не изменяется
+   */
+  public FoodCategoryHierarchy with(FoodCategory category, long catalogVersion) {
+    long id = category.getId();
+    int index = indexOf(id);
+    if (index >= 0 && Objects.equals(parentIdOf(index), category.getParentId())) {
+      ZonedDateTime createdAt = category.getCreatedAt();
+      ZoneId zone = this.zone == null && createdAt != null ? createdAt.getZone() : this.zone;
+      FoodCategoryHierarchy changed = new FoodCategoryHierarchy(this, zone, catalogVersion);
+      changed.names[index] = category.getName();
+      changed.descriptions[index] = category.getDescription();
+      changed.finals.set(index, Boolean.TRUE.equals(category.getIsFinal()));
+      changed.hasCreatedAt.set(index, createdAt != null);
+      if (createdAt != null) {
+        changed.createdAtSeconds[index] = createdAt.toEpochSecond();
+        changed.createdAtNanos[index] = createdAt.getNano();
+      }
+      return changed;
+    }
+
+    Builder builder = builder(ids.length + 1).catalogVersion(catalogVersion);
+    boolean added = false;
+    for (int i = 0; i < ids.length; i++) {
+      if (!added && ids[i] >= id) {
+        builder.add(category);
+        added = true;
+      }
+      if (ids[i] != id) {
+        copyTo(builder, i);
+      }
+    }
+    if (!added) {
+      builder.add(category);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Возвращает снимок следующей версии каталога без удаленных категорий.
+   *
+   * @param removedIds     идентификаторы удаленных категорий (вместе с потомками)
+   * @param catalogVersion версия каталога, в которой зафиксировано удаление
+   * @return новый снимок; текущий снимок не изменяется
+   */
+  public FoodCategoryHierarchy without(Collection<Long> removedIds, long catalogVersion) {
+    Set<Long> removed = new HashSet<>(removedIds);
+    Builder builder = builder(ids.length).catalogVersion(catalogVersion);
+    for (int i = 0; i < ids.length; i++) {
+      if (!removed.contains(ids[i])) {
+        copyTo(builder, i);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Возвращает лес категорий: все корневые категории с вложенными подкатегориями.
+   *
+   * @return список корневых категорий
+   */
+  public List<FoodCategoryTreeDto> forest() {
+    return forest(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Возвращает лес категорий, ограниченный по глубине. У категорий на последнем уровне
+   * подкатегории не включаются, а вместо них указывается количество прямых потомков.
+   *
+   * @param maxDepth максимальная глубина относительно корней (0 - только корневые категории)
+   * @return список корневых категорий с вложенными подкатегориями
+   */
+  public List<FoodCategoryTreeDto> forest(int maxDepth) {
+    List<FoodCategoryTreeDto> forest = new ArrayList<>(roots.length);
+    BitSet visited = new BitSet(ids.length);
+    for (int root : roots) {
+      forest.add(assemble(root, maxDepth, visited));
+    }
+    return forest;
+  }
+
+  /**
+   * Возвращает ветку с корнем в указанной категории. У категорий на последнем уровне
+   * подкатегории не включаются, а вместо них указывается количество прямых потомков.
+   *
+   * @param id       идентификатор корня ветки
+   * @param maxDepth максимальная глубина относительно корня (0 - только сам корень)
+   * @return ветка или пустой Optional, если категории нет в снимке
+   */
+  public Optional<FoodCategoryTreeDto> subtree(Long id, int maxDepth) {
+    int index = indexOf(id);
+    return index < 0
+        ? Optional.empty()
+        : Optional.of(assemble(index, maxDepth, new BitSet(ids.length)));
+  }
+
+  /**
+   * Возвращает прямых потомков категории в порядке идентификаторов.
+   *
+   * @param id идентификатор категории
+   * @return потомки или пустой Optional, если категории нет в снимке
+   */
+  public Optional<List<FoodCategoryMinimalDto>> children(Long id) {
+    int index = indexOf(id);
+    if (index < 0) {
+      return Optional.empty();
+    }
+    List<FoodCategoryMinimalDto> result = new ArrayList<>(childCount(index));
+    for (int i = childOffsets[index]; i < childOffsets[index + 1]; i++) {
+      result.add(new FoodCategoryMinimalDto(ids[children[i]], ids[index], names[children[i]]));
+    }
+    return Optional.of(result);
+  }
+
+  /**
+   * Возвращает путь от корня до категории включительно.
+   *
+   * @param id идентификатор категории
+   * @return путь или пустой Optional, если категории нет в снимке
+   */
+  public Optional<List<FoodCategoryMinimalDto>> pathTo(Long id) {
+    int index = indexOf(id);
+    if (index < 0) {
+      return Optional.empty();
+    }
+
+    List<FoodCategoryMinimalDto> path = new ArrayList<>();
+    path.add(new FoodCategoryMinimalDto(ids[index], names[index]));
+    // Ограничение на длину пути защищает от зацикливания при некорректных данных
+    while (parents[index] >= 0 && path.size() <= ids.length) {
+      index = parents[index];
+      path.add(new FoodCategoryMinimalDto(ids[index], names[index]));
+    }
+    Collections.reverse(path);
+    return Optional.of(path);
+  }
+
+  /**
+   * Проверяет, входит ли категория в ветку другой категории (включая саму эту категорию).
+   * Категории вне дерева (с отсутствующим родителем или в цикле) входят только в собственную ветку.
+   *
+   * @param id         идентификатор проверяемой категории
+   * @param ancestorId идентификатор корня ветки
+   * @return true, если обе категории есть в снимке и первая входит в ветку второй
+   */
+  public boolean isWithin(Long id, Long ancestorId) {
+    int index = indexOf(id);
+    int ancestor = indexOf(ancestorId);
+    if (index < 0 || ancestor < 0) {
+      return false;
+    }
+    if (index == ancestor) {
+      return true;
+    }
+    int start = preorder[ancestor];
+    int position = preorder[index];
+    return start >= 0 && position >= start && position < start + subtreeSizes[ancestor];
+  }
+
+  /**
+   * Проверяет наличие категории в снимке.
+   *
+   * @param id идентификатор категории
+   * @return true, если категория есть в снимке
+   */
+  public boolean contains(Long id) {
+    return indexOf(id) >= 0;
+  }
+
+  long idAt(int index) {
+    return ids[index];
+  }
+
+  String nameAt(int index) {
+    return names[index];
+  }
+
+  String descriptionAt(int index) {
+    return descriptions[index];
+  }
+
+  /**
+   * Находит позицию категории в снимке.
+   *
+   * @param id идентификатор категории
+   * @return позиция или отрицательное число, если категории нет
+   */
+  private int indexOf(Long id) {
+    return id == null ? -1 : Math.max(Arrays.binarySearch(ids, id), -1);
+  }
+
+  /**
+   * Собирает ветку обходом в глубину (post-order) без рекурсии. Уже посещенные категории
+   * пропускаются, поэтому цикл в некорректных данных не приводит к бесконечному обходу.
+   *
+   * @param root     позиция корня ветки
+   * @param maxDepth максимальная глубина относительно корня
+   * @param visited  позиции уже посещенных категорий
+   * @return узел дерева с вложенными подкатегориями
+   */
+  private FoodCategoryTreeDto assemble(int root, int maxDepth, BitSet visited) {
+    visited.set(root);
+    Deque<Frame> stack = new ArrayDeque<>();
+    stack.push(frame(root, 0, maxDepth));
+
+    while (true) {
+      Frame frame = stack.peek();
+      if (frame.next < frame.end) {
+        int child = children[frame.next++];
+        if (!visited.get(child)) {
+          visited.set(child);
+          stack.push(frame(child, frame.depth + 1, maxDepth));
+        }
+        continue;
+      }
+
+      stack.pop();
+      Integer childCount = frame.depth < maxDepth ? null : childCount(frame.index);
+      FoodCategoryTreeDto node = toTreeDto(frame.index, frame.built, childCount);
+      if (stack.isEmpty()) {
+        return node;
+      }
+      stack.peek().built.add(node);
+    }
+  }
+
+  private Frame frame(int index, int depth, int maxDepth) {
+    int end = depth < maxDepth ? childOffsets[index + 1] : childOffsets[index];
+    return new Frame(index, depth, childOffsets[index], end);
+  }
+
+  private Long parentIdOf(int index) {
+    return switch (parents[index]) {
+      case ROOT -> null;
+      case DETACHED -> detachedParentIds.get(ids[index]);
+      default -> ids[parents[index]];
+    };
+  }
+
+  private ZonedDateTime createdAtOf(int index) {
+    return hasCreatedAt.get(index)
+        ? Instant.ofEpochSecond(createdAtSeconds[index], createdAtNanos[index]).atZone(zone)
+        : null;
+  }
+
+  private void copyTo(Builder builder, int index) {
+    builder.add(ids[index], parentIdOf(index), names[index], descriptions[index],
+        finals.get(index), createdAtOf(index));
+  }
+
+  private int childCount(int index) {
+    return childOffsets[index + 1] - childOffsets[index];
+  }
+
+  private FoodCategoryTreeDto toTreeDto(int index, List<FoodCategoryTreeDto> subCategories,
+      Integer childCount) {
+    return new FoodCategoryTreeDto(ids[index], names[index], descriptions[index],
+        finals.get(index), subCategories, createdAtOf(index), childCount);
+  }
+
+  /**
+   * Состояние обхода для одной категории: отрезок ее потомков в массиве children, позиция
+   * очередного потомка и уже собранные поддеревья.
+   */
+  private static final class Frame {
+
+    private final int index;
+    private final int depth;
+    private final int end;
+    private final List<FoodCategoryTreeDto> built;
+    private int next;
+
+    private Frame(int index, int depth, int start, int end) {
+      this.index = index;
+      this.depth = depth;
+      this.next = start;
+      this.end = end;
+      this.built = new ArrayList<>(end - start);
+    }
+  }
+
+  /**
+   * Построитель снимка. Категории добавляются строго по возрастанию идентификаторов (в таком
+   * порядке их возвращает потоковое чтение таблицы), поэтому сортировка при сборке не нужна.
+   */
+  public static final class Builder {
+
+    private static final long NO_PARENT = Long.MIN_VALUE;
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final BitSet finals = new BitSet();
+    private final BitSet hasCreatedAt = new BitSet();
+    private long[] ids;
+    private long[] parentIds;
+    private String[] names;
+    private String[] descriptions;
+    private long[] createdAtSeconds;
+    private int[] createdAtNanos;
+    private ZoneId zone;
+    private long catalogVersion;
+    private int size;
+
+    private Builder(int expectedSize) {
+      int capacity = Math.max(expectedSize, 16);
+      ids = new long[capacity];
+      parentIds = new long[capacity];
+      names = new String[capacity];
+      descriptions = new String[capacity];
+      createdAtSeconds = new long[capacity];
+      createdAtNanos = new int[capacity];
+    }
+
+    /**
+     * Задает версию каталога, из которой читаются категории.
+     *
+     * @param version версия каталога
+     * @return этот построитель
+     */
+    public Builder catalogVersion(long version) {
+      this.catalogVersion = version;
+      return this;
+    }
+
+    /**
+     * Добавляет категорию в снимок.
+     *
+     * @param category категория
+     * @return этот построитель
+     * @throws IllegalArgumentException если идентификатор не больше предыдущего
+     */
+    public Builder add(FoodCategory category) {
+      return add(category.getId(), category.getParentId(), category.getName(),
+          category.getDescription(), Boolean.TRUE.equals(category.getIsFinal()),
+          category.getCreatedAt());
+    }
+
+    /**
+     * Добавляет категорию в снимок по значениям ее полей.
+     *
+     * @param id          идентификатор категории
+     * @param parentId    идентификатор родителя или null для корневой категории
+     * @param name        название
+     * @param description описание
+     * @param isFinal     признак конечной категории
+     * @param createdAt   дата создания
+     * @return этот построитель
+     * @throws IllegalArgumentException если идентификатор не больше предыдущего
+     */
+    public Builder add(long id, Long parentId, String name, String description, boolean isFinal,
+        ZonedDateTime createdAt) {
+      if (size > 0 && id <= ids[size - 1]) {
+        throw new IllegalArgumentException(
+            "Categories must be added in ascending id order: " + id + " after " + ids[size - 1]);
+      }
+      if (size == ids.length) {
+        grow();
+      }
+
+      ids[size] = id;
+      parentIds[size] = parentId == null ? NO_PARENT : parentId;
+      names[size] = intern(name);
+      descriptions[size] = intern(description);
+      finals.set(size, isFinal);
+      if (createdAt != null) {
+        hasCreatedAt.set(size);
+        createdAtSeconds[size] = createdAt.toEpochSecond();
+        createdAtNanos[size] = createdAt.getNano();
+        if (zone == null) {
+          zone = createdAt.getZone();
+        }
+      }
+      size++;
+      return this;
+    }
+
+    /**
+     * Связывает категории с родителями и потомками.
+     *
+     * @return снимок иерархии
+     */
+    public FoodCategoryHierarchy build() {
+      long[] sortedIds = Arrays.copyOf(ids, size);
+      int[] parents = new int[size];
+      int[] childOffsets = new int[size + 1];
+      Map<Long, Long> detachedParentIds = new HashMap<>();
+      int rootCount = 0;
+      for (int i = 0; i < size; i++) {
+        if (parentIds[i] == NO_PARENT) {
+          parents[i] = ROOT;
+          rootCount++;
+        } else {
+          int parent = Arrays.binarySearch(sortedIds, parentIds[i]);
+          parents[i] = parent >= 0 ? parent : DETACHED;
+          if (parent >= 0) {
+            childOffsets[parent + 1]++;
+          } else {
+            detachedParentIds.put(sortedIds[i], parentIds[i]);
+          }
+        }
+      }
+      for (int i = 0; i < size; i++) {
+        childOffsets[i + 1] += childOffsets[i];
+      }
+
+      int[] children = new int[childOffsets[size]];
+      int[] cursor = Arrays.copyOf(childOffsets, size);
+      int[] roots = new int[rootCount];
+      int nextRoot = 0;
+      for (int i = 0; i < size; i++) {
+        if (parents[i] >= 0) {
+          children[cursor[parents[i]]++] = i;
+        } else if (parents[i] == ROOT) {
+          roots[nextRoot++] = i;
+        }
+      }
+      int[] order = new int[size];
+      int[] preorder = new int[size];
+      Arrays.fill(preorder, -1);
+      int numbered = number(roots, childOffsets, children, order, preorder);
+      int[] subtreeSizes = new int[size];
+      for (int i = numbered - 1; i >= 0; i--) {
+        int index = order[i];
+        subtreeSizes[index]++;
+        if (parents[index] >= 0) {
+          subtreeSizes[parents[index]] += subtreeSizes[index];
+        }
+      }
+      return new FoodCategoryHierarchy(this, parents, childOffsets, children, roots, preorder,
+          subtreeSizes, Map.copyOf(detachedParentIds));
+    }
+
+    /**
+     * Нумерует категории дерева обходом в глубину без рекурсии. Категории вне дерева остаются
+     * без номера (-1).
+     *
+     * @return количество пронумерованных категорий
+     */
+    private static int number(int[] roots, int[] childOffsets, int[] children, int[] order,
+        int[] preorder) {
+      int[] stack = new int[order.length];
+      int top = 0;
+      int next = 0;
+      for (int r = roots.length - 1; r >= 0; r--) {
+        stack[top++] = roots[r];
+      }
+      while (top > 0) {
+        int index = stack[--top];
+        preorder[index] = next;
+        order[next++] = index;
+        for (int i = childOffsets[index + 1] - 1; i >= childOffsets[index]; i--) {
+          stack[top++] = children[i];
+        }
+      }
+      return next;
+    }
+
+    private String intern(String value) {
+      return value == null ? null : strings.computeIfAbsent(value, key -> key);
+    }
+
+    private void grow() {
+      int capacity = ids.length + (ids.length >> 1);
+      ids = Arrays.copyOf(ids, capacity);
+      parentIds = Arrays.copyOf(parentIds, capacity);
+      names = Arrays.copyOf(names, capacity);
+      descriptions = Arrays.copyOf(descriptions, capacity);
+      createdAtSeconds = Arrays.copyOf(createdAtSeconds, capacity);
+      createdAtNanos = Arrays.copyOf(createdAtNanos, capacity);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import com.egorov.lib_food_categories.dto.request.FoodCategoryRequest;
 import com.egorov.lib_food_categories.dto.response.FoodCategoryDto;
 import com.egorov.lib_food_categories.model.FoodCategory;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 /**
  * Маппер для преобразования между сущностью FoodCategory и DTO. Использует MapStruct для
@@ -23,10 +24,15 @@ public interface FoodCategoryMapper {
   FoodCategoryDto toDto(FoodCategory entity);
 
   /**
-   * Преобразует DTO запроса в сущность FoodCategory.
+   * Преобразует DTO запроса в сущность FoodCategory. Идентификатор, временные метки и версия
+   * назначаются при сохранении и из запроса не переносятся.
    *
    * @param dto DTO запроса
    * @return соответствующая сущность FoodCategory
    */
+  @Mapping(target = "id", ignore = true)
+  @Mapping(target = "createdAt", ignore = true)
+  @Mapping(target = "updatedAt", ignore = true)
+  @Mapping(target = "version", ignore = true)
   FoodCategory toEntity(FoodCategoryRequest dto);
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.egorov.lib_food_categories.util;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Индекс названий категорий для поиска по префиксу. Названия хранятся нормализованными (без учета
+ * регистра и диакритических знаков) в упорядоченной структуре, поэтому поиск сводится к
+ * позиционированию на префиксе и чтению первых {@code limit} записей. Изменения применяются
+ * точечно и безопасны при одновременном чтении.
+ *
+ * @author i.egorov
+ */
+public final class FoodCategoryNameIndex {
+
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern SPACES = Pattern.compile("\\s+");
+  private static final Comparator<Key> ORDER =
+      Comparator.comparing(Key::name).thenComparingLong(Key::id);
+
+  private final ConcurrentNavigableMap<Key, FoodCategoryMinimalDto> entries =
+      new ConcurrentSkipListMap<>(ORDER);
+  private final Map<Long, Key> keysById = new ConcurrentHashMap<>();
+
+  /**
+   * Добавляет категорию в индекс или обновляет ее название.
+   *
+   * @param id   идентификатор категории
+   * @param name название категории
+   */
+  public void put(Long id, String name) {
+    keysById.compute(id, (key, previous) -> {
+      if (previous != null) {
+        entries.remove(previous);
+      }
+      Key current = new Key(normalize(name), id);
+      entries.put(current, new FoodCategoryMinimalDto(id, name));
+      return current;
+    });
+  }
+
+  /**
+   * Удаляет категорию из индекса.
+   *
+   * @param id идентификатор категории
+   */
+  public void remove(Long id) {
+    keysById.computeIfPresent(id, (key, previous) -> {
+      entries.remove(previous);
+      return null;
+    });
+  }
+
+  /**
+   * Ищет категории, название которых начинается с префикса.
+   *
+   * @param prefix префикс названия (регистр и диакритические знаки не учитываются)
+   * @param limit  максимальное количество результатов
+   * @return категории в порядке нормализованного названия, затем идентификатора
+   */
+  public List<FoodCategoryMinimalDto> search(String prefix, int limit) {
+    String normalized = normalize(prefix);
+    List<FoodCategoryMinimalDto> result = new ArrayList<>(Math.min(limit, 16));
+    for (Map.Entry<Key, FoodCategoryMinimalDto> entry
+        : entries.tailMap(new Key(normalized, Long.MIN_VALUE)).entrySet()) {
+      if (result.size() >= limit || !entry.getKey().name().startsWith(normalized)) {
+        break;
+      }
+      result.add(entry.getValue());
+    }
+    return result;
+  }
+
+  /**
+   * Количество категорий в индексе.
+   *
+   * @return размер индекса
+   */
+  public int size() {
+    return keysById.size();
+  }
+
+  /**
+   * Приводит название к форме для сравнения: без диакритических знаков (ё → е), в нижнем регистре,
+   * с одиночными пробелами.
+   *
+   * @param name исходное название
+   * @return нормализованное название
+   */
+  public static String normalize(String name) {
+    if (name == null) {
+      return "";
+    }
+    String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+    String withoutMarks = MARKS.matcher(decomposed).replaceAll("");
+    return SPACES.matcher(withoutMarks.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+  }
+
+  /**
+   * Ключ записи индекса: нормализованное название и идентификатор для различения одноименных
+   * категорий.
+   */
+  private record Key(String name, long id) {
+
+  }
+}
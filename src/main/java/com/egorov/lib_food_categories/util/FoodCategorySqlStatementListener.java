@@ -0,0 +1,35 @@
+package com.egorov.lib_food_categories.util;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Слушатель событий сессии Hibernate, передающий каждый выполненный SQL-запрос и JDBC-батч в
+ * {@link FoodCategorySqlStatistics}. Подключается свойством {@code hibernate.session.events.auto};
+ * Hibernate создает отдельный экземпляр на каждую сессию, поэтому синхронизация не нужна.
+ *
+ * @author i.egorov
+ */
+public class FoodCategorySqlStatementListener extends BaseSessionEventListener {
+
+  private long startedAt;
+
+  @Override
+  public void jdbcExecuteStatementStart() {
+    startedAt = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteStatementEnd() {
+    FoodCategorySqlStatistics.record(System.nanoTime() - startedAt);
+  }
+
+  @Override
+  public void jdbcExecuteBatchStart() {
+    startedAt = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteBatchEnd() {
+    FoodCategorySqlStatistics.record(System.nanoTime() - startedAt);
+  }
+}
@@ -0,0 +1,68 @@
+package com.egorov.lib_food_categories.util;
+
+/**
+ * Счетчик SQL-запросов и времени работы с базой данных в рамках одного HTTP-запроса. Счетчик
+ * привязан к потоку, обрабатывающему запрос: запросы, выполненные в других потоках (например,
+ * фоновое перестроение дерева), в нем не учитываются.
+ *
+ * @author i.egorov
+ */
+public final class FoodCategorySqlStatistics {
+
+  private static final ThreadLocal<FoodCategorySqlStatistics> CURRENT = new ThreadLocal<>();
+
+  private int statements;
+  private long nanos;
+
+  private FoodCategorySqlStatistics() {
+  }
+
+  /**
+   * Начинает учет запросов в текущем потоке, заменяя предыдущий счетчик.
+   *
+   * @return новый счетчик
+   */
+  public static FoodCategorySqlStatistics start() {
+    FoodCategorySqlStatistics statistics = new FoodCategorySqlStatistics();
+    CURRENT.set(statistics);
+    return statistics;
+  }
+
+  /**
+   * Завершает учет запросов в текущем потоке.
+   */
+  public static void stop() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Учитывает выполненный запрос. Если учет в текущем потоке не начат, ничего не делает.
+   *
+   * @param nanos длительность выполнения в наносекундах
+   */
+  public static void record(long nanos) {
+    FoodCategorySqlStatistics statistics = CURRENT.get();
+    if (statistics != null) {
+      statistics.statements++;
+      statistics.nanos += nanos;
+    }
+  }
+
+  /**
+   * Количество выполненных запросов. JDBC-батч считается одним запросом.
+   *
+   * @return количество запросов
+   */
+  public int getStatements() {
+    return statements;
+  }
+
+  /**
+   * Суммарное время выполнения запросов.
+   *
+   * @return время в наносекундах
+   */
+  public long getNanos() {
+    return nanos;
+  }
+}
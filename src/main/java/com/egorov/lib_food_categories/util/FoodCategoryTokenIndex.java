@@ -0,0 +1,272 @@
+package com.egorov.lib_food_categories.util;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMatchDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Неизменяемый инвертированный индекс слов из названий и описаний категорий для сопоставления
+ * произвольного текста (например, строки ингредиента) с категориями.
+ *
+ * <p>Текст разбивается на слова (цифры и слова короче {@value #MIN_TOKEN_LENGTH} букв
+ * отбрасываются). Каждое слово запроса сопоставляется со словами индекса по сходству триграмм,
+ * что покрывает и точные совпадения, и формы слова ("сыры" - "сыр"). Оценка
+ * категории складывается из доли совпавших слов запроса, взвешенных по редкости слова (IDF), и
+ * доли совпавших слов названия категории.
+ *
+ * @author i.egorov
+ */
+public final class FoodCategoryTokenIndex {
+
+  /**
+   * Минимальная длина учитываемого слова.
+   */
+  public static final int MIN_TOKEN_LENGTH = 3;
+
+  private static final Pattern NON_LETTERS = Pattern.compile("[^\\p{L}]+");
+  private static final double MIN_SIMILARITY = 0.5;
+  private static final double DESCRIPTION_WEIGHT = 0.5;
+  private static final double QUERY_COVERAGE_WEIGHT = 0.8;
+  private static final Comparator<FoodCategoryMatchDto> BEST_FIRST =
+      Comparator.comparingDouble(FoodCategoryMatchDto::score).reversed()
+          .thenComparing(FoodCategoryMatchDto::id);
+
+  private final long[] ids;
+  private final String[] names;
+  private final int[] nameTokenCounts;
+  private final Map<String, Token> tokens;
+  private final Map<String, List<Token>> tokensByTrigram;
+
+  private FoodCategoryTokenIndex(long[] ids, String[] names, int[] nameTokenCounts,
+      Map<String, Token> tokens, Map<String, List<Token>> tokensByTrigram) {
+    this.ids = ids;
+    this.names = names;
+    this.nameTokenCounts = nameTokenCounts;
+    this.tokens = tokens;
+    this.tokensByTrigram = tokensByTrigram;
+  }
+
+  /**
+   * Строит индекс по всем категориям.
+   *
+   * @param categories категории
+   * @return индекс слов
+   */
+  public static FoodCategoryTokenIndex of(Collection<FoodCategory> categories) {
+    List<FoodCategory> list = List.copyOf(categories);
+    return build(list.size(), index -> list.get(index).getId(),
+        index -> list.get(index).getName(), index -> list.get(index).getDescription());
+  }
+
+  /**
+   * Строит индекс по снимку иерархии без обращений к базе данных.
+   *
+   * @param hierarchy снимок иерархии категорий
+   * @return индекс слов
+   */
+  public static FoodCategoryTokenIndex of(FoodCategoryHierarchy hierarchy) {
+    return build(hierarchy.size(), hierarchy::idAt, hierarchy::nameAt,
+        hierarchy::descriptionAt);
+  }
+
+  private static FoodCategoryTokenIndex build(int size, IntToLongFunction idAt,
+      IntFunction<String> nameAt, IntFunction<String> descriptionAt) {
+    long[] ids = new long[size];
+    String[] names = new String[size];
+    int[] nameTokenCounts = new int[size];
+    Map<String, PostingsBuilder> postings = new HashMap<>();
+
+    for (int index = 0; index < size; index++) {
+      ids[index] = idAt.applyAsLong(index);
+      names[index] = nameAt.apply(index);
+      Set<String> nameTokens = tokenize(names[index]);
+      nameTokenCounts[index] = nameTokens.size();
+      for (String token : nameTokens) {
+        postings.computeIfAbsent(token, key -> new PostingsBuilder()).names.add(index);
+      }
+      for (String token : tokenize(descriptionAt.apply(index))) {
+        if (!nameTokens.contains(token)) {
+          postings.computeIfAbsent(token, key -> new PostingsBuilder()).descriptions.add(index);
+        }
+      }
+    }
+
+    Map<String, Token> tokens = new HashMap<>(postings.size() * 4 / 3 + 1);
+    Map<String, List<Token>> tokensByTrigram = new HashMap<>();
+    for (Map.Entry<String, PostingsBuilder> entry : postings.entrySet()) {
+      PostingsBuilder builder = entry.getValue();
+      int documents = builder.names.size() + builder.descriptions.size();
+      Token token = new Token(entry.getKey(), trigrams(entry.getKey()),
+          toArray(builder.names), toArray(builder.descriptions),
+          Math.log(1.0 + (double) size / documents));
+      tokens.put(token.value(), token);
+      for (String trigram : token.trigrams()) {
+        tokensByTrigram.computeIfAbsent(trigram, key -> new ArrayList<>()).add(token);
+      }
+    }
+    return new FoodCategoryTokenIndex(ids, names, nameTokenCounts, tokens, tokensByTrigram);
+  }
+
+  /**
+   * Подбирает категории для текста. Метод не изменяет индекс и может вызываться из нескольких
+   * потоков одновременно.
+   *
+   * @param text  произвольный текст
+   * @param limit максимальное количество результатов
+   * @return категории по убыванию оценки (от 0 до 1)
+   */
+  public List<FoodCategoryMatchDto> match(String text, int limit) {
+    Map<Integer, double[]> candidates = new HashMap<>();
+    double maxWeight = 0;
+
+    for (String queryToken : tokenize(text)) {
+      Map<Token, Double> similar = findSimilar(queryToken);
+      if (similar.isEmpty()) {
+        continue;
+      }
+
+      Map<Integer, double[]> best = new HashMap<>();
+      double tokenWeight = 0;
+      for (Map.Entry<Token, Double> entry : similar.entrySet()) {
+        Token token = entry.getKey();
+        double weight = entry.getValue() * token.idf();
+        tokenWeight = Math.max(tokenWeight, weight);
+        for (int category : token.names()) {
+          keepBest(best, category, weight, 1);
+        }
+        for (int category : token.descriptions()) {
+          keepBest(best, category, weight * DESCRIPTION_WEIGHT, 0);
+        }
+      }
+      maxWeight += tokenWeight;
+
+      for (Map.Entry<Integer, double[]> entry : best.entrySet()) {
+        double[] score = candidates.computeIfAbsent(entry.getKey(), key -> new double[2]);
+        score[0] += entry.getValue()[0];
+        score[1] += entry.getValue()[1];
+      }
+    }
+
+    List<FoodCategoryMatchDto> matches = new ArrayList<>(candidates.size());
+    for (Map.Entry<Integer, double[]> entry : candidates.entrySet()) {
+      int category = entry.getKey();
+      double queryCoverage = entry.getValue()[0] / maxWeight;
+      double nameCoverage = nameTokenCounts[category] == 0
+          ? 0
+          : Math.min(1.0, entry.getValue()[1] / nameTokenCounts[category]);
+      double score = QUERY_COVERAGE_WEIGHT * queryCoverage
+          + (1 - QUERY_COVERAGE_WEIGHT) * nameCoverage;
+      matches.add(new FoodCategoryMatchDto(ids[category], names[category],
+          Math.round(score * 1000) / 1000.0));
+    }
+    matches.sort(BEST_FIRST);
+    return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+  }
+
+  /**
+   * Количество различных слов в индексе.
+   *
+   * @return размер словаря
+   */
+  public int vocabularySize() {
+    return tokens.size();
+  }
+
+  /**
+   * Разбивает текст на нормализованные слова.
+   *
+   * @param text текст
+   * @return различные слова в порядке появления
+   */
+  static Set<String> tokenize(String text) {
+    Set<String> result = new LinkedHashSet<>();
+    for (String token : NON_LETTERS.split(FoodCategoryNameIndex.normalize(text))) {
+      if (token.length() >= MIN_TOKEN_LENGTH) {
+        result.add(token);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Находит слова индекса, похожие на слово запроса по сходству триграмм (коэффициент Дайса не
+   * ниже {@value #MIN_SIMILARITY}). Точное совпадение имеет сходство 1, но другие формы слова
+   * тоже учитываются: "сыр" в запросе находит и "сыр", и "сыры".
+   *
+   * @param queryToken слово запроса
+   * @return слова индекса и их сходство со словом запроса
+   */
+  private Map<Token, Double> findSimilar(String queryToken) {
+    Set<String> queryTrigrams = trigrams(queryToken);
+    // Слова словаря уникальны, поэтому достаточно сравнения по ссылке
+    Map<Token, Integer> shared = new IdentityHashMap<>();
+    for (String trigram : queryTrigrams) {
+      for (Token token : tokensByTrigram.getOrDefault(trigram, List.of())) {
+        shared.merge(token, 1, Integer::sum);
+      }
+    }
+
+    Map<Token, Double> similar = new IdentityHashMap<>();
+    for (Map.Entry<Token, Integer> entry : shared.entrySet()) {
+      double dice = 2.0 * entry.getValue()
+          / (queryTrigrams.size() + entry.getKey().trigrams().size());
+      if (dice >= MIN_SIMILARITY) {
+        similar.put(entry.getKey(), dice);
+      }
+    }
+    return similar;
+  }
+
+  private static void keepBest(Map<Integer, double[]> best, int category, double weight,
+      int nameHit) {
+    double[] current = best.computeIfAbsent(category, key -> new double[2]);
+    if (weight > current[0]) {
+      current[0] = weight;
+      current[1] = nameHit;
+    }
+  }
+
+  private static Set<String> trigrams(String token) {
+    String padded = " " + token + " ";
+    Set<String> result = new LinkedHashSet<>();
+    for (int i = 0; i + 3 <= padded.length(); i++) {
+      result.add(padded.substring(i, i + 3));
+    }
+    return result;
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Слово индекса.
+   *
+   * @param value        нормализованное слово
+   * @param trigrams     триграммы слова
+   * @param names        позиции категорий, в названии которых встречается слово
+   * @param descriptions позиции категорий, в описании которых встречается слово
+   * @param idf          вес редкости слова
+   */
+  private record Token(String value, Set<String> trigrams, int[] names, int[] descriptions,
+      double idf) {
+
+  }
+
+  private static final class PostingsBuilder {
+
+    private final List<Integer> names = new ArrayList<>();
+    private final List<Integer> descriptions = new ArrayList<>();
+  }
+}
@@ -0,0 +1,47 @@
+-- Идентификаторы категорий выдаются Hibernate пулом по 50 значений (pooled optimizer),
+-- поэтому шаг последовательности должен совпадать с allocationSize в FoodCategory.
+-- В таблице, созданной до перехода на последовательность, id - identity-столбец, у которого
+-- PostgreSQL создает собственную последовательность с тем же именем food_categories_id_seq.
+-- Identity снимается явно (вместе со своей последовательностью), чтобы не зависеть от этого
+-- совпадения имен, и последовательность создается заново.
+ALTER TABLE IF EXISTS food_categories ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS food_categories_id_seq INCREMENT BY 50;
+ALTER SEQUENCE food_categories_id_seq INCREMENT BY 50;
+
+-- Последовательность, отстающая от уже выданных идентификаторов (после снятия identity или
+-- загрузки данных в обход Hibernate), сдвигается так, чтобы следующий пул из 50 значений
+-- начинался после max(id). Последовательность, которая не отстает, не трогается: иначе она
+-- могла бы выдать повторно пулы, уже выданные другим экземплярам приложения.
+DO '
+DECLARE
+  max_id BIGINT;
+BEGIN
+  IF to_regclass(''food_categories'') IS NOT NULL THEN
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM food_categories;
+    IF (SELECT last_value FROM food_categories_id_seq) < max_id THEN
+      PERFORM setval(''food_categories_id_seq'', max_id + 50);
+    END IF;
+  END IF;
+END';
+
+-- Версия записи для оптимистической блокировки (@Version в FoodCategory). В существующей таблице
+-- столбец добавляется со значением 0; новую таблицу создает Hibernate.
+ALTER TABLE IF EXISTS food_categories ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Версия каталога: увеличивается в каждой транзакции записи журналом изменений
+-- (FoodCategoryChangeLog) и передается в уведомлении pg_notify (FoodCategoryCacheSync).
+CREATE TABLE IF NOT EXISTS food_category_catalog_version (
+    id      SMALLINT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+INSERT INTO food_category_catalog_version (id, version) VALUES (1, 0) ON CONFLICT DO NOTHING;
+
+-- Сжатый журнал изменений для инкрементальной синхронизации клиентов (FoodCategoryChangeLog):
+-- последнее изменение каждой категории с версией каталога, в которой оно зафиксировано.
+CREATE TABLE IF NOT EXISTS food_category_changes (
+    category_id BIGINT PRIMARY KEY,
+    version     BIGINT NOT NULL,
+    deleted     BOOLEAN NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_food_category_changes_version
+    ON food_category_changes (version, category_id);
@@ -0,0 +1,144 @@
+package com.egorov.lib_food_categories.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Тесты для {@link FoodCategoryCachingConfig}.
+ *
+ * @author i.egorov
+ */
+class FoodCategoryCachingConfigTest {
+
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withUserConfiguration(FoodCategoryCachingConfig.class, AsyncCacheConfig.class);
+
+  @Test
+  void cacheable_ShouldOpenTransactionInsideAsyncLoader() {
+    contextRunner.run(context -> {
+      // Arrange
+      LoaderProbe probe = context.getBean(LoaderProbe.class);
+      CountingTransactionManager transactionManager =
+          context.getBean(CountingTransactionManager.class);
+
+      // Act
+      String first = probe.load(1L);
+      String second = probe.load(1L);
+
+      // Assert
+      assertEquals("loader:true", first);
+      assertEquals(first, second);
+      assertEquals(1, transactionManager.begun.get());
+      assertNotNull(((CaffeineCache) context.getBean(CacheManager.class)
+          .getCache("foodCategories")).getAsyncCache());
+    });
+  }
+
+  @Test
+  void cacheable_ShouldNotOpenTransactionOnCacheHit() {
+    contextRunner.run(context -> {
+      // Arrange
+      LoaderProbe probe = context.getBean(LoaderProbe.class);
+      CountingTransactionManager transactionManager =
+          context.getBean(CountingTransactionManager.class);
+      probe.load(2L);
+
+      // Act
+      for (int i = 0; i < 5; i++) {
+        probe.load(2L);
+      }
+
+      // Assert
+      assertEquals(1, transactionManager.begun.get());
+      assertEquals(1, probe.calls());
+    });
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  static class AsyncCacheConfig {
+
+    @Bean
+    CacheManager cacheManager() {
+      CaffeineCacheManager cacheManager = new CaffeineCacheManager("foodCategories");
+      Executor executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "loader");
+        thread.setDaemon(true);
+        return thread;
+      });
+      FoodCategoryVirtualThreadsConfig.asyncLoading(cacheManager, null, executor);
+      return cacheManager;
+    }
+
+    @Bean
+    CountingTransactionManager transactionManager() {
+      return new CountingTransactionManager();
+    }
+
+    @Bean
+    LoaderProbe loaderProbe() {
+      return new LoaderProbe();
+    }
+  }
+
+  static class LoaderProbe {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Cacheable(value = "foodCategories", key = "#id", sync = true)
+    @Transactional(readOnly = true)
+    public String load(Long id) {
+      calls.incrementAndGet();
+      return Thread.currentThread().getName() + ":"
+          + TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    public int calls() {
+      return calls.get();
+    }
+  }
+
+  /**
+   * Менеджер транзакций без ресурсов, считающий открытые транзакции.
+   */
+  static class CountingTransactionManager extends AbstractPlatformTransactionManager
+      implements PlatformTransactionManager {
+
+    private final AtomicInteger begun = new AtomicInteger();
+
+    @Override
+    protected Object doGetTransaction() {
+      return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+      begun.incrementAndGet();
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+  }
+}
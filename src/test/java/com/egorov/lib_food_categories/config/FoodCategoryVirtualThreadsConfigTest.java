@@ -0,0 +1,66 @@
+package com.egorov.lib_food_categories.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+class FoodCategoryVirtualThreadsConfigTest {
+
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withUserConfiguration(FoodCategoryVirtualThreadsConfig.class)
+      .withBean(CacheProperties.class)
+      .withBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+          Executor.class, () -> Runnable::run);
+
+  @Test
+  void asyncLoading_ShouldRunLoaderOnExecutorInsteadOfCallerThread() {
+    // Arrange
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager("foodCategories");
+    Executor executor = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "loader");
+      thread.setDaemon(true);
+      return thread;
+    });
+    FoodCategoryVirtualThreadsConfig.asyncLoading(cacheManager,
+        "maximumSize=500,expireAfterWrite=30m,recordStats", executor);
+    Cache cache = cacheManager.getCache("foodCategories");
+
+    // Act
+    String loadedBy = cache.get("map", () -> Thread.currentThread().getName());
+
+    // Assert
+    assertEquals("loader", loadedBy);
+    assertNotNull(((CaffeineCache) cache).getAsyncCache());
+    assertEquals("loader", cache.get("map", () -> "reloaded"));
+  }
+
+  @Test
+  void config_ShouldStayInactiveWhenVirtualThreadsDisabled() {
+    contextRunner
+        .withPropertyValues("spring.threads.virtual.enabled=false")
+        .run(context -> assertTrue(
+            context.getBeansOfType(CacheManagerCustomizer.class).isEmpty()));
+  }
+
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_21)
+  void config_ShouldCustomizeCacheManagerWhenVirtualThreadsEnabled() {
+    contextRunner
+        .withPropertyValues("spring.threads.virtual.enabled=true")
+        .run(context -> assertEquals(1,
+            context.getBeansOfType(CacheManagerCustomizer.class).size()));
+  }
+}
@@ -1,39 +1,113 @@
 package com.egorov.lib_food_categories.controller;
 
+import static com.egorov.lib_food_categories.util.FoodCategoryQueryAssertions.assertMaxInvocations;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryClassifyRequest;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryContainmentRequest;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryIdsRequest;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryImportItem;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryImportRequest;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryPatchRequest;
 import com.egorov.lib_food_categories.dto.request.FoodCategoryRequest;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryAncestorsResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryBatchResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryChangesResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryClassificationDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryContainmentDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryContainmentResponse;
 import com.egorov.lib_food_categories.dto.response.FoodCategoryDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryImportResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMatchDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryPathDto;
 import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeWindowDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryWindowDto;
 import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.service.FoodCategoryChangeLog;
+import com.egorov.lib_food_categories.service.FoodCategoryChangeLog.Changes;
+import com.egorov.lib_food_categories.service.FoodCategoryClassificationService;
+import com.egorov.lib_food_categories.service.FoodCategoryEventStream;
+import com.egorov.lib_food_categories.service.FoodCategoryImportService;
+import com.egorov.lib_food_categories.service.FoodCategorySearchIndex;
 import com.egorov.lib_food_categories.service.FoodCategoryService;
+import com.egorov.lib_food_categories.service.FoodCategoryTreeRenderer;
+import com.egorov.lib_food_categories.service.FoodCategoryTreeRenderer.RenderedTree;
+import com.egorov.lib_food_categories.util.FoodCategoryCursorCodec;
 import com.egorov.lib_food_categories.util.FoodCategoryMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @ExtendWith(MockitoExtension.class)
 class FoodCategoryControllerTest {
 
+  private static final byte[] TREE_JSON = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] TREE_GZIP = {31, -117, 8};
+
   @Mock
   private FoodCategoryService foodCategoryService;
 
+  @Mock
+  private FoodCategoryImportService foodCategoryImportService;
+
   @Mock
   private FoodCategoryMapper mapper;
 
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  @Mock
+  private FoodCategoryCursorCodec cursorCodec;
+
+  @Mock
+  private FoodCategoryTreeRenderer treeRenderer;
+
+  @Mock
+  private FoodCategorySearchIndex searchIndex;
+
+  @Mock
+  private FoodCategoryClassificationService classificationService;
+
+  @Mock
+  private FoodCategoryChangeLog changeLog;
+
+  @Mock
+  private FoodCategoryEventStream eventStream;
+
   @InjectMocks
   private FoodCategoryController foodCategoryController;
 
@@ -41,9 +115,10 @@ class FoodCategoryControllerTest {
   void create_ShouldReturnCreatedResponse() {
     // Arrange
     FoodCategoryRequest request = new FoodCategoryRequest(null, "Fruits", "Fresh fruits", false);
-    FoodCategory category = new FoodCategory(1L, null, "Fruits", "Fresh fruits", false, null, null);
+    FoodCategory category = new FoodCategory(1L, null, "Fruits", "Fresh fruits", false, null, null,
+        0L);
     FoodCategoryDto dto = new FoodCategoryDto(1L, null, "Fruits", "Fresh fruits", false, null,
-        null);
+        null, 0L);
 
     when(mapper.toEntity(request)).thenReturn(category);
     when(foodCategoryService.create(category)).thenReturn(category);
@@ -61,14 +136,38 @@ class FoodCategoryControllerTest {
     verify(mapper).toDto(category);
   }
 
+  @Test
+  void importCategories_ShouldReturnCreatedIds() {
+    // Arrange
+    FoodCategoryImportItem dairy = FoodCategoryImportItem.builder()
+        .key("dairy").name("Dairy").build();
+    FoodCategoryImportItem cheese = FoodCategoryImportItem.builder()
+        .key("cheese").parentKey("dairy").name("Cheese").build();
+    FoodCategoryImportRequest request = new FoodCategoryImportRequest(List.of(dairy, cheese));
+    FoodCategoryImportResponse result = new FoodCategoryImportResponse(2,
+        Map.of("dairy", 1L, "cheese", 2L));
+
+    when(foodCategoryImportService.importCategories(request.items())).thenReturn(result);
+
+    // Act
+    ResponseEntity<FoodCategoryImportResponse> response =
+        foodCategoryController.importCategories(request);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(result, response.getBody());
+
+    verify(foodCategoryImportService).importCategories(request.items());
+  }
+
   @Test
   void getById_ShouldReturnCategory() {
     // Arrange
     Long id = 1L;
     FoodCategory category = new FoodCategory(id, null, "Vegetables", "Fresh vegetables", false,
-        null, null);
+        null, null, 0L);
     FoodCategoryDto dto = new FoodCategoryDto(id, null, "Vegetables", "Fresh vegetables", false,
-        null, null);
+        null, null, 0L);
 
     when(foodCategoryService.findById(id)).thenReturn(category);
     when(mapper.toDto(category)).thenReturn(dto);
@@ -79,6 +178,7 @@ class FoodCategoryControllerTest {
     // Assert
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(dto, response.getBody());
+    assertEquals("\"0\"", response.getHeaders().getETag());
 
     verify(foodCategoryService).findById(id);
     verify(mapper).toDto(category);
@@ -91,9 +191,9 @@ class FoodCategoryControllerTest {
     int size = 10;
     String[] sort = {"name,asc"};
 
-    FoodCategory category = new FoodCategory(1L, null, "Fruits", null, false, null, null);
+    FoodCategory category = new FoodCategory(1L, null, "Fruits", null, false, null, null, 0L);
     Page<FoodCategory> categoryPage = new PageImpl<>(List.of(category));
-    FoodCategoryDto dto = new FoodCategoryDto(1L, null, "Fruits", null, false, null, null);
+    FoodCategoryDto dto = new FoodCategoryDto(1L, null, "Fruits", null, false, null, null, 0L);
 
     when(foodCategoryService.findAll(any(PageRequest.class))).thenReturn(categoryPage);
     when(mapper.toDto(category)).thenReturn(dto);
@@ -114,24 +214,404 @@ class FoodCategoryControllerTest {
   }
 
   @Test
-  void getCategoryTree_ShouldReturnCategoryTree() {
+  void scroll_ShouldReturnFirstWindowWithNextCursor() {
+    // Arrange
+    Sort sort = Sort.by(Sort.Direction.ASC, "name");
+    FoodCategory category = new FoodCategory(1L, null, "Fruits", null, false, null, null, 0L);
+    FoodCategoryDto dto = new FoodCategoryDto(1L, null, "Fruits", null, false, null, null, 0L);
+    KeysetScrollPosition last = ScrollPosition.forward(Map.of("name", "Fruits", "id", 1L));
+    Window<FoodCategory> window = Window.from(List.of(category), index -> last, true);
+
+    when(foodCategoryService.scroll(ScrollPosition.keyset(), sort, 1)).thenReturn(window);
+    when(mapper.toDto(category)).thenReturn(dto);
+    when(cursorCodec.encode(sort, last)).thenReturn("next-token");
+
+    // Act
+    ResponseEntity<FoodCategoryWindowDto> response = foodCategoryController.scroll("", 1,
+        new String[]{"name,asc"});
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(List.of(dto), response.getBody().content());
+    assertEquals("next-token", response.getBody().nextCursor());
+  }
+
+  @Test
+  void scroll_ShouldAcceptDefaultSortSplitBySpring() {
+    // Arrange
+    Sort sort = Sort.by(Sort.Direction.ASC, "name");
+    Window<FoodCategory> window = Window.from(List.of(), index -> null, false);
+    when(foodCategoryService.scroll(ScrollPosition.keyset(), sort, 20)).thenReturn(window);
+
+    // Act
+    ResponseEntity<FoodCategoryWindowDto> response = foodCategoryController.scroll("", 20,
+        new String[]{"name", "asc"});
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertNull(response.getBody().nextCursor());
+  }
+
+  @Test
+  void scroll_ShouldContinueFromCursorAndOmitNextCursorOnLastWindow() {
+    // Arrange
+    Sort sort = Sort.by(Sort.Direction.DESC, "name");
+    KeysetScrollPosition position = ScrollPosition.forward(Map.of("name", "Fruits", "id", 1L));
+    Window<FoodCategory> window = Window.from(List.of(), index -> position, false);
+
+    when(cursorCodec.decode("token", sort)).thenReturn(position);
+    when(foodCategoryService.scroll(position, sort, 20)).thenReturn(window);
+
+    // Act
+    ResponseEntity<FoodCategoryWindowDto> response = foodCategoryController.scroll("token", 20,
+        new String[]{"name,desc"});
+
+    // Assert
+    assertNotNull(response.getBody());
+    assertEquals(List.of(), response.getBody().content());
+    assertNull(response.getBody().nextCursor());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void export_ShouldWriteOneCompactJsonObjectPerLine() throws Exception {
+    // Arrange
+    FoodCategory fruits = new FoodCategory(1L, null, "Fruits", null, false, null, null, 0L);
+    FoodCategory apples = new FoodCategory(2L, 1L, "Apples", null, true, null, null, 0L);
+    when(mapper.toDto(fruits)).thenReturn(
+        new FoodCategoryDto(1L, null, "Fruits", null, false, null, null, 0L));
+    when(mapper.toDto(apples)).thenReturn(
+        new FoodCategoryDto(2L, 1L, "Apples", null, true, null, null, 0L));
+    when(foodCategoryService.exportAll(any())).thenAnswer(invocation -> {
+      Consumer<FoodCategory> consumer = invocation.getArgument(0);
+      consumer.accept(fruits);
+      consumer.accept(apples);
+      return 2L;
+    });
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // Act
+    foodCategoryController.export(response);
+
+    // Assert
+    assertEquals("application/x-ndjson", response.getContentType().split(";")[0]);
+    String[] lines = response.getContentAsString().split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+    assertEquals("Apples", objectMapper.readTree(lines[1]).get("name").asText());
+  }
+
+  @Test
+  void getCategoryTree_ShouldReturnPreRenderedJsonWithEtag() {
+    // Arrange
+    when(treeRenderer.getTree()).thenReturn(renderedTree());
+
+    // Act
+    ResponseEntity<byte[]> response = foodCategoryController.getCategoryTree(null, null);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"tree-7\"", response.getHeaders().getETag());
+    assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertArrayEquals(TREE_JSON, response.getBody());
+  }
+
+  @Test
+  void getCategoryTree_ShouldReturnGzipWhenAccepted() {
+    // Arrange
+    when(treeRenderer.getTree()).thenReturn(renderedTree());
+
+    // Act
+    ResponseEntity<byte[]> response =
+        foodCategoryController.getCategoryTree(null, "br, gzip;q=0.8");
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("\"tree-7-gzip\"", response.getHeaders().getETag());
+    assertArrayEquals(TREE_GZIP, response.getBody());
+  }
+
+  @Test
+  void getCategoryTree_ShouldReturnNotModifiedWhenEtagMatches() {
+    // Arrange
+    when(treeRenderer.getTree()).thenReturn(renderedTree());
+
+    // Act
+    ResponseEntity<byte[]> response =
+        foodCategoryController.getCategoryTree("\"tree-6\", W/\"tree-7\"", "gzip;q=0");
+
+    // Assert
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertNull(response.getBody());
+    verifyNoInteractions(foodCategoryService);
+    assertMaxInvocations(1, treeRenderer);
+  }
+
+  @Test
+  void getAllMinimal_ShouldReturnCompactJsonWithEtag() throws Exception {
+    // Arrange
+    when(changeLog.catalogVersion()).thenReturn(42L);
+    when(foodCategoryService.findAllMinimal()).thenReturn(List.of(
+        new FoodCategoryMinimalDto(1L, null, "Сыры"),
+        new FoodCategoryMinimalDto(2L, 1L, "Твердые")));
+
+    // Act
+    ResponseEntity<byte[]> response = foodCategoryController.getAllMinimal(null);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"minimal-42\"", response.getHeaders().getETag());
+    assertEquals(
+        "[{\"id\":1,\"name\":\"Сыры\"},{\"id\":2,\"parentId\":1,\"name\":\"Твердые\"}]",
+        new String(response.getBody(), StandardCharsets.UTF_8));
+    assertMaxInvocations(1, foodCategoryService);
+  }
+
+  @Test
+  void getAllMinimal_ShouldReturnNotModifiedWithoutLoadingWhenEtagMatches() throws Exception {
+    // Arrange
+    when(changeLog.catalogVersion()).thenReturn(42L);
+
+    // Act
+    ResponseEntity<byte[]> response = foodCategoryController.getAllMinimal("\"minimal-42\"");
+
+    // Assert
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertEquals("\"minimal-42\"", response.getHeaders().getETag());
+    assertNull(response.getBody());
+    verifyNoInteractions(foodCategoryService);
+  }
+
+  @Test
+  void getAllMinimal_ShouldReturnCategoriesWhenCatalogVersionChanged() throws Exception {
+    // Arrange
+    when(changeLog.catalogVersion()).thenReturn(43L);
+    when(foodCategoryService.findAllMinimal())
+        .thenReturn(List.of(new FoodCategoryMinimalDto(1L, null, "Сыры")));
+
+    // Act
+    ResponseEntity<byte[]> response = foodCategoryController.getAllMinimal("\"minimal-42\"");
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"minimal-43\"", response.getHeaders().getETag());
+    assertNotNull(response.getBody());
+  }
+
+  @Test
+  void search_ShouldReturnCategoriesFromIndex() {
+    // Arrange
+    List<FoodCategoryMinimalDto> found = List.of(new FoodCategoryMinimalDto(3L, "Сыры"));
+    when(searchIndex.search("сы", 5)).thenReturn(found);
+
+    // Act
+    ResponseEntity<List<FoodCategoryMinimalDto>> response =
+        foodCategoryController.search("сы", 5);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(found, response.getBody());
+    verifyNoInteractions(foodCategoryService);
+  }
+
+  @Test
+  void classify_ShouldUseDefaultLimit() {
+    // Arrange
+    FoodCategoryClassifyRequest request = new FoodCategoryClassifyRequest(
+        List.of("smoked cheddar 200g"), null);
+    List<FoodCategoryClassificationDto> results = List.of(new FoodCategoryClassificationDto(
+        "smoked cheddar 200g", List.of(new FoodCategoryMatchDto(3L, "Чеддер", 0.9))));
+    when(classificationService.classify(request.texts(), 3)).thenReturn(results);
+
+    // Act
+    ResponseEntity<List<FoodCategoryClassificationDto>> response =
+        foodCategoryController.classify(request);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(results, response.getBody());
+  }
+
+  @Test
+  void getByIds_ShouldKeepRequestOrderAndReportMissingIds() {
     // Arrange
-    FoodCategoryTreeDto treeDto = new FoodCategoryTreeDto(1L, "Fruits", null, false, List.of(),
+    FoodCategory second = new FoodCategory();
+    second.setId(2L);
+    FoodCategory first = new FoodCategory();
+    first.setId(1L);
+    FoodCategoryDto secondDto =
+        new FoodCategoryDto(2L, null, "Фрукты", null, false, null, null, 0L);
+    FoodCategoryDto firstDto = new FoodCategoryDto(1L, null, "Овощи", null, false, null, null, 0L);
+    Map<Long, FoodCategory> found = new LinkedHashMap<>();
+    found.put(2L, second);
+    found.put(1L, first);
+    List<Long> ids = List.of(2L, 99L, 1L, 99L);
+    when(foodCategoryService.findAllByIds(ids)).thenReturn(found);
+    when(mapper.toDto(second)).thenReturn(secondDto);
+    when(mapper.toDto(first)).thenReturn(firstDto);
+
+    // Act
+    ResponseEntity<FoodCategoryBatchResponse> response = foodCategoryController.getByIds(ids);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(List.of(secondDto, firstDto), response.getBody().categories());
+    assertEquals(List.of(99L), response.getBody().missingIds());
+    assertMaxInvocations(1, foodCategoryService);
+  }
+
+  @Test
+  void getSubtree_ShouldReturnBranch() {
+    // Arrange
+    Long id = 1L;
+    FoodCategoryTreeDto subtree = new FoodCategoryTreeDto(id, "Dairy", null, false, List.of(),
         null);
 
-    when(foodCategoryService.getCategoryTree()).thenReturn(List.of(treeDto));
+    when(foodCategoryService.getSubtree(id, 2)).thenReturn(subtree);
+
+    // Act
+    ResponseEntity<FoodCategoryTreeDto> response = foodCategoryController.getSubtree(id, 2);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(subtree, response.getBody());
+
+    verify(foodCategoryService).getSubtree(id, 2);
+  }
+
+  @Test
+  void getChanges_ShouldReturnCurrentTokenWithoutSince() {
+    // Arrange
+    when(changeLog.currentToken()).thenReturn("42-0");
+
+    // Act
+    ResponseEntity<FoodCategoryChangesResponse> response =
+        foodCategoryController.getChanges(null, 1000);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(new FoodCategoryChangesResponse(List.of(), List.of(), "42-0", false),
+        response.getBody());
+  }
+
+  @Test
+  void getChanges_ShouldReturnUpsertsAndTombstonesSinceToken() {
+    // Arrange
+    FoodCategory category = new FoodCategory(2L, null, "Cheese", null, false, null, null, 3L);
+    FoodCategoryDto dto = new FoodCategoryDto(2L, null, "Cheese", null, false, null, null, 3L);
+    when(changeLog.changesSince("40-0", 100))
+        .thenReturn(new Changes(List.of(category), List.of(7L), "42-7", true));
+    when(mapper.toDto(category)).thenReturn(dto);
+
+    // Act
+    ResponseEntity<FoodCategoryChangesResponse> response =
+        foodCategoryController.getChanges("40-0", 100);
+
+    // Assert
+    assertEquals(new FoodCategoryChangesResponse(List.of(dto), List.of(7L), "42-7", true),
+        response.getBody());
+  }
+
+  @Test
+  void stream_ShouldSubscribeToEventStream() {
+    // Arrange
+    SseEmitter emitter = new SseEmitter();
+    when(eventStream.subscribe()).thenReturn(emitter);
+
+    // Act
+    SseEmitter response = foodCategoryController.stream();
+
+    // Assert
+    assertSame(emitter, response);
+  }
+
+  @Test
+  void getCategoryTree_ShouldReturnDepthLimitedTree() {
+    // Arrange
+    List<FoodCategoryTreeDto> tree = List.of(
+        new FoodCategoryTreeDto(1L, "Dairy", null, false, List.of(), null, 3));
+    when(foodCategoryService.getCategoryTree(0)).thenReturn(tree);
+
+    // Act
+    ResponseEntity<List<FoodCategoryTreeDto>> response = foodCategoryController.getCategoryTree(0);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(tree, response.getBody());
+    verifyNoInteractions(treeRenderer);
+  }
+
+  @Test
+  void getChildren_ShouldReturnWindowOfChildrenWithNextCursor() {
+    // Arrange
+    Sort sort = Sort.by(Sort.Direction.ASC, "name");
+    FoodCategoryTreeDto child =
+        new FoodCategoryTreeDto(2L, "Cheese", null, false, List.of(), null, 4);
+    KeysetScrollPosition last = ScrollPosition.forward(Map.of("name", "Cheese", "id", 2L));
+    Window<FoodCategoryTreeDto> window = Window.from(List.of(child), index -> last, true);
+
+    when(foodCategoryService.scrollChildren(1L, ScrollPosition.keyset(), sort, 1))
+        .thenReturn(window);
+    when(cursorCodec.encode(sort, last)).thenReturn("next-token");
 
     // Act
-    ResponseEntity<List<FoodCategoryTreeDto>> response =
-        foodCategoryController.getCategoryTree();
+    ResponseEntity<FoodCategoryTreeWindowDto> response = foodCategoryController.getChildren(1L,
+        "", 1, new String[]{"name,asc"});
 
     // Assert
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertNotNull(response.getBody());
-    assertEquals(1, response.getBody().size());
-    assertEquals(treeDto, response.getBody().get(0));
+    assertEquals(List.of(child), response.getBody().content());
+    assertEquals("next-token", response.getBody().nextCursor());
+  }
+
+  @Test
+  void getAncestors_ShouldReturnPathsForRequestedIds() {
+    // Arrange
+    FoodCategoryIdsRequest request = new FoodCategoryIdsRequest(List.of(2L, 99L));
+    FoodCategoryAncestorsResponse paths = new FoodCategoryAncestorsResponse(
+        List.of(new FoodCategoryPathDto(2L, List.of(
+            new FoodCategoryMinimalDto(1L, "Dairy"),
+            new FoodCategoryMinimalDto(2L, "Cheese")))),
+        List.of(99L));
 
-    verify(foodCategoryService).getCategoryTree();
+    when(foodCategoryService.findPaths(request.ids())).thenReturn(paths);
+
+    // Act
+    ResponseEntity<FoodCategoryAncestorsResponse> response =
+        foodCategoryController.getAncestors(request);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(paths, response.getBody());
+
+    verify(foodCategoryService).findPaths(List.of(2L, 99L));
+    assertMaxInvocations(1, foodCategoryService);
+  }
+
+  @Test
+  void getContainment_ShouldReturnContainingBranches() {
+    // Arrange
+    FoodCategoryContainmentRequest request =
+        new FoodCategoryContainmentRequest(List.of(3L, 99L), List.of(1L, 2L));
+    FoodCategoryContainmentResponse containment = new FoodCategoryContainmentResponse(
+        List.of(new FoodCategoryContainmentDto(3L, List.of(1L))), List.of(99L));
+
+    when(foodCategoryService.findContainment(request.ids(), request.ancestorIds()))
+        .thenReturn(containment);
+
+    // Act
+    ResponseEntity<FoodCategoryContainmentResponse> response =
+        foodCategoryController.getContainment(request);
+
+    // Assert
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(containment, response.getBody());
+    assertMaxInvocations(1, foodCategoryService);
   }
 
   @Test
@@ -139,33 +619,68 @@ class FoodCategoryControllerTest {
     // Arrange
     Long id = 1L;
     FoodCategoryRequest request = new FoodCategoryRequest(null, "Updated", "Desc", true);
-    FoodCategory updatedCategory = new FoodCategory(id, null, "Updated", "Desc", true, null, null);
-    FoodCategoryDto dto = new FoodCategoryDto(id, null, "Updated", "Desc", true, null, null);
+    FoodCategory updatedCategory =
+        new FoodCategory(id, null, "Updated", "Desc", true, null, null, 1L);
+    FoodCategoryDto dto = new FoodCategoryDto(id, null, "Updated", "Desc", true, null, null, 1L);
 
-    when(foodCategoryService.update(id, request)).thenReturn(updatedCategory);
+    when(foodCategoryService.update(id, request, 0L)).thenReturn(updatedCategory);
     when(mapper.toDto(updatedCategory)).thenReturn(dto);
 
     // Act
-    ResponseEntity<FoodCategoryDto> response = foodCategoryController.update(id, request);
+    ResponseEntity<FoodCategoryDto> response =
+        foodCategoryController.update(id, "\"0\"", request);
 
     // Assert
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(dto, response.getBody());
+    assertEquals("\"1\"", response.getHeaders().getETag());
 
-    verify(foodCategoryService).update(id, request);
+    verify(foodCategoryService).update(id, request, 0L);
     verify(mapper).toDto(updatedCategory);
   }
 
+  @Test
+  void patch_ShouldPassOnlyChangedFieldsAndExpectedVersion() {
+    // Arrange
+    FoodCategoryPatchRequest request = FoodCategoryPatchRequest.builder()
+        .name(Optional.of("Сыры"))
+        .build();
+    FoodCategory patched = new FoodCategory(1L, 2L, "Сыры", null, false, null, null, 4L);
+    FoodCategoryDto dto = new FoodCategoryDto(1L, 2L, "Сыры", null, false, null, null, 4L);
+    when(foodCategoryService.patch(1L, request, 3L)).thenReturn(patched);
+    when(mapper.toDto(patched)).thenReturn(dto);
+
+    // Act
+    ResponseEntity<FoodCategoryDto> response = foodCategoryController.patch(1L, "\"3\"", request);
+
+    // Assert
+    assertEquals(dto, response.getBody());
+    assertEquals("\"4\"", response.getHeaders().getETag());
+    assertMaxInvocations(1, foodCategoryService);
+  }
+
+  @Test
+  void parseIfMatch_ShouldAcceptOnlyStrongVersionEtag() {
+    // Act & Assert
+    assertNull(FoodCategoryController.parseIfMatch(null));
+    assertNull(FoodCategoryController.parseIfMatch(" * "));
+    assertEquals(7L, FoodCategoryController.parseIfMatch("\"7\""));
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> FoodCategoryController.parseIfMatch("W/\"7\""));
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> FoodCategoryController.parseIfMatch("\"1\", \"2\""));
+  }
+
   @Test
   void delete_ShouldInvokeServiceDelete() {
     // Arrange
     Long id = 1L;
 
     // Act
-    foodCategoryController.delete(id);
+    foodCategoryController.delete(id, true);
 
     // Assert
-    verify(foodCategoryService).delete(id);
+    verify(foodCategoryService).delete(id, true);
   }
 
   @Test
@@ -182,4 +697,17 @@ class FoodCategoryControllerTest {
     assertEquals(Sort.Direction.ASC, resultAsc.getOrderFor("name").getDirection());
     assertEquals(Sort.Direction.DESC, resultDesc.getOrderFor("name").getDirection());
   }
-}
\ No newline at end of file
+
+  @Test
+  void getSorting_ShouldAcceptDefaultValueSplitByComma() {
+    // Act
+    Sort result = FoodCategoryController.getSorting(new String[]{"name", "desc"});
+
+    // Assert
+    assertEquals(Sort.Direction.DESC, result.getOrderFor("name").getDirection());
+  }
+
+  private RenderedTree renderedTree() {
+    return new RenderedTree(7L, "\"tree-7\"", TREE_JSON, TREE_GZIP);
+  }
+}
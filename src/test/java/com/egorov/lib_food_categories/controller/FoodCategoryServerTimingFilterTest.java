@@ -0,0 +1,95 @@
+package com.egorov.lib_food_categories.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.egorov.lib_food_categories.util.FoodCategorySqlStatementListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class FoodCategoryServerTimingFilterTest {
+
+  private final FoodCategoryServerTimingFilter filter = new FoodCategoryServerTimingFilter();
+
+  @Test
+  void doFilter_ShouldReportStatementsExecutedBeforeBodyIsWritten() throws Exception {
+    // Arrange
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+      @Override
+      protected void doGet(HttpServletRequest request, HttpServletResponse response)
+          throws IOException {
+        executeStatements(2);
+        response.getOutputStream().write("[]".getBytes(StandardCharsets.UTF_8));
+        response.flushBuffer();
+        executeStatements(1);
+      }
+    });
+
+    // Act
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/food-categories/1"), response, chain);
+
+    // Assert
+    String serverTiming = response.getHeader(FoodCategoryServerTimingFilter.SERVER_TIMING);
+    assertNotNull(serverTiming);
+    assertTrue(serverTiming.matches("db;dur=\\d+\\.\\d{3};desc=\"2 statements\", "
+        + "app;dur=\\d+\\.\\d{3}"), serverTiming);
+    assertEquals("[]", response.getContentAsString());
+  }
+
+  @Test
+  void doFilter_ShouldAddHeaderToResponseWithoutBody() throws Exception {
+    // Arrange
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+      @Override
+      protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      }
+    });
+
+    // Act
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/food-categories/tree"), response,
+        chain);
+
+    // Assert
+    assertTrue(response.getHeader(FoodCategoryServerTimingFilter.SERVER_TIMING)
+        .contains("desc=\"0 statements\""));
+  }
+
+  @Test
+  void doFilter_ShouldNotCountStatementsOutsideRequest() throws Exception {
+    // Arrange
+    executeStatements(5);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+      @Override
+      protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+        executeStatements(1);
+      }
+    });
+
+    // Act
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/food-categories"), response, chain);
+
+    // Assert
+    assertTrue(response.getHeader(FoodCategoryServerTimingFilter.SERVER_TIMING)
+        .contains("desc=\"1 statements\""));
+  }
+
+  private static void executeStatements(int count) {
+    FoodCategorySqlStatementListener listener = new FoodCategorySqlStatementListener();
+    for (int i = 0; i < count; i++) {
+      listener.jdbcExecuteStatementStart();
+      listener.jdbcExecuteStatementEnd();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+/**
+ * Тесты для {@link FoodCategoryCacheInvalidator}.
+ *
+ * @author i.egorov
+ */
+class FoodCategoryCacheInvalidatorTest {
+
+  private final ConcurrentMapCacheManager cacheManager =
+      new ConcurrentMapCacheManager("foodCategories");
+
+  private final FoodCategoryCacheInvalidator invalidator =
+      new FoodCategoryCacheInvalidator(cacheManager);
+
+  private final List<FoodCategory> categories = List.of(
+      category(1L, null, "Молочные продукты"),
+      category(2L, null, "Овощи"),
+      category(3L, 1L, "Сыры"),
+      category(4L, 3L, "Чеддер"),
+      category(5L, 2L, "Морковь")
+  );
+
+  @BeforeEach
+  void setUp() {
+    categories.forEach(category -> cache("foodCategories").put(category.getId(), category));
+  }
+
+  @Test
+  void onChanged_ShouldEvictOnlyMovedCategoryAndBothParents() {
+    // Arrange
+    FoodCategory moved = category(3L, 2L, "Сыры");
+
+    // Act
+    invalidator.onChanged(FoodCategoryChangedEvent.updated(moved, 1L));
+
+    // Assert
+    assertNull(cache("foodCategories").get(1L));
+    assertNull(cache("foodCategories").get(2L));
+    assertNull(cache("foodCategories").get(3L));
+    assertNotNull(cache("foodCategories").get(4L));
+    assertNotNull(cache("foodCategories").get(5L));
+  }
+
+  @Test
+  void onChanged_ShouldEvictDeletedSubtree() {
+    // Act
+    invalidator.onChanged(FoodCategoryChangedEvent.deleted(categories.get(2), Set.of(3L, 4L)));
+
+    // Assert
+    assertNull(cache("foodCategories").get(1L));
+    assertNull(cache("foodCategories").get(3L));
+    assertNull(cache("foodCategories").get(4L));
+    assertNotNull(cache("foodCategories").get(2L));
+    assertNotNull(cache("foodCategories").get(5L));
+  }
+
+  @Test
+  void onChanged_ShouldKeepCategoriesAfterImport() {
+    // Act
+    invalidator.onChanged(FoodCategoryChangedEvent.imported(Set.of(10L, 11L)));
+
+    // Assert
+    assertNotNull(cache("foodCategories").get(1L));
+  }
+
+  @Test
+  void onChanged_ShouldClearEverythingOnReset() {
+    // Act
+    invalidator.onChanged(FoodCategoryChangedEvent.reset());
+
+    // Assert
+    assertNull(cache("foodCategories").get(1L));
+  }
+
+  private Cache cache(String name) {
+    return cacheManager.getCache(name);
+  }
+
+  private FoodCategory category(Long id, Long parentId, String name) {
+    return FoodCategory.builder()
+        .id(id)
+        .parentId(parentId)
+        .name(name)
+        .isFinal(false)
+        .build();
+  }
+}
@@ -0,0 +1,104 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Проверка доставки изменений между двумя узлами через настоящий PostgreSQL. Запускается только
+ * явно: {@code mvn test -Dtest=FoodCategoryCacheSyncPostgresTest
+ * -Dpostgres.url=jdbc:postgresql://localhost:5432/pantree-product} (пользователь и пароль
+ * задаются свойствами {@code postgres.user} и {@code postgres.password}).
+ *
+ * @author i.egorov
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+class FoodCategoryCacheSyncPostgresTest {
+
+  private static final String CHANNEL = "food_category_changes_test";
+
+  private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+      System.getProperty("postgres.url"), System.getProperty("postgres.user", "pantree"),
+      System.getProperty("postgres.password", "pantree"));
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+  private final TransactionTemplate transactionTemplate =
+      new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  private final ApplicationEventPublisher receiverEvents = mock(ApplicationEventPublisher.class);
+
+  private FoodCategoryChangeLog changeLog;
+  private FoodCategoryCacheSync sender;
+  private FoodCategoryCacheSync receiver;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    ObjectMapper objectMapper = new ObjectMapper();
+    changeLog = new FoodCategoryChangeLog(jdbcTemplate, mock(FoodCategoryRepository.class));
+    sender = new FoodCategoryCacheSync(dataSource, jdbcTemplate, objectMapper,
+        mock(FoodCategoryRepository.class), mock(FoodCategoryHierarchyCache.class),
+        mock(ApplicationEventPublisher.class), CHANNEL);
+    receiver = new FoodCategoryCacheSync(dataSource, jdbcTemplate, objectMapper,
+        mock(FoodCategoryRepository.class), mock(FoodCategoryHierarchyCache.class),
+        receiverEvents, CHANNEL);
+    receiver.start();
+    for (int attempt = 0; attempt < 100 && receiver.lastVersion() < 0; attempt++) {
+      Thread.sleep(50);
+    }
+    assertTrue(receiver.lastVersion() >= 0, "Receiver did not start listening");
+  }
+
+  @AfterEach
+  void tearDown() {
+    receiver.stop();
+  }
+
+  @Test
+  void onChanged_ShouldDeliverOnlyCommittedChangesToOtherNode() {
+    // Arrange
+    FoodCategory rolledBack = new FoodCategory();
+    rolledBack.setId(-1L);
+    FoodCategory committed = new FoodCategory();
+    committed.setId(-2L);
+    committed.setParentId(-3L);
+
+    // Act
+    transactionTemplate.executeWithoutResult(status -> {
+      publish(FoodCategoryChangedEvent.deleted(rolledBack, Set.of(-1L)));
+      status.setRollbackOnly();
+    });
+    transactionTemplate.executeWithoutResult(status ->
+        publish(FoodCategoryChangedEvent.deleted(committed, Set.of(-2L, -4L))));
+
+    // Assert
+    verify(receiverEvents, timeout(5000)).publishEvent(
+        FoodCategoryChangedEvent.deleted(committed, Set.of(-2L, -4L)));
+    verify(receiverEvents, timeout(500).times(1)).publishEvent(any(FoodCategoryChangedEvent.class));
+  }
+
+  /**
+   * Повторяет порядок слушателей BEFORE_COMMIT: сначала журнал увеличивает версию каталога,
+   * затем отправляется уведомление.
+   */
+  private void publish(FoodCategoryChangedEvent event) {
+    changeLog.onChanged(event);
+    sender.onChanged(event);
+  }
+}
@@ -0,0 +1,173 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class FoodCategoryCacheSyncTest {
+
+  private static final String CHANNEL = "food_category_changes";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Mock
+  private DataSource dataSource;
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private FoodCategoryRepository foodCategoryRepository;
+
+  @Mock
+  private FoodCategoryHierarchyCache hierarchyCache;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  private FoodCategoryCacheSync cacheSync;
+
+  @BeforeEach
+  void setUp() {
+    cacheSync = new FoodCategoryCacheSync(dataSource, jdbcTemplate, objectMapper,
+        foodCategoryRepository, hierarchyCache, eventPublisher, CHANNEL);
+  }
+
+  @Test
+  void onChanged_ShouldNotifyChannelWithChangedIds() throws Exception {
+    // Arrange
+    FoodCategory category = category(5L, 2L);
+    ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+
+    // Act
+    cacheSync.onChanged(FoodCategoryChangedEvent.updated(category, 1L));
+
+    // Assert
+    verify(jdbcTemplate).queryForObject(eq(FoodCategoryCacheSync.NOTIFY_SQL), eq(Long.class),
+        eq(CHANNEL), payload.capture());
+    JsonNode json = objectMapper.readTree(payload.getValue());
+    assertEquals("UPDATED", json.get("type").asText());
+    assertEquals(5L, json.get("id").asLong());
+    assertEquals(2L, json.get("parentId").asLong());
+    assertEquals(1L, json.get("previousParentId").asLong());
+  }
+
+  @Test
+  void payload_ShouldFallBackToResetWhenIdsDoNotFitNotification() throws Exception {
+    // Arrange
+    Set<Long> removedIds = new HashSet<>();
+    for (long id = 1_000_000; id < 1_002_000; id++) {
+      removedIds.add(id);
+    }
+
+    // Act
+    String payload = cacheSync.payload(
+        FoodCategoryChangedEvent.deleted(category(1_000_000L, null), removedIds));
+
+    // Assert
+    assertEquals("RESET", objectMapper.readTree(payload).get("type").asText());
+  }
+
+  @Test
+  void handle_ShouldReloadCategoryChangedOnOtherNode() {
+    // Arrange
+    FoodCategory category = category(5L, 2L);
+    when(foodCategoryRepository.findById(5L)).thenReturn(Optional.of(category));
+
+    // Act
+    cacheSync.handle(foreign(1, "UPDATED", 5L, 2L, 1L, "[]"));
+
+    // Assert
+    FoodCategoryChangedEvent event = new FoodCategoryChangedEvent(
+        FoodCategoryChangedEvent.Type.UPDATED, 5L, 2L, 1L, category, Set.of());
+    InOrder inOrder = inOrder(hierarchyCache, eventPublisher);
+    inOrder.verify(hierarchyCache).apply(event, 1);
+    inOrder.verify(eventPublisher).publishEvent(event);
+  }
+
+  @Test
+  void handle_ShouldEvictDescendantsDeletedOnOtherNode() {
+    // Act
+    cacheSync.handle(foreign(1, "DELETED", 5L, 2L, 2L, "[5,6,7]"));
+
+    // Assert
+    verify(eventPublisher).publishEvent(
+        new FoodCategoryChangedEvent(FoodCategoryChangedEvent.Type.DELETED, 5L, 2L, 2L, null,
+            Set.of(5L, 6L, 7L)));
+    verifyNoInteractions(foodCategoryRepository);
+  }
+
+  @Test
+  void handle_ShouldIgnoreOwnNotifications() {
+    // Arrange
+    String own = cacheSync.payload(FoodCategoryChangedEvent.updated(category(5L, null), null));
+
+    // Act
+    cacheSync.handle(own);
+
+    // Assert
+    verify(eventPublisher, never()).publishEvent(any(FoodCategoryChangedEvent.class));
+    verifyNoInteractions(foodCategoryRepository);
+  }
+
+  @Test
+  void handle_ShouldResetCachesWhenVersionIsSkipped() {
+    // Arrange
+    cacheSync.handle(foreign(7, "DELETED", 5L, null, null, "[5]"));
+
+    // Act
+    cacheSync.handle(foreign(9, "DELETED", 6L, null, null, "[6]"));
+
+    // Assert
+    verify(hierarchyCache).reset();
+    verify(eventPublisher).publishEvent(FoodCategoryChangedEvent.reset());
+  }
+
+  @Test
+  void constructor_ShouldRejectUnsafeChannelName() {
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> new FoodCategoryCacheSync(dataSource,
+        jdbcTemplate, objectMapper, foodCategoryRepository, hierarchyCache, eventPublisher,
+        "x; DROP TABLE y"));
+  }
+
+  private String foreign(long version, String type, Long id, Long parentId,
+      Long previousParentId, String affectedIds) {
+    return "{\"node\":\"other\",\"version\":" + version + ",\"type\":\"" + type + "\",\"id\":" + id
+        + ",\"parentId\":" + parentId + ",\"previousParentId\":" + previousParentId
+        + ",\"affectedIds\":" + affectedIds + "}";
+  }
+
+  private FoodCategory category(Long id, Long parentId) {
+    FoodCategory category = new FoodCategory();
+    category.setId(id);
+    category.setParentId(parentId);
+    category.setName("Сыры");
+    return category;
+  }
+}
@@ -0,0 +1,144 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.egorov.lib_food_categories.service.FoodCategoryChangeLog.Changes;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+@ExtendWith(MockitoExtension.class)
+class FoodCategoryChangeLogTest {
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private FoodCategoryRepository foodCategoryRepository;
+
+  @InjectMocks
+  private FoodCategoryChangeLog changeLog;
+
+  @Test
+  void onChanged_ShouldRecordDeletedSubtreeAsTombstones() {
+    // Arrange
+    FoodCategory category = category(5L);
+    ArgumentCaptor<String> ids = ArgumentCaptor.forClass(String.class);
+
+    // Act
+    changeLog.onChanged(FoodCategoryChangedEvent.deleted(category, Set.of(5L)));
+
+    // Assert
+    verify(jdbcTemplate).update(eq(FoodCategoryChangeLog.RECORD_SQL), eq(true), ids.capture());
+    assertEquals("{5}", ids.getValue());
+  }
+
+  @Test
+  void changedIds_ShouldCoverEveryEventType() {
+    // Act & Assert
+    assertEquals(Set.of(7L),
+        FoodCategoryChangeLog.changedIds(FoodCategoryChangedEvent.created(category(7L))));
+    assertEquals(Set.of(7L),
+        FoodCategoryChangeLog.changedIds(FoodCategoryChangedEvent.updated(category(7L), null)));
+    assertEquals(Set.of(1L, 2L),
+        FoodCategoryChangeLog.changedIds(FoodCategoryChangedEvent.imported(Set.of(1L, 2L))));
+    assertTrue(FoodCategoryChangeLog.changedIds(FoodCategoryChangedEvent.reset()).isEmpty());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void changesSince_ShouldReturnUpsertsAndTombstonesInLogOrder() {
+    // Arrange
+    when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(9L);
+    List<Object[]> rows = List.of(
+        new Object[]{3L, 6L, false},
+        new Object[]{1L, 7L, true},
+        new Object[]{2L, 8L, false});
+    when(jdbcTemplate.query(eq(FoodCategoryChangeLog.CHANGES_SQL), any(RowMapper.class),
+        eq(5L), eq(0L), eq(3))).thenAnswer(invocation -> map(invocation.getArgument(1), rows));
+    when(foodCategoryRepository.findAllById(List.of(3L))).thenReturn(List.of(category(3L)));
+
+    // Act
+    Changes changes = changeLog.changesSince("5-0", 2);
+
+    // Assert
+    assertEquals(List.of(3L), changes.upserts().stream().map(FoodCategory::getId).toList());
+    assertEquals(List.of(1L), changes.tombstones());
+    assertEquals("7-1", changes.nextToken());
+    assertTrue(changes.hasMore());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void changesSince_ShouldKeepTokenWhenNothingChanged() {
+    // Arrange
+    when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(9L);
+    when(jdbcTemplate.query(eq(FoodCategoryChangeLog.CHANGES_SQL), any(RowMapper.class),
+        eq(9L), eq(4L), eq(101))).thenReturn(List.of());
+
+    // Act
+    Changes changes = changeLog.changesSince("9-4", 100);
+
+    // Assert
+    assertTrue(changes.upserts().isEmpty());
+    assertTrue(changes.tombstones().isEmpty());
+    assertEquals("9-4", changes.nextToken());
+    assertFalse(changes.hasMore());
+    verifyNoInteractions(foodCategoryRepository);
+  }
+
+  @Test
+  void changesSince_ShouldRejectInvalidTokenAndLimit() {
+    // Arrange
+    when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(9L);
+
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class, () -> changeLog.changesSince("abc", 10));
+    assertThrows(FoodCategoryBadRequestException.class, () -> changeLog.changesSince("10-0", 10));
+    assertThrows(FoodCategoryBadRequestException.class, () -> changeLog.changesSince("1-0", 0));
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> changeLog.changesSince("1-0", FoodCategoryChangeLog.MAX_LIMIT + 1));
+  }
+
+  private static <T> List<T> map(RowMapper<T> mapper, List<Object[]> rows) throws SQLException {
+    List<T> result = new ArrayList<>();
+    for (int i = 0; i < rows.size(); i++) {
+      Object[] row = rows.get(i);
+      ResultSet resultSet = mock(ResultSet.class);
+      when(resultSet.getLong(1)).thenReturn((Long) row[0]);
+      when(resultSet.getLong(2)).thenReturn((Long) row[1]);
+      when(resultSet.getBoolean(3)).thenReturn((Boolean) row[2]);
+      result.add(mapper.mapRow(resultSet, i));
+    }
+    return result;
+  }
+
+  private static FoodCategory category(Long id) {
+    FoodCategory category = new FoodCategory();
+    category.setId(id);
+    return category;
+  }
+}
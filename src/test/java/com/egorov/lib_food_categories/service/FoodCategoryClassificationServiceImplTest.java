@@ -0,0 +1,70 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryClassificationDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.util.FoodCategoryTokenIndex;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Тесты для {@link FoodCategoryClassificationServiceImpl}.
+ *
+ * @author i.egorov
+ */
+@ExtendWith(MockitoExtension.class)
+class FoodCategoryClassificationServiceImplTest {
+
+  @Mock
+  private FoodCategoryTokenIndexCache tokenIndexCache;
+
+  @InjectMocks
+  private FoodCategoryClassificationServiceImpl classificationService;
+
+  @Test
+  void classify_ShouldKeepInputOrderForLargeParallelBatch() {
+    // Arrange
+    when(tokenIndexCache.getTokenIndex()).thenReturn(FoodCategoryTokenIndex.of(List.of(
+        category(1L, "Сыры"),
+        category(2L, "Молоко"),
+        category(3L, "Хлеб"))));
+    String[] samples = {"сыр 200 г", "молоко 3.2%", "хлеб ржаной", "шоколад"};
+    List<String> texts = new ArrayList<>();
+    for (int i = 0; i < FoodCategoryClassificationServiceImpl.PARALLEL_THRESHOLD * 4; i++) {
+      texts.add(samples[i % samples.length]);
+    }
+
+    // Act
+    List<FoodCategoryClassificationDto> results = classificationService.classify(texts, 2);
+
+    // Assert
+    assertEquals(texts.size(), results.size());
+    for (int i = 0; i < texts.size(); i++) {
+      FoodCategoryClassificationDto result = results.get(i);
+      assertEquals(texts.get(i), result.text());
+      if (i % samples.length == 3) {
+        assertEquals(List.of(), result.matches());
+      } else {
+        assertEquals(i % samples.length + 1L, result.matches().get(0).id());
+      }
+    }
+    verify(tokenIndexCache, times(1)).getTokenIndex();
+  }
+
+  private FoodCategory category(Long id, String name) {
+    return FoodCategory.builder()
+        .id(id)
+        .name(name)
+        .isFinal(false)
+        .build();
+  }
+}
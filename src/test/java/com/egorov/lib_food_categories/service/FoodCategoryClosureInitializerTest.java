@@ -0,0 +1,65 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.egorov.lib_food_categories.repository.FoodCategoryClosureRepository;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Тесты для {@link FoodCategoryClosureInitializer}.
+ *
+ * @author i.egorov
+ */
+@ExtendWith(MockitoExtension.class)
+class FoodCategoryClosureInitializerTest {
+
+  @Mock
+  private FoodCategoryRepository foodCategoryRepository;
+
+  @Mock
+  private FoodCategoryClosureRepository closureRepository;
+
+  @InjectMocks
+  private FoodCategoryClosureInitializer initializer;
+
+  @Test
+  void rebuildIfInconsistent_ShouldCheckAndRebuildUnderLock() {
+    // Arrange
+    when(foodCategoryRepository.count()).thenReturn(3L);
+    when(closureRepository.countByDepth(0)).thenReturn(1L);
+
+    // Act
+    initializer.rebuildIfInconsistent();
+
+    // Assert
+    InOrder inOrder = inOrder(foodCategoryRepository, closureRepository);
+    inOrder.verify(closureRepository).lockForRebuild();
+    inOrder.verify(foodCategoryRepository).count();
+    inOrder.verify(closureRepository).deleteAllInBatch();
+    inOrder.verify(closureRepository).rebuild();
+  }
+
+  @Test
+  void rebuildIfInconsistent_ShouldKeepConsistentTable() {
+    // Arrange
+    when(foodCategoryRepository.count()).thenReturn(3L);
+    when(closureRepository.countByDepth(0)).thenReturn(3L);
+
+    // Act
+    initializer.rebuildIfInconsistent();
+
+    // Assert
+    verify(closureRepository).lockForRebuild();
+    verify(closureRepository, never()).deleteAllInBatch();
+    verify(closureRepository, never()).rebuild();
+  }
+}
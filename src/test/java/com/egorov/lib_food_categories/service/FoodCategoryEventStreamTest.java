@@ -0,0 +1,306 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.util.FoodCategoryMapperImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Тесты для {@link FoodCategoryEventStream}.
+ *
+ * @author i.egorov
+ */
+@ExtendWith(MockitoExtension.class)
+class FoodCategoryEventStreamTest {
+
+  @Mock
+  private FoodCategoryChangeLog changeLog;
+
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  @Test
+  void subscribe_ShouldSendReadyTokenAndCommittedChanges() {
+    // Arrange
+    when(changeLog.currentToken()).thenReturn("42-0");
+    FoodCategoryEventStream stream = stream(Runnable::run, 16);
+    RecordingEmitter emitter = new RecordingEmitter();
+
+    // Act
+    stream.subscribe(emitter);
+    stream.onChanged(FoodCategoryChangedEvent.created(category(1L, "Сыры")));
+
+    // Assert
+    assertEquals("event:ready\ndata:{\"token\":\"42-0\"}\n\n", emitter.events.get(0));
+    String created = emitter.events.get(1);
+    assertTrue(created.startsWith("event:created\ndata:{\"id\":1,\"category\":{\"id\":1,"));
+    assertTrue(created.contains("\"name\":\"Сыры\""));
+    assertEquals(2, created.split("\n").length);
+  }
+
+  @Test
+  void subscribe_ShouldSendReadyBeforeChangesCommittedWhileSubscribing() {
+    // Arrange
+    FoodCategoryEventStream stream = stream(Runnable::run, 16);
+    when(changeLog.currentToken()).thenAnswer(invocation -> {
+      stream.onChanged(FoodCategoryChangedEvent.created(category(1L, "Сыры")));
+      return "42-0";
+    });
+    RecordingEmitter emitter = new RecordingEmitter();
+
+    // Act
+    stream.subscribe(emitter);
+
+    // Assert
+    assertEquals(List.of("ready", "created"), emitter.names());
+  }
+
+  @Test
+  void subscribe_ShouldNotKeepSubscriberWhenTokenCannotBeRead() {
+    // Arrange
+    when(changeLog.currentToken()).thenThrow(new IllegalStateException("Connection refused"));
+    FoodCategoryEventStream stream = stream(Runnable::run, 16);
+    RecordingEmitter emitter = new RecordingEmitter();
+
+    // Act & Assert
+    assertThrows(IllegalStateException.class, () -> stream.subscribe(emitter));
+    assertEquals(0, stream.subscriberCount());
+    assertEquals(List.of(), emitter.events);
+  }
+
+  @Test
+  void onChanged_ShouldSendDeletedIdsAndResyncOnReset() {
+    // Arrange
+    FoodCategoryEventStream stream = stream(Runnable::run, 16);
+    RecordingEmitter emitter = new RecordingEmitter();
+    stream.subscribe(emitter);
+
+    // Act
+    stream.onChanged(FoodCategoryChangedEvent.deleted(category(5L, "Сыры"), Set.of(5L)));
+    stream.onChanged(FoodCategoryChangedEvent.reset());
+
+    // Assert
+    assertEquals(List.of("ready", "deleted", "resync"), emitter.names());
+    assertEquals("event:deleted\ndata:{\"id\":5,\"affectedIds\":[5]}\n\n", emitter.events.get(1));
+    assertEquals("event:resync\ndata:{}\n\n", emitter.events.get(2));
+  }
+
+  @Test
+  void onChanged_ShouldReplaceBacklogOfSlowSubscriberWithResync() {
+    // Arrange
+    FoodCategoryEventStream stream = stream(tasks::add, 2);
+    RecordingEmitter emitter = new RecordingEmitter();
+    stream.subscribe(emitter);
+
+    // Act
+    for (long id = 1; id <= 4; id++) {
+      stream.onChanged(FoodCategoryChangedEvent.updated(category(id, "Категория " + id), null));
+    }
+    runTasks();
+
+    // Assert
+    assertEquals(List.of("ready", "resync", "updated"), emitter.names());
+    assertTrue(emitter.events.get(2).contains("\"id\":4"));
+  }
+
+  @Test
+  void onChanged_ShouldScheduleAtMostOneSendPerSubscriber() {
+    // Arrange
+    FoodCategoryEventStream stream = stream(tasks::add, 16);
+    List<RecordingEmitter> emitters = IntStream.range(0, 1000)
+        .mapToObj(i -> new RecordingEmitter())
+        .toList();
+    emitters.forEach(stream::subscribe);
+
+    // Act
+    stream.onChanged(FoodCategoryChangedEvent.created(category(1L, "Сыры")));
+    stream.onChanged(FoodCategoryChangedEvent.updated(category(1L, "Твердые сыры"), null));
+    int scheduled = tasks.size();
+    runTasks();
+
+    // Assert
+    assertEquals(1000, scheduled);
+    emitters.forEach(emitter ->
+        assertEquals(List.of("ready", "created", "updated"), emitter.names()));
+  }
+
+  @Test
+  void onChanged_ShouldDropSubscriberAfterSendFailure() {
+    // Arrange
+    FoodCategoryEventStream stream = stream(Runnable::run, 16);
+    RecordingEmitter emitter = new RecordingEmitter();
+    stream.subscribe(emitter);
+    emitter.failing = true;
+
+    // Act
+    stream.onChanged(FoodCategoryChangedEvent.created(category(1L, "Сыры")));
+    stream.onChanged(FoodCategoryChangedEvent.created(category(2L, "Йогурты")));
+
+    // Assert
+    assertEquals(0, stream.subscriberCount());
+    assertEquals(List.of("ready"), emitter.names());
+  }
+
+  @Test
+  void onChanged_ShouldDeliverToOtherSubscribersWhileOneBlocksOnSend() throws Exception {
+    // Arrange
+    ThreadPoolExecutor senders = FoodCategoryEventStream.senders(2, 16);
+    FoodCategoryEventStream stream = stream(senders, 16);
+    BlockingEmitter blocked = new BlockingEmitter();
+    RecordingEmitter emitter = new RecordingEmitter();
+    stream.subscribe(blocked);
+    assertTrue(blocked.sending.await(5, TimeUnit.SECONDS));
+    stream.subscribe(emitter);
+
+    // Act
+    stream.onChanged(FoodCategoryChangedEvent.created(category(1L, "Сыры")));
+
+    // Assert
+    try {
+      awaitEvents(emitter, 2);
+      assertEquals(List.of("ready", "created"), emitter.names());
+      assertEquals(2, stream.subscriberCount());
+    } finally {
+      blocked.release.countDown();
+      senders.shutdown();
+    }
+  }
+
+  @Test
+  void subscribe_ShouldDropSubscriberWhenSendersAreSaturated() throws Exception {
+    // Arrange
+    ThreadPoolExecutor senders = FoodCategoryEventStream.senders(1, 1);
+    FoodCategoryEventStream stream = stream(senders, 16);
+    BlockingEmitter blocked = new BlockingEmitter();
+    stream.subscribe(blocked);
+    assertTrue(blocked.sending.await(5, TimeUnit.SECONDS));
+
+    // Act
+    stream.subscribe(new RecordingEmitter());
+    stream.subscribe(new RecordingEmitter());
+
+    // Assert
+    try {
+      assertEquals(2, stream.subscriberCount());
+      assertEquals(1, senders.getQueue().size());
+    } finally {
+      blocked.release.countDown();
+      senders.shutdown();
+    }
+  }
+
+  @Test
+  void sendHeartbeats_ShouldPingIdleSubscribers() {
+    // Arrange
+    FoodCategoryEventStream stream = stream(tasks::add, 16);
+    RecordingEmitter emitter = new RecordingEmitter();
+    stream.subscribe(emitter);
+    runTasks();
+
+    // Act
+    stream.sendHeartbeats();
+    runTasks();
+
+    // Assert
+    assertEquals(List.of("event:ready", ":heartbeat"), emitter.events.stream()
+        .map(event -> event.substring(0, event.indexOf('\n')))
+        .toList());
+  }
+
+  private FoodCategoryEventStream stream(Executor executor, int bufferSize) {
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .enable(SerializationFeature.INDENT_OUTPUT);
+    return new FoodCategoryEventStream(new FoodCategoryMapperImpl(), changeLog, objectMapper,
+        executor, bufferSize, Duration.ofMinutes(30), Duration.ofSeconds(30));
+  }
+
+  private static void awaitEvents(RecordingEmitter emitter, int count)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (emitter.events.size() < count && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+
+  private void runTasks() {
+    while (!tasks.isEmpty()) {
+      List<Runnable> batch = new ArrayList<>(tasks);
+      tasks.clear();
+      batch.forEach(Runnable::run);
+    }
+  }
+
+  private static FoodCategory category(Long id, String name) {
+    return FoodCategory.builder()
+        .id(id)
+        .name(name)
+        .isFinal(false)
+        .build();
+  }
+
+  /**
+   * Соединение, запоминающее отправленные события вместо записи в ответ.
+   */
+  private static final class RecordingEmitter extends SseEmitter {
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private boolean failing;
+
+    @Override
+    public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+      if (failing) {
+        throw new IOException("Broken pipe");
+      }
+      events.add(items.stream()
+          .map(item -> String.valueOf(item.getData()))
+          .collect(Collectors.joining()));
+    }
+
+    private List<String> names() {
+      return events.stream()
+          .map(event -> event.substring("event:".length(), event.indexOf('\n')))
+          .toList();
+    }
+  }
+
+  /**
+   * Соединение клиента, переставшего читать ответ: отправка блокируется до освобождения.
+   */
+  private static final class BlockingEmitter extends SseEmitter {
+
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public void send(Set<DataWithMediaType> items) throws IOException {
+      sending.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository.HierarchyRow;
+import com.egorov.lib_food_categories.util.FoodCategoryHierarchy;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Тесты для {@link FoodCategoryHierarchyCache}.
+ *
+ * @author i.egorov
+ */
+@ExtendWith(MockitoExtension.class)
+class FoodCategoryHierarchyCacheTest {
+
+  @Mock
+  private FoodCategoryRepository foodCategoryRepository;
+
+  private FoodCategoryHierarchyCache hierarchyCache;
+
+  @BeforeEach
+  void setUp() {
+    hierarchyCache = new FoodCategoryHierarchyCache(foodCategoryRepository,
+        TransactionOperations.withoutTransaction());
+  }
+
+  @Test
+  void getHierarchy_ShouldBuildSnapshotFromSingleStream() {
+    // Arrange
+    when(foodCategoryRepository.streamHierarchy()).thenReturn(LongStream.rangeClosed(1, 2500)
+        .mapToObj(id -> row(7L, id, id == 1 ? null : 1L, "Категория " + id)));
+
+    // Act
+    FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+
+    // Assert
+    assertEquals(2500, hierarchy.size());
+    assertEquals(2499, hierarchy.children(1L).orElseThrow().size());
+    assertEquals(7L, hierarchy.catalogVersion());
+  }
+
+  @Test
+  void getHierarchy_ShouldKeepCatalogVersionOfEmptyCatalog() {
+    // Arrange
+    when(foodCategoryRepository.streamHierarchy()).thenReturn(Stream.of(row(3L, null, null, null)));
+
+    // Act
+    FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+
+    // Assert
+    assertEquals(0, hierarchy.size());
+    assertEquals(3L, hierarchy.catalogVersion());
+  }
+
+  @Test
+  void getHierarchy_ShouldReloadSnapshotOlderThanChangeCommittedDuringLoad() throws Exception {
+    // Arrange
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch committed = new CountDownLatch(1);
+    when(foodCategoryRepository.streamHierarchy())
+        .thenAnswer(invocation -> {
+          loading.countDown();
+          assertTrue(committed.await(5, TimeUnit.SECONDS));
+          return Stream.of(row(7L, 1L, null, "Фрукты"));
+        })
+        .thenReturn(Stream.of(row(8L, 1L, null, "Овощи")));
+    CompletableFuture<FoodCategoryHierarchy> inFlight =
+        CompletableFuture.supplyAsync(hierarchyCache::getHierarchy);
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+    // Act
+    hierarchyCache.apply(FoodCategoryChangedEvent.updated(
+        FoodCategory.builder().id(1L).name("Овощи").build(), null), 8);
+    committed.countDown();
+    FoodCategoryHierarchy stale = inFlight.get(5, TimeUnit.SECONDS);
+    FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+
+    // Assert
+    assertEquals(7L, stale.catalogVersion());
+    assertEquals(8L, hierarchy.catalogVersion());
+    assertEquals("Овощи", hierarchy.subtree(1L, 0).orElseThrow().name());
+    assertSame(hierarchy, hierarchyCache.getHierarchy());
+    verify(foodCategoryRepository, times(2)).streamHierarchy();
+  }
+
+  @Test
+  void getHierarchy_ShouldNotKeepSnapshotLoadedBeforeReset() throws Exception {
+    // Arrange
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch resetDone = new CountDownLatch(1);
+    when(foodCategoryRepository.streamHierarchy())
+        .thenAnswer(invocation -> {
+          loading.countDown();
+          assertTrue(resetDone.await(5, TimeUnit.SECONDS));
+          return Stream.of(row(7L, 1L, null, "Фрукты"));
+        })
+        .thenReturn(Stream.of(row(7L, 1L, null, "Овощи")));
+    CompletableFuture<FoodCategoryHierarchy> inFlight =
+        CompletableFuture.supplyAsync(hierarchyCache::getHierarchy);
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+    // Act
+    hierarchyCache.reset();
+    resetDone.countDown();
+    inFlight.get(5, TimeUnit.SECONDS);
+    FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+
+    // Assert
+    assertEquals("Овощи", hierarchy.subtree(1L, 0).orElseThrow().name());
+    verify(foodCategoryRepository, times(2)).streamHierarchy();
+  }
+
+  @Test
+  void apply_ShouldPatchSnapshotOfPreviousVersionWithoutReload() {
+    // Arrange
+    when(foodCategoryRepository.streamHierarchy()).thenReturn(Stream.of(
+        row(7L, 1L, null, "Молочные продукты"), row(7L, 2L, 1L, "Сыры"),
+        row(7L, 3L, 2L, "Чеддер")));
+    FoodCategoryHierarchy loaded = hierarchyCache.getHierarchy();
+
+    // Act
+    hierarchyCache.apply(FoodCategoryChangedEvent.updated(
+        FoodCategory.builder().id(2L).parentId(1L).name("Твердые сыры").build(), 1L), 8);
+    hierarchyCache.apply(FoodCategoryChangedEvent.created(
+        FoodCategory.builder().id(4L).parentId(1L).name("Йогурты").build()), 9);
+    hierarchyCache.apply(FoodCategoryChangedEvent.deleted(
+        FoodCategory.builder().id(3L).parentId(2L).build(), Set.of(3L)), 10);
+    FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+
+    // Assert
+    assertEquals(10L, hierarchy.catalogVersion());
+    assertEquals("Твердые сыры", hierarchy.subtree(2L, 0).orElseThrow().name());
+    assertEquals(List.of(2L, 4L), hierarchy.children(1L).orElseThrow().stream()
+        .map(FoodCategoryMinimalDto::id).toList());
+    assertFalse(hierarchy.contains(3L));
+    assertEquals("Сыры", loaded.subtree(2L, 0).orElseThrow().name());
+    verify(foodCategoryRepository, times(1)).streamHierarchy();
+  }
+
+  @Test
+  void apply_ShouldReloadSnapshotAfterImport() {
+    // Arrange
+    when(foodCategoryRepository.streamHierarchy())
+        .thenReturn(Stream.of(row(7L, 1L, null, "Молочные продукты")))
+        .thenReturn(Stream.of(row(8L, 1L, null, "Молочные продукты"), row(8L, 2L, 1L, "Сыры")));
+    hierarchyCache.getHierarchy();
+
+    // Act
+    hierarchyCache.apply(FoodCategoryChangedEvent.imported(Set.of(2L)), 8);
+    FoodCategoryHierarchy hierarchy = hierarchyCache.getHierarchy();
+
+    // Assert
+    assertEquals(8L, hierarchy.catalogVersion());
+    assertTrue(hierarchy.contains(2L));
+    verify(foodCategoryRepository, times(2)).streamHierarchy();
+  }
+
+  static HierarchyRow row(long catalogVersion, Long id, Long parentId, String name) {
+    return new HierarchyRow() {
+      @Override
+      public long getCatalogVersion() {
+        return catalogVersion;
+      }
+
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public Long getParentId() {
+        return parentId;
+      }
+
+      @Override
+      public String getName() {
+        return name;
+      }
+
+      @Override
+      public String getDescription() {
+        return null;
+      }
+
+      @Override
+      public Boolean getIsFinal() {
+        return false;
+      }
+
+      @Override
+      public Instant getCreatedAt() {
+        return id == null ? null : Instant.ofEpochSecond(1_700_000_000L + id);
+      }
+    };
+  }
+}
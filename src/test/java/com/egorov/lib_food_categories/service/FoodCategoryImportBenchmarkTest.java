@@ -0,0 +1,80 @@
+package com.egorov.lib_food_categories.service;
+
+import com.egorov.lib_food_categories.dto.request.FoodCategoryImportItem;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Сравнение скорости создания категорий по одной и пакетным импортом. Требует локальную базу
+ * данных профиля test, поэтому запускается только явно:
+ * {@code mvn test -Dtest=FoodCategoryImportBenchmarkTest -Dbenchmark=true}; адрес базы можно
+ * переопределить свойством {@code app.lib-food-categories.datasource.url}.
+ * Все изменения откатываются после теста.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FoodCategoryImportBenchmarkTest {
+
+  private static final int ROWS = Integer.getInteger("benchmark.rows", 10_000);
+  private static final int FAN_OUT = 20;
+
+  @Autowired
+  private FoodCategoryService foodCategoryService;
+
+  @Autowired
+  private FoodCategoryImportService foodCategoryImportService;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Test
+  void compareSingleCreateWithBulkImport() {
+    long singleStart = System.nanoTime();
+    List<Long> ids = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      Long parentId = i == 0 ? null : ids.get((i - 1) / FAN_OUT);
+      FoodCategory category = FoodCategory.builder()
+          .parentId(parentId)
+          .name("single-" + i)
+          .isFinal(false)
+          .build();
+      ids.add(foodCategoryService.create(category).getId());
+    }
+    entityManager.flush();
+    entityManager.clear();
+    long singleNanos = System.nanoTime() - singleStart;
+
+    List<FoodCategoryImportItem> items = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      items.add(FoodCategoryImportItem.builder()
+          .key("bulk-" + i)
+          .parentKey(i == 0 ? null : "bulk-" + (i - 1) / FAN_OUT)
+          .name("bulk-" + i)
+          .build());
+    }
+    long bulkStart = System.nanoTime();
+    foodCategoryImportService.importCategories(items);
+    long bulkNanos = System.nanoTime() - bulkStart;
+
+    log.info("Single create: {} rows/s, bulk import: {} rows/s",
+        rowsPerSecond(singleNanos), rowsPerSecond(bulkNanos));
+  }
+
+  private long rowsPerSecond(long nanos) {
+    return ROWS * 1_000_000_000L / Math.max(nanos, 1);
+  }
+}
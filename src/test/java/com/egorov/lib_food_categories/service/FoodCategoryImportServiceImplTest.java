@@ -0,0 +1,201 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryNotFoundException;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryImportItem;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryImportResponse;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.model.FoodCategoryClosure;
+import com.egorov.lib_food_categories.repository.FoodCategoryClosureRepository;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+class FoodCategoryImportServiceImplTest {
+
+  @Mock
+  private EntityManager entityManager;
+
+  @Mock
+  private FoodCategoryClosureRepository closureRepository;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  private FoodCategoryImportServiceImpl importService;
+
+  private final List<FoodCategory> persistedCategories = new ArrayList<>();
+  private final List<FoodCategoryClosure> persistedClosures = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    importService = new FoodCategoryImportServiceImpl(entityManager, closureRepository,
+        eventPublisher, 4);
+  }
+
+  @Test
+  void importCategories_ShouldCreateParentsBeforeChildrenAndLinkByKey() {
+    // Arrange
+    stubPersist(100L);
+    List<FoodCategoryImportItem> items = List.of(
+        item("cheddar", "cheese", null, "Чеддер"),
+        item("cheese", "dairy", null, "Сыры"),
+        item("dairy", null, null, "Молочные продукты")
+    );
+
+    // Act
+    FoodCategoryImportResponse response = importService.importCategories(items);
+
+    // Assert
+    assertEquals(3, response.created());
+    assertEquals(List.of("Молочные продукты", "Сыры", "Чеддер"),
+        persistedCategories.stream().map(FoodCategory::getName).toList());
+    assertEquals(response.ids().get("dairy"), persistedCategories.get(1).getParentId());
+    assertEquals(response.ids().get("cheese"), persistedCategories.get(2).getParentId());
+
+    // 1 + 2 + 3 строки замыканий для глубин 0, 1 и 2
+    assertEquals(6, persistedClosures.size());
+    assertEquals(3, persistedClosures.stream()
+        .filter(link -> link.getAncestorId().equals(response.ids().get("dairy")))
+        .count());
+    verify(entityManager, atLeast(2)).flush();
+    verify(entityManager, atLeast(2)).clear();
+    verify(eventPublisher).publishEvent(
+        FoodCategoryChangedEvent.imported(Set.copyOf(response.ids().values())));
+  }
+
+  @Test
+  void importCategories_ShouldExtendAncestorsOfExistingParent() {
+    // Arrange
+    stubPersist(100L);
+    when(closureRepository.findAllByDescendantIdIn(List.of(7L))).thenReturn(List.of(
+        new FoodCategoryClosure(7L, 7L, 0),
+        new FoodCategoryClosure(1L, 7L, 1)
+    ));
+
+    // Act
+    FoodCategoryImportResponse response = importService.importCategories(
+        List.of(item("goat", null, 7L, "Козий сыр")));
+
+    // Assert
+    Long id = response.ids().get("goat");
+    assertEquals(7L, persistedCategories.get(0).getParentId());
+    assertEquals(3, persistedClosures.size());
+    assertEquals(List.of(id, 7L, 1L),
+        persistedClosures.stream().map(FoodCategoryClosure::getAncestorId).toList());
+    assertEquals(List.of(0, 1, 2),
+        persistedClosures.stream().map(FoodCategoryClosure::getDepth).toList());
+  }
+
+  @Test
+  void importCategories_ShouldRejectUnknownExistingParent() {
+    // Arrange
+    when(closureRepository.findAllByDescendantIdIn(List.of(7L))).thenReturn(List.of());
+
+    // Act & Assert
+    assertThrows(FoodCategoryNotFoundException.class, () -> importService.importCategories(
+        List.of(item("goat", null, 7L, "Козий сыр"))));
+    verify(entityManager, never()).persist(any());
+    verify(eventPublisher, never()).publishEvent(any(FoodCategoryChangedEvent.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void importCategories_ShouldLoadExistingParentsInChunks() {
+    // Arrange
+    stubPersist(100_000L);
+    when(closureRepository.findAllByDescendantIdIn(anyCollection())).thenAnswer(invocation -> {
+      List<FoodCategoryClosure> closures = new ArrayList<>();
+      invocation.<Collection<Long>>getArgument(0)
+          .forEach(parentId -> closures.add(new FoodCategoryClosure(parentId, parentId, 0)));
+      return closures;
+    });
+    List<FoodCategoryImportItem> items = new ArrayList<>();
+    for (long parentId = 1; parentId <= 2500; parentId++) {
+      items.add(item("item-" + parentId, null, parentId, "Категория " + parentId));
+    }
+
+    // Act
+    importService.importCategories(items);
+
+    // Assert
+    ArgumentCaptor<Collection<Long>> chunks = ArgumentCaptor.forClass(Collection.class);
+    verify(closureRepository, times(3)).findAllByDescendantIdIn(chunks.capture());
+    chunks.getAllValues().forEach(chunk -> assertTrue(
+        chunk.size() <= FoodCategoryImportServiceImpl.PARENT_CHUNK_SIZE));
+    assertEquals(2500, persistedCategories.size());
+  }
+
+  @Test
+  void importCategories_ShouldRejectDuplicateKeys() {
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> importService.importCategories(List.of(
+            item("dairy", null, null, "Молочные продукты"),
+            item("dairy", null, null, "Молоко"))));
+  }
+
+  @Test
+  void importCategories_ShouldRejectUnknownParentKey() {
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> importService.importCategories(List.of(
+            item("cheese", "dairy", null, "Сыры"))));
+  }
+
+  @Test
+  void importCategories_ShouldRejectParentKeyCycle() {
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> importService.importCategories(List.of(
+            item("a", "b", null, "А"),
+            item("b", "a", null, "Б"))));
+    verify(entityManager, never()).persist(any());
+  }
+
+  private void stubPersist(long firstId) {
+    AtomicLong sequence = new AtomicLong(firstId);
+    doAnswer(invocation -> {
+      Object entity = invocation.getArgument(0);
+      if (entity instanceof FoodCategory category) {
+        category.setId(sequence.getAndIncrement());
+        persistedCategories.add(category);
+      } else {
+        persistedClosures.add((FoodCategoryClosure) entity);
+      }
+      return null;
+    }).when(entityManager).persist(any());
+  }
+
+  private FoodCategoryImportItem item(String key, String parentKey, Long parentId, String name) {
+    return FoodCategoryImportItem.builder()
+        .key(key)
+        .parentKey(parentKey)
+        .parentId(parentId)
+        .name(name)
+        .build();
+  }
+}
@@ -0,0 +1,144 @@
+package com.egorov.lib_food_categories.service;
+
+import static com.egorov.lib_food_categories.util.FoodCategoryQueryAssertions.assertMaxStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryAncestorsResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Верхние границы количества SQL-запросов для дерева, путей до корня и пакетного чтения категорий.
+ * Загрузка снимка иерархии - это один потоковый запрос версии каталога вместе с категориями при
+ * любой глубине дерева, дальше запросы обслуживаются из снимка. Запросы считает
+ * {@link com.egorov.lib_food_categories.util.FoodCategorySqlStatementListener} в настоящем
+ * контексте Hibernate. Запускается только явно:
+ * {@code mvn test -Dtest=FoodCategoryQueryCountPostgresTest
+ * -Dpostgres.url=jdbc:postgresql://localhost:5432/pantree-product}.
+ *
+ * @author i.egorov
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "app.lib-food-categories.cache-sync.enabled=false")
+class FoodCategoryQueryCountPostgresTest {
+
+  @Autowired
+  private FoodCategoryService foodCategoryService;
+
+  @Autowired
+  private FoodCategoryHierarchyCache hierarchyCache;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @DynamicPropertySource
+  static void datasource(DynamicPropertyRegistry registry) {
+    registry.add("app.lib-food-categories.datasource.url",
+        () -> System.getProperty("postgres.url"));
+    registry.add("app.lib-food-categories.datasource.username",
+        () -> System.getProperty("postgres.user", "pantree"));
+    registry.add("app.lib-food-categories.datasource.password",
+        () -> System.getProperty("postgres.password", "pantree"));
+  }
+
+  @Test
+  void getCategoryTree_ShouldLoadSnapshotWithOneStatementRegardlessOfDepth() {
+    // Arrange
+    List<Long> chain = chain("Дерево", 20);
+    hierarchyCache.reset();
+
+    // Act
+    List<FoodCategoryTreeDto> cold = assertMaxStatements(1, foodCategoryService::getCategoryTree);
+    List<FoodCategoryTreeDto> warm = assertMaxStatements(0, foodCategoryService::getCategoryTree);
+
+    // Assert
+    assertEquals(chain.size(), depth(root(cold, chain.get(0))));
+    assertEquals(chain.size(), depth(root(warm, chain.get(0))));
+  }
+
+  @Test
+  void findPaths_ShouldNotQueryPerAncestor() {
+    // Arrange
+    List<Long> chain = chain("Путь", 20);
+    Long leaf = chain.get(chain.size() - 1);
+    hierarchyCache.reset();
+
+    // Act
+    FoodCategoryAncestorsResponse cold =
+        assertMaxStatements(1, () -> foodCategoryService.findPaths(List.of(leaf, -1L)));
+    FoodCategoryAncestorsResponse warm =
+        assertMaxStatements(0, () -> foodCategoryService.findPaths(List.of(leaf)));
+
+    // Assert
+    assertEquals(chain, cold.paths().get(0).path().stream()
+        .map(FoodCategoryMinimalDto::id)
+        .toList());
+    assertEquals(List.of(-1L), cold.missingIds());
+    assertEquals(chain.size(), warm.paths().get(0).path().size());
+  }
+
+  @Test
+  void findAllByIds_ShouldReadCacheMissesWithOneStatement() {
+    // Arrange
+    List<Long> ids = chain("Пакет", 50);
+    clear("foodCategories");
+    foodCategoryService.findById(ids.get(0));
+
+    // Act
+    Map<Long, FoodCategory> cold =
+        assertMaxStatements(1, () -> foodCategoryService.findAllByIds(ids));
+    Map<Long, FoodCategory> warm =
+        assertMaxStatements(0, () -> foodCategoryService.findAllByIds(ids));
+
+    // Assert
+    assertEquals(ids.size(), cold.size());
+    assertTrue(warm.keySet().containsAll(ids));
+  }
+
+  private List<Long> chain(String prefix, int length) {
+    List<Long> ids = new ArrayList<>(length);
+    Long parentId = null;
+    for (int i = 0; i < length; i++) {
+      parentId = foodCategoryService.create(FoodCategory.builder()
+          .name(prefix + " " + System.nanoTime() + " " + i)
+          .parentId(parentId)
+          .isFinal(false)
+          .build()).getId();
+      ids.add(parentId);
+    }
+    return ids;
+  }
+
+  private void clear(String name) {
+    cacheManager.getCache(name).clear();
+  }
+
+  private static FoodCategoryTreeDto root(List<FoodCategoryTreeDto> forest, Long id) {
+    return forest.stream()
+        .filter(node -> node.id().equals(id))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private static int depth(FoodCategoryTreeDto node) {
+    int depth = 1;
+    while (!node.subCategories().isEmpty()) {
+      node = node.subCategories().get(0);
+      depth++;
+    }
+    return depth;
+  }
+}
@@ -0,0 +1,159 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Тесты для {@link FoodCategorySearchIndex}.
+ *
+ * @author i.egorov
+ */
+@ExtendWith(MockitoExtension.class)
+class FoodCategorySearchIndexTest {
+
+  @Mock
+  private FoodCategoryRepository foodCategoryRepository;
+
+  @InjectMocks
+  private FoodCategorySearchIndex searchIndex;
+
+  @BeforeEach
+  void setUp() {
+    when(foodCategoryRepository.streamAll()).thenReturn(Stream.of(
+        category(1L, null, "Молочные продукты"),
+        category(2L, 1L, "Молоко"),
+        category(3L, 1L, "Сыры")));
+    searchIndex.load();
+  }
+
+  @Test
+  void onChanged_ShouldApplyCreateRenameAndDelete() {
+    // Act
+    searchIndex.onChanged(FoodCategoryChangedEvent.created(category(4L, 1L, "Молочный коктейль")));
+    searchIndex.onChanged(FoodCategoryChangedEvent.updated(category(3L, 1L, "Мороженое"), 1L));
+    searchIndex.onChanged(FoodCategoryChangedEvent.deleted(category(2L, 1L, "Молоко"),
+        Set.of(2L)));
+
+    // Assert
+    assertEquals(List.of(1L, 4L, 3L), ids(searchIndex.search("мо", 10)));
+    assertEquals(List.of(), searchIndex.search("сыр", 10));
+  }
+
+  @Test
+  void onChanged_ShouldLoadImportedCategories() {
+    // Arrange
+    when(foodCategoryRepository.findAllById(List.of(10L)))
+        .thenReturn(List.of(category(10L, null, "Сыворотка")));
+
+    // Act
+    searchIndex.onChanged(FoodCategoryChangedEvent.imported(Set.of(10L)));
+
+    // Assert
+    assertEquals(List.of(10L, 3L), ids(searchIndex.search("сы", 10)));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void onChanged_ShouldLoadImportedCategoriesInChunks() {
+    // Arrange
+    Set<Long> ids = LongStream.rangeClosed(100, 2600).boxed().collect(Collectors.toSet());
+    when(foodCategoryRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+      List<FoodCategory> chunk = new ArrayList<>();
+      invocation.<Iterable<Long>>getArgument(0)
+          .forEach(id -> chunk.add(category(id, null, "Импорт " + id)));
+      return chunk;
+    });
+
+    // Act
+    searchIndex.onChanged(FoodCategoryChangedEvent.imported(ids));
+
+    // Assert
+    ArgumentCaptor<Iterable<Long>> chunks = ArgumentCaptor.forClass(Iterable.class);
+    verify(foodCategoryRepository, times(3)).findAllById(chunks.capture());
+    chunks.getAllValues().forEach(chunk -> assertTrue(
+        ((Collection<Long>) chunk).size() <= FoodCategorySearchIndex.LOAD_CHUNK_SIZE));
+    assertEquals(FoodCategorySearchIndex.MAX_LIMIT,
+        searchIndex.search("импорт", FoodCategorySearchIndex.MAX_LIMIT).size());
+  }
+
+  @Test
+  void load_ShouldServeOldIndexAndKeepChangesMadeDuringRebuild() {
+    // Arrange
+    List<List<Long>> seenDuringLoad = new ArrayList<>();
+    when(foodCategoryRepository.streamAll()).thenReturn(Stream.of(
+        category(1L, null, "Молочные продукты"),
+        category(2L, 1L, "Молоко")).peek(category -> {
+          seenDuringLoad.add(ids(searchIndex.search("мо", 10)));
+          searchIndex.onChanged(FoodCategoryChangedEvent.created(category(5L, 1L, "Морс")));
+        }));
+
+    // Act
+    searchIndex.load();
+
+    // Assert
+    assertEquals(List.of(List.of(2L, 1L), List.of(2L, 1L, 5L)), seenDuringLoad);
+    assertEquals(List.of(2L, 1L, 5L), ids(searchIndex.search("мо", 10)));
+    assertEquals(List.of(), searchIndex.search("сыр", 10));
+  }
+
+  @Test
+  void onChanged_ShouldReloadAllNamesOnReset() {
+    // Arrange
+    when(foodCategoryRepository.findAll())
+        .thenReturn(List.of(category(1L, null, "Молочные продукты"), category(7L, 1L, "Сливки")));
+
+    // Act
+    searchIndex.onChanged(FoodCategoryChangedEvent.reset());
+
+    // Assert
+    assertEquals(List.of(1L), ids(searchIndex.search("мо", 10)));
+    assertEquals(List.of(7L), ids(searchIndex.search("сл", 10)));
+    assertEquals(List.of(), searchIndex.search("сыр", 10));
+  }
+
+  @Test
+  void search_ShouldRejectBlankPrefixAndInvalidLimit() {
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class, () -> searchIndex.search("  ", 10));
+    assertThrows(FoodCategoryBadRequestException.class, () -> searchIndex.search("мо", 0));
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> searchIndex.search("мо", FoodCategorySearchIndex.MAX_LIMIT + 1));
+  }
+
+  private List<Long> ids(List<FoodCategoryMinimalDto> categories) {
+    return categories.stream().map(FoodCategoryMinimalDto::id).toList();
+  }
+
+  private FoodCategory category(Long id, Long parentId, String name) {
+    return FoodCategory.builder()
+        .id(id)
+        .parentId(parentId)
+        .name(name)
+        .isFinal(false)
+        .build();
+  }
+}
@@ -1,31 +1,64 @@
 package com.egorov.lib_food_categories.service;
 
+import static com.egorov.lib_food_categories.util.FoodCategoryQueryAssertions.assertMaxInvocations;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryHasSubcategoriesException;
 import com.egorov.lib_food_categories.dto.exception.FoodCategoryNotFoundException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryVersionConflictException;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryPatchRequest;
 import com.egorov.lib_food_categories.dto.request.FoodCategoryRequest;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryAncestorsResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryContainmentDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryContainmentResponse;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
 import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
 import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.repository.FoodCategoryClosureRepository;
 import com.egorov.lib_food_categories.repository.FoodCategoryRepository;
+import com.egorov.lib_food_categories.repository.FoodCategoryRepository.ChildCount;
+import com.egorov.lib_food_categories.util.FoodCategoryHierarchy;
+import jakarta.persistence.EntityManager;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 @ExtendWith(MockitoExtension.class)
 class FoodCategoryServiceImplTest {
@@ -33,6 +66,21 @@ class FoodCategoryServiceImplTest {
   @Mock
   private FoodCategoryRepository foodCategoryRepository;
 
+  @Mock
+  private FoodCategoryClosureRepository closureRepository;
+
+  @Mock
+  private FoodCategoryHierarchyCache hierarchyCache;
+
+  @Mock
+  private EntityManager entityManager;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private CacheManager cacheManager;
+
   @InjectMocks
   private FoodCategoryServiceImpl foodCategoryServiceImpl;
 
@@ -76,6 +124,27 @@ class FoodCategoryServiceImplTest {
     verify(foodCategoryRepository).save(newCategory);
   }
 
+  @Test
+  void create_ShouldIndexNewCategoryInClosureTable() {
+    // Arrange
+    FoodCategory parentCategory = createTestCategory(1L, "Продукты", false);
+    FoodCategory newCategory = new FoodCategory();
+    newCategory.setName("Овощи");
+    newCategory.setParentId(1L);
+    FoodCategory savedCategory = createTestCategory(5L, "Овощи", false);
+    savedCategory.setParentId(1L);
+
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(parentCategory));
+    when(foodCategoryRepository.save(newCategory)).thenReturn(savedCategory);
+
+    // Act
+    foodCategoryServiceImpl.create(newCategory);
+
+    // Assert
+    verify(closureRepository).insertNode(5L, 1L);
+    verify(eventPublisher).publishEvent(FoodCategoryChangedEvent.created(savedCategory));
+  }
+
   @Test
   void findById_ShouldReturnCategoryWhenExists() {
     // Arrange
@@ -101,6 +170,43 @@ class FoodCategoryServiceImplTest {
     assertThrows(FoodCategoryNotFoundException.class, () -> foodCategoryServiceImpl.findById(1L));
   }
 
+  @Test
+  void findAllByIds_ShouldLoadOnlyCacheMissesInOneQuery() {
+    // Arrange
+    Cache cache = new ConcurrentMapCache("foodCategories");
+    FoodCategory cached = createTestCategory(1L, "Овощи", false);
+    FoodCategory loaded = createTestCategory(2L, "Фрукты", true);
+    cache.put(1L, cached);
+    when(cacheManager.getCache("foodCategories")).thenReturn(cache);
+    when(foodCategoryRepository.findAllById(Set.of(2L, 3L))).thenReturn(List.of(loaded));
+
+    // Act
+    Map<Long, FoodCategory> result = foodCategoryServiceImpl.findAllByIds(List.of(2L, 3L, 1L, 2L));
+
+    // Assert
+    assertEquals(List.of(2L, 1L), List.copyOf(result.keySet()));
+    assertEquals(cached, result.get(1L));
+    assertEquals(loaded, cache.get(2L, FoodCategory.class));
+    verify(foodCategoryRepository, times(1)).findAllById(any());
+    assertMaxInvocations(1, foodCategoryRepository, closureRepository);
+  }
+
+  @Test
+  void findAllByIds_ShouldRejectEmptyOrTooLargeBatch() {
+    // Arrange
+    List<Long> tooMany = new ArrayList<>();
+    for (long id = 0; id <= FoodCategoryServiceImpl.MAX_BATCH_SIZE; id++) {
+      tooMany.add(id);
+    }
+
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> foodCategoryServiceImpl.findAllByIds(List.of()));
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> foodCategoryServiceImpl.findAllByIds(tooMany));
+    verifyNoInteractions(foodCategoryRepository);
+  }
+
   @Test
   void findAll_ShouldReturnPageOfCategories() {
     // Arrange
@@ -120,16 +226,123 @@ class FoodCategoryServiceImplTest {
     verify(foodCategoryRepository).findAll(pageable);
   }
 
+  @Test
+  void findAllMinimal_ShouldReturnProjectionWithSingleQuery() {
+    // Arrange
+    List<FoodCategoryMinimalDto> categories = List.of(
+        new FoodCategoryMinimalDto(1L, null, "Овощи"),
+        new FoodCategoryMinimalDto(2L, 1L, "Корнеплоды"));
+    when(foodCategoryRepository.findAllMinimal()).thenReturn(categories);
+
+    // Act
+    List<FoodCategoryMinimalDto> result = foodCategoryServiceImpl.findAllMinimal();
+
+    // Assert
+    assertEquals(categories, result);
+    assertMaxInvocations(1, foodCategoryRepository, closureRepository);
+  }
+
+  @Test
+  void scroll_ShouldQueryWindowWithoutCount() {
+    // Arrange
+    Sort sort = Sort.by("name");
+    Window<FoodCategory> window = Window.from(List.of(createTestCategory(1L, "Овощи", false)),
+        ScrollPosition::offset);
+    when(foodCategoryRepository.findBy(ScrollPosition.keyset(), sort, Limit.of(10)))
+        .thenReturn(window);
+
+    // Act
+    Window<FoodCategory> result = foodCategoryServiceImpl.scroll(ScrollPosition.keyset(), sort,
+        10);
+
+    // Assert
+    assertEquals(window, result);
+    verify(foodCategoryRepository).findBy(ScrollPosition.keyset(), sort, Limit.of(10));
+    verifyNoMoreInteractions(foodCategoryRepository);
+  }
+
+  @Test
+  void scroll_ShouldRejectWindowSizeOutOfRange() {
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> foodCategoryServiceImpl.scroll(ScrollPosition.keyset(), Sort.unsorted(), 0));
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> foodCategoryServiceImpl.scroll(ScrollPosition.keyset(), Sort.unsorted(),
+            FoodCategoryServiceImpl.MAX_WINDOW_SIZE + 1));
+  }
+
+  @Test
+  void scrollChildren_ShouldCountGrandchildrenWithSingleAggregateQuery() {
+    // Arrange
+    Sort sort = Sort.by("name");
+    FoodCategory cheese = createTestCategory(2L, "Сыры", false);
+    FoodCategory yogurts = createTestCategory(3L, "Йогурты", true);
+    Window<FoodCategory> window = Window.from(List.of(cheese, yogurts), ScrollPosition::offset);
+    ChildCount cheeseChildren = mock(ChildCount.class);
+    when(cheeseChildren.getParentId()).thenReturn(2L);
+    when(cheeseChildren.getChildCount()).thenReturn(5L);
+    when(foodCategoryRepository.findAllByParentId(1L, ScrollPosition.keyset(), sort,
+        Limit.of(10))).thenReturn(window);
+    when(foodCategoryRepository.countChildren(List.of(2L, 3L)))
+        .thenReturn(List.of(cheeseChildren));
+
+    // Act
+    Window<FoodCategoryTreeDto> result = foodCategoryServiceImpl.scrollChildren(1L,
+        ScrollPosition.keyset(), sort, 10);
+
+    // Assert
+    assertEquals(List.of(2L, 3L), result.stream().map(FoodCategoryTreeDto::id).toList());
+    assertEquals(5, result.getContent().get(0).childCount());
+    assertEquals(0, result.getContent().get(1).childCount());
+    assertTrue(result.getContent().get(0).subCategories().isEmpty());
+    assertMaxInvocations(2, foodCategoryRepository);
+  }
+
+  @Test
+  void scrollChildren_ShouldThrowWhenParentNotFound() {
+    // Arrange
+    Sort sort = Sort.by("name");
+    when(foodCategoryRepository.findAllByParentId(42L, ScrollPosition.keyset(), sort,
+        Limit.of(10))).thenReturn(Window.from(List.of(), ScrollPosition::offset));
+    when(foodCategoryRepository.existsById(42L)).thenReturn(false);
+
+    // Act & Assert
+    assertThrows(FoodCategoryNotFoundException.class,
+        () -> foodCategoryServiceImpl.scrollChildren(42L, ScrollPosition.keyset(), sort, 10));
+    verify(foodCategoryRepository, never()).countChildren(any());
+  }
+
+  @Test
+  void exportAll_ShouldPassEveryCategoryAndClearPersistenceContextPeriodically() {
+    // Arrange
+    int total = FoodCategoryServiceImpl.EXPORT_CLEAR_INTERVAL * 2 + 1;
+    List<FoodCategory> categories = new ArrayList<>();
+    for (long id = 1; id <= total; id++) {
+      categories.add(createTestCategory(id, "Категория " + id, true));
+    }
+    when(foodCategoryRepository.streamAll()).thenReturn(categories.stream());
+    List<Long> exportedIds = new ArrayList<>();
+
+    // Act
+    long exported = foodCategoryServiceImpl.exportAll(
+        category -> exportedIds.add(category.getId()));
+
+    // Assert
+    assertEquals(total, exported);
+    assertEquals(total, exportedIds.size());
+    assertEquals(1L, exportedIds.get(0));
+    verify(entityManager, times(2)).clear();
+  }
+
   @Test
   void getCategoryTree_ShouldReturnTreeStructure() {
     // Arrange
     FoodCategory rootCategory = createTestCategory(1L, "Продукты", false);
     FoodCategory childCategory = createTestCategory(2L, "Овощи", true);
-    childCategory.setParentId(rootCategory.getParentId());
+    childCategory.setParentId(rootCategory.getId());
 
-    when(foodCategoryRepository.findByParentIdIsNull()).thenReturn(List.of(rootCategory));
-    when(foodCategoryRepository.findAllByParentId(1L))
-        .thenReturn(List.of(childCategory));
+    when(hierarchyCache.getHierarchy())
+        .thenReturn(FoodCategoryHierarchy.of(List.of(childCategory, rootCategory)));
 
     // Act
     List<FoodCategoryTreeDto> result = foodCategoryServiceImpl.getCategoryTree();
@@ -141,26 +354,405 @@ class FoodCategoryServiceImplTest {
     assertEquals("Овощи", result.get(0).subCategories().get(0).name());
   }
 
+  @Test
+  void getCategoryTree_ShouldUseHierarchySnapshotRegardlessOfDepth() {
+    // Arrange
+    FoodCategory root = createTestCategory(1L, "Продукты", false);
+    FoodCategory level1 = createTestCategory(2L, "Молочные продукты", false);
+    level1.setParentId(1L);
+    FoodCategory level2 = createTestCategory(3L, "Сыры", false);
+    level2.setParentId(2L);
+    FoodCategory level3 = createTestCategory(4L, "Чеддер", true);
+    level3.setParentId(3L);
+
+    when(hierarchyCache.getHierarchy())
+        .thenReturn(FoodCategoryHierarchy.of(List.of(root, level1, level2, level3)));
+
+    // Act
+    List<FoodCategoryTreeDto> result = foodCategoryServiceImpl.getCategoryTree();
+
+    // Assert
+    assertEquals("Чеддер", result.get(0).subCategories().get(0).subCategories().get(0)
+        .subCategories().get(0).name());
+    verify(hierarchyCache, times(1)).getHierarchy();
+    assertMaxInvocations(0, foodCategoryRepository, closureRepository);
+  }
+
+  @Test
+  void getSubtree_ShouldReturnBranchRootedAtRequestedCategory() {
+    // Arrange
+    FoodCategory dairy = createTestCategory(1L, "Молочные продукты", false);
+    FoodCategory cheese = createTestCategory(2L, "Сыры", true);
+    cheese.setParentId(1L);
+
+    FoodCategory cheddar = createTestCategory(3L, "Чеддер", true);
+    cheddar.setParentId(2L);
+    when(hierarchyCache.getHierarchy())
+        .thenReturn(FoodCategoryHierarchy.of(List.of(dairy, cheese, cheddar)));
+
+    // Act
+    FoodCategoryTreeDto result = foodCategoryServiceImpl.getSubtree(1L, 1);
+
+    // Assert
+    assertEquals("Молочные продукты", result.name());
+    assertEquals(1, result.subCategories().size());
+    assertEquals("Сыры", result.subCategories().get(0).name());
+    assertEquals(List.of(), result.subCategories().get(0).subCategories());
+    assertMaxInvocations(0, foodCategoryRepository, closureRepository);
+  }
+
+  @Test
+  void getSubtree_ShouldUseUnlimitedDepthWhenNotSpecified() {
+    // Arrange
+    FoodCategory dairy = createTestCategory(1L, "Молочные продукты", false);
+    FoodCategory cheese = createTestCategory(2L, "Сыры", false);
+    cheese.setParentId(1L);
+    FoodCategory cheddar = createTestCategory(3L, "Чеддер", true);
+    cheddar.setParentId(2L);
+    when(hierarchyCache.getHierarchy())
+        .thenReturn(FoodCategoryHierarchy.of(List.of(dairy, cheese, cheddar)));
+
+    // Act
+    FoodCategoryTreeDto result = foodCategoryServiceImpl.getSubtree(1L, null);
+
+    // Assert
+    assertEquals(1L, result.id());
+    assertEquals(3L, result.subCategories().get(0).subCategories().get(0).id());
+  }
+
+  @Test
+  void getSubtree_ShouldThrowExceptionWhenRootNotExists() {
+    // Arrange
+    when(hierarchyCache.getHierarchy()).thenReturn(FoodCategoryHierarchy.of(List.of()));
+
+    // Act & Assert
+    assertThrows(FoodCategoryNotFoundException.class,
+        () -> foodCategoryServiceImpl.getSubtree(1L, 3));
+  }
+
+  @Test
+  void getSubtree_ShouldRejectNegativeDepth() {
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> foodCategoryServiceImpl.getSubtree(1L, -1));
+  }
+
+  @Test
+  void getCategoryTree_ShouldLimitDepthAndReportChildCounts() {
+    // Arrange
+    FoodCategory dairy = createTestCategory(1L, "Молочные продукты", false);
+    FoodCategory cheese = createTestCategory(2L, "Сыры", false);
+    cheese.setParentId(1L);
+    FoodCategory cheddar = createTestCategory(3L, "Чеддер", true);
+    cheddar.setParentId(2L);
+
+    when(hierarchyCache.getHierarchy())
+        .thenReturn(FoodCategoryHierarchy.of(List.of(dairy, cheese, cheddar)));
+
+    // Act
+    List<FoodCategoryTreeDto> result = foodCategoryServiceImpl.getCategoryTree(1);
+
+    // Assert
+    FoodCategoryTreeDto truncated = result.get(0).subCategories().get(0);
+    assertNull(result.get(0).childCount());
+    assertEquals(2L, truncated.id());
+    assertEquals(1, truncated.childCount());
+    assertTrue(truncated.subCategories().isEmpty());
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> foodCategoryServiceImpl.getCategoryTree(-1));
+    assertMaxInvocations(0, foodCategoryRepository, closureRepository);
+  }
+
+  @Test
+  void findPaths_ShouldResolvePathsFromCachedHierarchyAndReportMissingIds() {
+    // Arrange
+    FoodCategory dairy = createTestCategory(1L, "Молочные продукты", false);
+    FoodCategory cheese = createTestCategory(2L, "Сыры", false);
+    cheese.setParentId(1L);
+    FoodCategory cheddar = createTestCategory(3L, "Чеддер", true);
+    cheddar.setParentId(2L);
+
+    when(hierarchyCache.getHierarchy())
+        .thenReturn(FoodCategoryHierarchy.of(List.of(dairy, cheese, cheddar)));
+
+    // Act
+    FoodCategoryAncestorsResponse result = foodCategoryServiceImpl.findPaths(List.of(3L, 42L, 1L));
+
+    // Assert
+    assertEquals(2, result.paths().size());
+    assertEquals(3L, result.paths().get(0).id());
+    assertEquals(List.of("Молочные продукты", "Сыры", "Чеддер"),
+        result.paths().get(0).path().stream().map(FoodCategoryMinimalDto::name).toList());
+    assertEquals(1L, result.paths().get(1).id());
+    assertEquals(1, result.paths().get(1).path().size());
+    assertEquals(List.of(42L), result.missingIds());
+    assertMaxInvocations(0, foodCategoryRepository, closureRepository);
+  }
+
+  @Test
+  void findContainment_ShouldCheckBranchesFromCachedHierarchy() {
+    // Arrange
+    FoodCategory dairy = createTestCategory(1L, "Молочные продукты", false);
+    FoodCategory cheese = createTestCategory(2L, "Сыры", false);
+    cheese.setParentId(1L);
+    FoodCategory vegetables = createTestCategory(3L, "Овощи", false);
+
+    when(hierarchyCache.getHierarchy())
+        .thenReturn(FoodCategoryHierarchy.of(List.of(dairy, cheese, vegetables)));
+
+    // Act
+    FoodCategoryContainmentResponse result =
+        foodCategoryServiceImpl.findContainment(List.of(2L, 3L, 42L), List.of(1L, 2L, 77L));
+
+    // Assert
+    assertEquals(List.of(new FoodCategoryContainmentDto(2L, List.of(1L, 2L)),
+        new FoodCategoryContainmentDto(3L, List.of())), result.results());
+    assertEquals(List.of(77L, 42L), result.missingIds());
+    assertMaxInvocations(0, foodCategoryRepository, closureRepository);
+  }
+
   @Test
   void update_ShouldUpdateCategoryData() {
     // Arrange
     FoodCategory existingCategory = createTestCategory(1L, "Старое название", true);
-    FoodCategory parentCategory = createTestCategory(2L, "Родительская", true);
 
     when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(existingCategory));
-    when(foodCategoryRepository.findById(2L)).thenReturn(Optional.of(parentCategory));
+    when(foodCategoryRepository.existsById(2L)).thenReturn(true);
+    when(closureRepository.attachSubtree(1L, 2L)).thenReturn(1);
     when(foodCategoryRepository.save(any(FoodCategory.class))).thenReturn(existingCategory);
 
     // Act
     FoodCategory result = foodCategoryServiceImpl.update(1L,
-        new FoodCategoryRequest(2L, "Новое название", "Описание", true));
+        new FoodCategoryRequest(2L, "Новое название", "Описание", true), null);
 
     // Assert
     assertEquals("Новое название", result.getName());
     assertEquals("Описание", result.getDescription());
     assertTrue(result.getIsFinal());
-    assertEquals(parentCategory.getId(), result.getParentId());
+    assertEquals(2L, result.getParentId());
     verify(foodCategoryRepository).save(existingCategory);
+    verify(foodCategoryRepository, never()).findById(2L);
+  }
+
+  @Test
+  void update_ShouldMoveSubtreeInClosureTableWhenParentChanges() {
+    // Arrange
+    FoodCategory existingCategory = createTestCategory(1L, "Сыры", false);
+    existingCategory.setParentId(3L);
+
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(existingCategory));
+    when(foodCategoryRepository.existsById(2L)).thenReturn(true);
+    when(closureRepository.existsByAncestorIdAndDescendantId(1L, 2L)).thenReturn(false);
+    when(closureRepository.attachSubtree(1L, 2L)).thenReturn(2);
+    when(foodCategoryRepository.save(existingCategory)).thenReturn(existingCategory);
+
+    // Act
+    foodCategoryServiceImpl.update(1L, new FoodCategoryRequest(2L, "Сыры", null, false), null);
+
+    // Assert
+    InOrder inOrder = inOrder(closureRepository);
+    inOrder.verify(closureRepository).detachSubtree(1L);
+    inOrder.verify(closureRepository).attachSubtree(1L, 2L);
+    verify(eventPublisher).publishEvent(FoodCategoryChangedEvent.updated(existingCategory, 3L));
+  }
+
+  @Test
+  void update_ShouldDetachSubtreeWhenCategoryBecomesRoot() {
+    // Arrange
+    FoodCategory existingCategory = createTestCategory(1L, "Сыры", false);
+    existingCategory.setParentId(3L);
+
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(existingCategory));
+    when(foodCategoryRepository.save(existingCategory)).thenReturn(existingCategory);
+
+    // Act
+    foodCategoryServiceImpl.update(1L, new FoodCategoryRequest(null, "Сыры", null, false), null);
+
+    // Assert
+    verify(closureRepository).detachSubtree(1L);
+    verify(closureRepository, never()).attachSubtree(any(), any());
+  }
+
+  @Test
+  void update_ShouldNotTouchClosureTableWhenParentUnchanged() {
+    // Arrange
+    FoodCategory existingCategory = createTestCategory(1L, "Сыры", false);
+    existingCategory.setParentId(2L);
+
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(existingCategory));
+    when(foodCategoryRepository.save(existingCategory)).thenReturn(existingCategory);
+
+    // Act
+    foodCategoryServiceImpl.update(1L,
+        new FoodCategoryRequest(2L, "Твердые сыры", null, false), null);
+
+    // Assert
+    verifyNoInteractions(closureRepository);
+    assertMaxInvocations(2, foodCategoryRepository, closureRepository);
+  }
+
+  @Test
+  void update_ShouldRejectMoveUnderOwnDescendant() {
+    // Arrange
+    FoodCategory existingCategory = createTestCategory(1L, "Молочные продукты", false);
+
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(existingCategory));
+    when(foodCategoryRepository.existsById(2L)).thenReturn(true);
+    when(closureRepository.existsByAncestorIdAndDescendantId(1L, 2L)).thenReturn(true);
+
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class, () -> foodCategoryServiceImpl.update(1L,
+        new FoodCategoryRequest(2L, "Молочные продукты", null, false), null));
+    verify(closureRepository, never()).detachSubtree(any());
+    verify(foodCategoryRepository, never()).save(any());
+  }
+
+  @Test
+  void update_ShouldRejectMissingParent() {
+    // Arrange
+    FoodCategory existingCategory = createTestCategory(1L, "Сыры", false);
+
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(existingCategory));
+    when(foodCategoryRepository.existsById(99L)).thenReturn(false);
+
+    // Act & Assert
+    assertThrows(FoodCategoryNotFoundException.class, () -> foodCategoryServiceImpl.update(1L,
+        new FoodCategoryRequest(99L, "Сыры", null, false), null));
+    verifyNoInteractions(closureRepository);
+    verify(foodCategoryRepository, never()).save(any());
+  }
+
+  @Test
+  void update_ShouldRejectStaleVersion() {
+    // Arrange
+    FoodCategory existingCategory = createTestCategory(1L, "Сыры", false);
+    existingCategory.setVersion(5L);
+
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(existingCategory));
+
+    // Act & Assert
+    assertThrows(FoodCategoryVersionConflictException.class, () -> foodCategoryServiceImpl.update(
+        1L, new FoodCategoryRequest(null, "Твердые сыры", null, false), 4L));
+    assertEquals("Сыры", existingCategory.getName());
+    verify(foodCategoryRepository, never()).save(any());
+    verifyNoInteractions(closureRepository, eventPublisher);
+  }
+
+  @Test
+  void patch_ShouldUpdateWithSingleStatementAndMoveSubtree() {
+    // Arrange
+    FoodCategoryPatchRequest request = FoodCategoryPatchRequest.builder()
+        .parentId(Optional.of(2L))
+        .build();
+    FoodCategory patched = createTestCategory(1L, "Сыры", false);
+    patched.setParentId(2L);
+    patched.setVersion(6L);
+
+    when(foodCategoryRepository.patch(1L, null, false, null, null, true, 2L, 5L))
+        .thenReturn(Collections.singletonList(3L));
+    when(foodCategoryRepository.existsById(2L)).thenReturn(true);
+    when(closureRepository.attachSubtree(1L, 2L)).thenReturn(2);
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(patched));
+
+    // Act
+    FoodCategory result = foodCategoryServiceImpl.patch(1L, request, 5L);
+
+    // Assert
+    assertEquals(patched, result);
+    verify(closureRepository).detachSubtree(1L);
+    verify(eventPublisher).publishEvent(FoodCategoryChangedEvent.updated(patched, 3L));
+    verify(foodCategoryRepository, never()).save(any());
+  }
+
+  @Test
+  void patch_ShouldDetachSubtreeAndClearDescriptionWhenFieldsAreNull() {
+    // Arrange
+    FoodCategoryPatchRequest request = FoodCategoryPatchRequest.builder()
+        .parentId(Optional.empty())
+        .description(Optional.empty())
+        .build();
+    FoodCategory patched = createTestCategory(1L, "Сыры", false);
+
+    when(foodCategoryRepository.patch(1L, null, true, null, null, true, null, null))
+        .thenReturn(Collections.singletonList(3L));
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(patched));
+
+    // Act
+    foodCategoryServiceImpl.patch(1L, request, null);
+
+    // Assert
+    verify(closureRepository).detachSubtree(1L);
+    verify(closureRepository, never()).attachSubtree(any(), any());
+    verify(eventPublisher).publishEvent(FoodCategoryChangedEvent.updated(patched, 3L));
+  }
+
+  @Test
+  void patch_ShouldRejectMissingParent() {
+    // Arrange
+    FoodCategoryPatchRequest request = FoodCategoryPatchRequest.builder()
+        .parentId(Optional.of(99L))
+        .build();
+    when(foodCategoryRepository.patch(1L, null, false, null, null, true, 99L, null))
+        .thenReturn(Collections.singletonList(null));
+    when(foodCategoryRepository.existsById(99L)).thenReturn(false);
+
+    // Act & Assert
+    assertThrows(FoodCategoryNotFoundException.class,
+        () -> foodCategoryServiceImpl.patch(1L, request, null));
+    verifyNoInteractions(closureRepository, eventPublisher);
+  }
+
+  @Test
+  void patch_ShouldNotTouchClosureTableWhenParentNotChanged() {
+    // Arrange
+    FoodCategoryPatchRequest request = FoodCategoryPatchRequest.builder()
+        .name(Optional.of("Сыры"))
+        .build();
+    FoodCategory patched = createTestCategory(1L, "Сыры", false);
+
+    when(foodCategoryRepository.patch(1L, "Сыры", false, null, null, false, null, null))
+        .thenReturn(Collections.singletonList(null));
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(patched));
+
+    // Act
+    foodCategoryServiceImpl.patch(1L, request, null);
+
+    // Assert
+    verifyNoInteractions(closureRepository);
+    verify(eventPublisher).publishEvent(FoodCategoryChangedEvent.updated(patched, null));
+    assertMaxInvocations(2, foodCategoryRepository, closureRepository);
+  }
+
+  @Test
+  void patch_ShouldRejectStaleVersion() {
+    // Arrange
+    FoodCategoryPatchRequest request = FoodCategoryPatchRequest.builder()
+        .name(Optional.of("Сыры"))
+        .build();
+    when(foodCategoryRepository.patch(1L, "Сыры", false, null, null, false, null, 4L))
+        .thenReturn(List.of());
+    when(foodCategoryRepository.existsById(1L)).thenReturn(true);
+
+    // Act & Assert
+    assertThrows(FoodCategoryVersionConflictException.class,
+        () -> foodCategoryServiceImpl.patch(1L, request, 4L));
+    verifyNoInteractions(closureRepository, eventPublisher);
+  }
+
+  @Test
+  void patch_ShouldThrowWhenCategoryNotFound() {
+    // Arrange
+    FoodCategoryPatchRequest request = FoodCategoryPatchRequest.builder()
+        .name(Optional.of("Сыры"))
+        .build();
+    when(foodCategoryRepository.patch(1L, "Сыры", false, null, null, false, null, null))
+        .thenReturn(List.of());
+    when(foodCategoryRepository.existsById(1L)).thenReturn(false);
+
+    // Act & Assert
+    assertThrows(FoodCategoryNotFoundException.class,
+        () -> foodCategoryServiceImpl.patch(1L, request, null));
+    verifyNoInteractions(eventPublisher);
   }
 
   @Test
@@ -168,13 +760,46 @@ class FoodCategoryServiceImplTest {
     // Arrange
     FoodCategory category = createTestCategory(1L, "Удаляемая", true);
     when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(category));
-    doNothing().when(foodCategoryRepository).delete(category);
 
     // Act
-    foodCategoryServiceImpl.delete(1L);
+    foodCategoryServiceImpl.delete(1L, false);
 
     // Assert
-    verify(foodCategoryRepository).delete(category);
+    InOrder inOrder = inOrder(foodCategoryRepository, closureRepository);
+    inOrder.verify(foodCategoryRepository).deleteSubtree(1L);
+    inOrder.verify(closureRepository).deleteSubtree(1L);
+  }
+
+  @Test
+  void delete_ShouldPublishEventWithRemovedDescendants() {
+    // Arrange
+    FoodCategory category = createTestCategory(1L, "Молочные продукты", false);
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(category));
+    when(foodCategoryRepository.deleteSubtree(1L)).thenReturn(List.of(1L, 2L, 3L));
+
+    // Act
+    foodCategoryServiceImpl.delete(1L, true);
+
+    // Assert
+    ArgumentCaptor<FoodCategoryChangedEvent> event =
+        ArgumentCaptor.forClass(FoodCategoryChangedEvent.class);
+    verify(eventPublisher).publishEvent(event.capture());
+    assertEquals(FoodCategoryChangedEvent.Type.DELETED, event.getValue().type());
+    assertEquals(Set.of(1L, 2L, 3L), event.getValue().affectedIds());
+  }
+
+  @Test
+  void delete_ShouldRejectCategoryWithSubcategoriesWithoutCascade() {
+    // Arrange
+    FoodCategory category = createTestCategory(1L, "Молочные продукты", false);
+    when(foodCategoryRepository.findById(1L)).thenReturn(Optional.of(category));
+    when(foodCategoryRepository.existsByParentId(1L)).thenReturn(true);
+
+    // Act & Assert
+    assertThrows(FoodCategoryHasSubcategoriesException.class,
+        () -> foodCategoryServiceImpl.delete(1L, false));
+    verify(foodCategoryRepository, never()).deleteSubtree(any());
+    verifyNoInteractions(closureRepository, eventPublisher);
   }
 
   private FoodCategory createTestCategory(Long id, String name, Boolean isFinal) {
@@ -0,0 +1,198 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryHasSubcategoriesException;
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryNotFoundException;
+import com.egorov.lib_food_categories.dto.request.FoodCategoryPatchRequest;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+/**
+ * Проверка сервиса категорий с настоящим контекстом Hibernate и PostgreSQL. Запускается только
+ * явно: {@code mvn test -Dtest=FoodCategoryServicePostgresTest
+ * -Dpostgres.url=jdbc:postgresql://localhost:5432/pantree-product} (пользователь и пароль
+ * задаются свойствами {@code postgres.user} и {@code postgres.password}).
+ *
+ * @author i.egorov
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "app.lib-food-categories.cache-sync.enabled=false")
+@RecordApplicationEvents
+class FoodCategoryServicePostgresTest {
+
+  @Autowired
+  private FoodCategoryService foodCategoryService;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ApplicationEvents events;
+
+  @Autowired
+  private FoodCategoryHierarchyCache hierarchyCache;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private Validator validator;
+
+  @DynamicPropertySource
+  static void datasource(DynamicPropertyRegistry registry) {
+    registry.add("app.lib-food-categories.datasource.url",
+        () -> System.getProperty("postgres.url"));
+    registry.add("app.lib-food-categories.datasource.username",
+        () -> System.getProperty("postgres.user", "pantree"));
+    registry.add("app.lib-food-categories.datasource.password",
+        () -> System.getProperty("postgres.password", "pantree"));
+  }
+
+  @Test
+  void delete_ShouldRemoveSubtreeFromCategoriesAndClosure() {
+    // Arrange
+    FoodCategory dairy = create("Молочные продукты", null);
+    FoodCategory cheese = create("Сыры", dairy.getId());
+    FoodCategory cheddar = create("Чеддер", cheese.getId());
+    FoodCategory vegetables = create("Овощи", null);
+    List<Long> removed = List.of(dairy.getId(), cheese.getId(), cheddar.getId());
+
+    // Act
+    foodCategoryService.delete(dairy.getId(), true);
+
+    // Assert
+    assertEquals(0, count("SELECT count(*) FROM food_categories WHERE id = ANY(?)", removed));
+    assertEquals(0, count("SELECT count(*) FROM food_category_closure "
+        + "WHERE ancestor_id = ANY(?) OR descendant_id = ANY(?)", removed, removed));
+    assertEquals(count("SELECT count(*) FROM food_categories"),
+        count("SELECT count(*) FROM food_category_closure WHERE depth = 0"));
+    assertEquals(vegetables.getId(), foodCategoryService.findById(vegetables.getId()).getId());
+    assertThrows(FoodCategoryNotFoundException.class,
+        () -> foodCategoryService.findById(cheddar.getId()));
+    assertEquals(List.of(Set.copyOf(removed)), events.stream(FoodCategoryChangedEvent.class)
+        .filter(event -> event.type() == FoodCategoryChangedEvent.Type.DELETED)
+        .map(FoodCategoryChangedEvent::affectedIds)
+        .toList());
+  }
+
+  @Test
+  void delete_ShouldKeepSubtreeWithoutCascade() {
+    // Arrange
+    FoodCategory dairy = create("Молочные продукты", null);
+    FoodCategory cheese = create("Сыры", dairy.getId());
+
+    // Act & Assert
+    assertThrows(FoodCategoryHasSubcategoriesException.class,
+        () -> foodCategoryService.delete(dairy.getId(), false));
+    assertEquals(cheese.getId(), foodCategoryService.findById(cheese.getId()).getId());
+    foodCategoryService.delete(cheese.getId(), false);
+    assertThrows(FoodCategoryNotFoundException.class,
+        () -> foodCategoryService.findById(cheese.getId()));
+  }
+
+  @Test
+  void patch_ShouldRemoveFieldsPassedAsNull() throws Exception {
+    // Arrange
+    FoodCategory dairy = create("Молочные продукты", null);
+    FoodCategory cheese = foodCategoryService.create(FoodCategory.builder()
+        .name("Сыры")
+        .description("Твердые и мягкие сыры")
+        .parentId(dairy.getId())
+        .isFinal(false)
+        .build());
+    FoodCategoryPatchRequest request = objectMapper.readValue(
+        "{\"parentId\": null, \"description\": null}", FoodCategoryPatchRequest.class);
+
+    // Act
+    FoodCategory patched = foodCategoryService.patch(cheese.getId(), request, null);
+
+    // Assert
+    assertTrue(validator.validate(request).isEmpty());
+    assertNull(patched.getParentId());
+    assertNull(patched.getDescription());
+    assertEquals("Сыры", patched.getName());
+    assertEquals(0, count("SELECT count(*) FROM food_category_closure "
+        + "WHERE descendant_id = ANY(?) AND depth > 0", List.of(cheese.getId())));
+  }
+
+  @Test
+  void patch_ShouldKeepAbsentFieldsAndRejectRemovingName() throws Exception {
+    // Arrange
+    FoodCategoryPatchRequest absent = objectMapper.readValue("{\"isFinal\": true}",
+        FoodCategoryPatchRequest.class);
+    FoodCategoryPatchRequest removedName = objectMapper.readValue("{\"name\": null}",
+        FoodCategoryPatchRequest.class);
+
+    // Act & Assert
+    assertNull(absent.getParentId());
+    assertNull(absent.getDescription());
+    assertEquals(Optional.of(true), absent.getIsFinal());
+    assertTrue(validator.validate(absent).isEmpty());
+    assertEquals(Optional.empty(), removedName.getName());
+    assertEquals(1, validator.validate(removedName).size());
+  }
+
+  @Test
+  void patch_ShouldRejectMissingParentAndRollBack() {
+    // Arrange
+    FoodCategory dairy = create("Молочные продукты", null);
+    FoodCategory cheese = create("Сыры", dairy.getId());
+    FoodCategoryPatchRequest request = FoodCategoryPatchRequest.builder()
+        .parentId(Optional.of(Long.MAX_VALUE))
+        .build();
+
+    // Act & Assert
+    assertThrows(FoodCategoryNotFoundException.class,
+        () -> foodCategoryService.patch(cheese.getId(), request, null));
+    assertEquals(dairy.getId(), foodCategoryService.findById(cheese.getId()).getParentId());
+  }
+
+  @Test
+  void getHierarchy_ShouldRecordCatalogVersionOfSnapshot() {
+    // Arrange
+    FoodCategory dairy = create("Молочные продукты", null);
+
+    // Act
+    long catalogVersion = hierarchyCache.getHierarchy().catalogVersion();
+
+    // Assert
+    assertEquals(count("SELECT version FROM food_category_catalog_version WHERE id = 1"),
+        catalogVersion);
+    assertEquals(dairy.getId(), foodCategoryService.getSubtree(dairy.getId(), 0).id());
+  }
+
+  private FoodCategory create(String name, Long parentId) {
+    return foodCategoryService.create(FoodCategory.builder()
+        .name(name)
+        .parentId(parentId)
+        .isFinal(false)
+        .build());
+  }
+
+  private long count(String sql, Object... ids) {
+    Object[] args = new Object[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      args[i] = ((List<?>) ids[i]).toArray(Long[]::new);
+    }
+    Long count = jdbcTemplate.queryForObject(sql, Long.class, args);
+    return count == null ? 0 : count;
+  }
+}
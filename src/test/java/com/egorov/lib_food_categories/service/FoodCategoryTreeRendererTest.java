@@ -0,0 +1,215 @@
+package com.egorov.lib_food_categories.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.egorov.lib_food_categories.model.FoodCategory;
+import com.egorov.lib_food_categories.service.FoodCategoryTreeRenderer.RenderedTree;
+import com.egorov.lib_food_categories.util.FoodCategoryHierarchy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Тесты для {@link FoodCategoryTreeRenderer}.
+ *
+ * @author i.egorov
+ */
+@ExtendWith(MockitoExtension.class)
+class FoodCategoryTreeRendererTest {
+
+  @Mock
+  private FoodCategoryHierarchyCache hierarchyCache;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private FoodCategoryTreeRenderer renderer;
+
+  private final FoodCategoryHierarchy hierarchy = hierarchy(7L);
+
+  @BeforeEach
+  void setUp() {
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .enable(SerializationFeature.INDENT_OUTPUT);
+    renderer = renderer(hierarchyCache, objectMapper, Runnable::run);
+  }
+
+  @Test
+  void getTree_ShouldRenderCompactJsonAndGzipOnce() throws IOException {
+    // Arrange
+    when(hierarchyCache.getHierarchy()).thenReturn(hierarchy);
+
+    // Act
+    RenderedTree first = renderer.getTree();
+    RenderedTree second = renderer.getTree();
+
+    // Assert
+    assertSame(first, second);
+    verify(hierarchyCache, times(1)).getHierarchy();
+
+    String json = new String(first.json(), StandardCharsets.UTF_8);
+    assertFalse(json.contains("\n"));
+    assertEquals(2, new ObjectMapper().readTree(json).get(0).get("subCategories").get(0)
+        .get("id").asInt());
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+      assertArrayEquals(first.json(), gzip.readAllBytes());
+    }
+    assertEquals(1, meterRegistry.get("food.categories.tree.build").timer().count());
+    assertEquals(2.0, meterRegistry.get("food.categories.tree.nodes").summary().totalAmount());
+  }
+
+  @Test
+  void getTree_ShouldBuildEtagFromCatalogVersion() {
+    // Arrange
+    FoodCategoryHierarchyCache otherNode = mock(FoodCategoryHierarchyCache.class);
+    when(hierarchyCache.getHierarchy()).thenReturn(hierarchy);
+    when(otherNode.getHierarchy()).thenReturn(hierarchy(7L));
+    FoodCategoryTreeRenderer otherRenderer = renderer(otherNode,
+        new ObjectMapper().findAndRegisterModules(), Runnable::run);
+
+    // Act
+    renderer.onChanged(FoodCategoryChangedEvent.imported(Set.of(3L)));
+    RenderedTree tree = renderer.getTree();
+    RenderedTree otherTree = otherRenderer.getTree();
+
+    // Assert
+    assertEquals(7L, tree.version());
+    assertEquals("\"tree-7\"", tree.etag());
+    assertEquals("\"tree-7-gzip\"", tree.gzipEtag());
+    assertEquals(tree.etag(), otherTree.etag());
+  }
+
+  @Test
+  void getTree_ShouldServeStaleTreeWhileRebuildingAfterChange() {
+    // Arrange
+    when(hierarchyCache.getHierarchy()).thenReturn(hierarchy, hierarchy(8L));
+    RenderedTree before = renderer.getTree();
+
+    // Act
+    renderer.onChanged(FoodCategoryChangedEvent.imported(Set.of(3L)));
+    RenderedTree stale = renderer.getTree();
+    RenderedTree after = renderer.getTree();
+
+    // Assert
+    assertSame(before, stale);
+    assertEquals(8L, after.version());
+    assertNotEquals(before.etag(), after.etag());
+    assertNotEquals(after.etag(), after.gzipEtag());
+    verify(hierarchyCache, times(2)).getHierarchy();
+  }
+
+  @Test
+  void getTree_ShouldRebuildOnceForConcurrentRequests() throws Exception {
+    // Arrange
+    int callers = 32;
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger rebuilds = new AtomicInteger();
+    when(hierarchyCache.getHierarchy()).thenAnswer(invocation -> {
+      rebuilds.incrementAndGet();
+      release.await(5, TimeUnit.SECONDS);
+      return hierarchy;
+    });
+    ExecutorService pool = Executors.newFixedThreadPool(callers + 1);
+    renderer = renderer(hierarchyCache, new ObjectMapper().findAndRegisterModules(), pool);
+
+    try {
+      // Act
+      CountDownLatch started = new CountDownLatch(callers);
+      List<Future<RenderedTree>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(pool.submit(() -> {
+          started.countDown();
+          return renderer.getTree();
+        }));
+      }
+      started.await(5, TimeUnit.SECONDS);
+      Thread.sleep(100);
+      release.countDown();
+
+      // Assert
+      RenderedTree first = results.get(0).get(5, TimeUnit.SECONDS);
+      for (Future<RenderedTree> result : results) {
+        assertSame(first, result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, rebuilds.get());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void getTree_ShouldRebuildInBackgroundWithoutBlockingReaders() throws Exception {
+    // Arrange
+    ExecutorService background = Executors.newSingleThreadExecutor();
+    renderer = renderer(hierarchyCache, new ObjectMapper().findAndRegisterModules(),
+        background);
+    when(hierarchyCache.getHierarchy()).thenReturn(hierarchy);
+    RenderedTree warm = renderer.getTree();
+
+    CountDownLatch release = new CountDownLatch(1);
+    when(hierarchyCache.getHierarchy()).thenAnswer(invocation -> {
+      release.await(5, TimeUnit.SECONDS);
+      return hierarchy;
+    });
+
+    try {
+      // Act
+      renderer.onChanged(FoodCategoryChangedEvent.imported(Set.of(3L)));
+      List<RenderedTree> served = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        served.add(renderer.getTree());
+      }
+      release.countDown();
+      background.shutdown();
+      background.awaitTermination(5, TimeUnit.SECONDS);
+
+      // Assert
+      served.forEach(tree -> assertSame(warm, tree));
+      assertNotSame(warm, renderer.getTree());
+      verify(hierarchyCache, times(2)).getHierarchy();
+    } finally {
+      background.shutdownNow();
+    }
+  }
+
+  private FoodCategoryTreeRenderer renderer(FoodCategoryHierarchyCache hierarchyCache,
+      ObjectMapper objectMapper, Executor executor) {
+    return new FoodCategoryTreeRenderer(hierarchyCache, new FoodCategoryMetrics(meterRegistry),
+        objectMapper, executor);
+  }
+
+  private static FoodCategoryHierarchy hierarchy(long catalogVersion) {
+    return FoodCategoryHierarchy.builder(2)
+        .catalogVersion(catalogVersion)
+        .add(FoodCategory.builder().id(1L).name("Молочные продукты").isFinal(false).build())
+        .add(FoodCategory.builder().id(2L).parentId(1L).name("Сыры").isFinal(true).build())
+        .build();
+  }
+}
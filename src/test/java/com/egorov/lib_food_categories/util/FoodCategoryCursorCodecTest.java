@@ -0,0 +1,63 @@
+package com.egorov.lib_food_categories.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.egorov.lib_food_categories.dto.exception.FoodCategoryBadRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Тесты для {@link FoodCategoryCursorCodec}.
+ *
+ * @author i.egorov
+ */
+class FoodCategoryCursorCodecTest {
+
+  private final FoodCategoryCursorCodec codec =
+      new FoodCategoryCursorCodec(new ObjectMapper().findAndRegisterModules());
+
+  @Test
+  void decode_shouldRestoreKeysWithPropertyTypes() {
+    // Arrange
+    Sort sort = Sort.by(Sort.Direction.DESC, "createdAt");
+    ZonedDateTime createdAt = ZonedDateTime.of(2024, 5, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+    Map<String, Object> keys = new LinkedHashMap<>();
+    keys.put("createdAt", createdAt);
+    keys.put("id", 42L);
+
+    // Act
+    String token = codec.encode(sort, ScrollPosition.forward(keys));
+    KeysetScrollPosition position = codec.decode(token, sort);
+
+    // Assert
+    assertEquals(42L, position.getKeys().get("id"));
+    assertEquals(createdAt.toInstant(),
+        ((ZonedDateTime) position.getKeys().get("createdAt")).toInstant());
+  }
+
+  @Test
+  void decode_shouldRejectCursorIssuedForAnotherSort() {
+    // Arrange
+    String token = codec.encode(Sort.by("name"),
+        ScrollPosition.forward(Map.of("name", "Овощи", "id", 1L)));
+
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> codec.decode(token, Sort.by(Sort.Direction.DESC, "name")));
+  }
+
+  @Test
+  void decode_shouldRejectMalformedCursor() {
+    // Act & Assert
+    assertThrows(FoodCategoryBadRequestException.class,
+        () -> codec.decode("not-a-cursor", Sort.by("name")));
+  }
+}
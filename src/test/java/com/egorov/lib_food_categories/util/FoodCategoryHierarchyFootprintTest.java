@@ -0,0 +1,80 @@
+package com.egorov.lib_food_categories.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Сравнение занимаемой памяти: список сущностей вместе с построенным из него деревом против снимка
+ * {@link FoodCategoryHierarchy}. Запускается только явно:
+ * {@code mvn test -Dtest=FoodCategoryHierarchyFootprintTest -Dbenchmark=true}.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FoodCategoryHierarchyFootprintTest {
+
+  private static final int NODES = Integer.getInteger("benchmark.rows", 1_000_000);
+  private static final String[] WORDS = {
+      "Сыр", "Молоко", "Йогурт", "Свёкла", "Творог", "Кефир", "Хлеб", "Крупа", "Яблоко", "Мёд"
+  };
+
+  @Test
+  void measureFootprint() {
+    long baseline = usedHeap();
+    List<FoodCategory> categories = categories();
+    List<FoodCategoryTreeDto> forest = FoodCategoryHierarchy.of(categories).forest();
+    long entitiesAndTree = usedHeap() - baseline;
+    assertEquals(10, forest.size());
+    categories = null;
+    forest = null;
+
+    baseline = usedHeap();
+    FoodCategoryHierarchy.Builder builder = FoodCategoryHierarchy.builder(NODES);
+    for (FoodCategory category : categories()) {
+      builder.add(category);
+    }
+    FoodCategoryHierarchy hierarchy = builder.build();
+    long snapshot = usedHeap() - baseline;
+    assertEquals(NODES, hierarchy.size());
+
+    log.info("{} nodes: entities + tree {} B/node, hierarchy snapshot {} B/node",
+        NODES, entitiesAndTree / NODES, snapshot / NODES);
+    assertTrue(snapshot < entitiesAndTree);
+  }
+
+  private List<FoodCategory> categories() {
+    Random random = new Random(42);
+    ZonedDateTime createdAt = ZonedDateTime.parse("2025-05-01T10:15:30+03:00");
+    List<FoodCategory> categories = new ArrayList<>(NODES);
+    for (long id = 1; id <= NODES; id++) {
+      categories.add(FoodCategory.builder()
+          .id(id)
+          .parentId(id <= 10 ? null : 1 + random.nextLong(id - 1))
+          .name(WORDS[random.nextInt(WORDS.length)] + " " + Long.toString(id, 36))
+          .description(WORDS[random.nextInt(WORDS.length)])
+          .isFinal(random.nextBoolean())
+          .createdAt(createdAt.plusSeconds(id))
+          .build());
+    }
+    return categories;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,360 @@
+package com.egorov.lib_food_categories.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import com.egorov.lib_food_categories.dto.response.FoodCategoryTreeDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Тесты для {@link FoodCategoryHierarchy}.
+ *
+ * @author i.egorov
+ */
+class FoodCategoryHierarchyTest {
+
+  @Test
+  void forest_shouldLinkCategoriesAndSkipDetached() {
+    // Arrange
+    ZonedDateTime createdAt = ZonedDateTime.parse("2025-05-01T10:15:30.123456789+03:00");
+    List<FoodCategory> categories = List.of(
+        category(1L, null, "Молочные продукты"),
+        category(2L, null, "Овощи"),
+        category(3L, 1L, "Сыры"),
+        category(4L, 1L, "Йогурты"),
+        category(5L, 3L, "Чеддер"),
+        category(6L, 99L, "Потерянная")
+    );
+    categories.get(4).setDescription("Выдержанный");
+    categories.get(4).setIsFinal(true);
+    categories.get(4).setCreatedAt(createdAt);
+
+    // Act
+    List<FoodCategoryTreeDto> forest = FoodCategoryHierarchy.of(categories).forest();
+
+    // Assert
+    FoodCategoryTreeDto cheddar =
+        new FoodCategoryTreeDto(5L, "Чеддер", "Выдержанный", true, List.of(), createdAt);
+    assertEquals(List.of(
+        new FoodCategoryTreeDto(1L, "Молочные продукты", null, false, List.of(
+            new FoodCategoryTreeDto(3L, "Сыры", null, false, List.of(cheddar), null),
+            new FoodCategoryTreeDto(4L, "Йогурты", null, false, List.of(), null)), null),
+        new FoodCategoryTreeDto(2L, "Овощи", null, false, List.of(), null)), forest);
+    assertEquals(createdAt, forest.get(0).subCategories().get(0).subCategories().get(0)
+        .createdAt());
+  }
+
+  @Test
+  void subtree_shouldLimitDepth() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(1L, null, "Молочные продукты"),
+        category(2L, 1L, "Сыры"),
+        category(3L, 2L, "Чеддер")
+    ));
+
+    // Act
+    FoodCategoryTreeDto subtree = hierarchy.subtree(1L, 1).orElseThrow();
+
+    // Assert
+    assertEquals(2L, subtree.subCategories().get(0).id());
+    assertTrue(subtree.subCategories().get(0).subCategories().isEmpty());
+    assertTrue(hierarchy.subtree(42L, 1).isEmpty());
+  }
+
+  @Test
+  void forest_shouldReportChildCountsAtDepthLimit() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(1L, null, "Молочные продукты"),
+        category(2L, null, "Овощи"),
+        category(3L, 1L, "Сыры"),
+        category(4L, 1L, "Йогурты"),
+        category(5L, 3L, "Чеддер")
+    ));
+
+    // Act
+    List<FoodCategoryTreeDto> roots = hierarchy.forest(0);
+    List<FoodCategoryTreeDto> twoLevels = hierarchy.forest(1);
+
+    // Assert
+    assertEquals(List.of(2, 0), roots.stream().map(FoodCategoryTreeDto::childCount).toList());
+    assertTrue(roots.get(0).subCategories().isEmpty());
+    assertNull(twoLevels.get(0).childCount());
+    assertEquals(List.of(1, 0), twoLevels.get(0).subCategories().stream()
+        .map(FoodCategoryTreeDto::childCount).toList());
+    assertNull(hierarchy.forest().get(0).subCategories().get(0).childCount());
+  }
+
+  @Test
+  void subtree_shouldStopOnCycle() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(1L, 2L, "Первая"),
+        category(2L, 1L, "Вторая")
+    ));
+
+    // Act
+    FoodCategoryTreeDto subtree = hierarchy.subtree(1L, Integer.MAX_VALUE).orElseThrow();
+
+    // Assert
+    assertEquals(2L, subtree.subCategories().get(0).id());
+    assertTrue(subtree.subCategories().get(0).subCategories().isEmpty());
+    assertTrue(hierarchy.forest().isEmpty());
+  }
+
+  @Test
+  void children_shouldReturnDirectChildrenWithParent() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(4L, 1L, "Йогурты"),
+        category(1L, null, "Молочные продукты"),
+        category(3L, 1L, "Сыры"),
+        category(5L, 3L, "Чеддер")
+    ));
+
+    // Act
+    List<FoodCategoryMinimalDto> children = hierarchy.children(1L).orElseThrow();
+
+    // Assert
+    assertEquals(List.of(new FoodCategoryMinimalDto(3L, 1L, "Сыры"),
+        new FoodCategoryMinimalDto(4L, 1L, "Йогурты")), children);
+    assertTrue(hierarchy.children(5L).orElseThrow().isEmpty());
+    assertTrue(hierarchy.children(42L).isEmpty());
+  }
+
+  @Test
+  void pathTo_shouldReturnPathFromRootToCategory() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(1L, null, "Мясо и птица"),
+        category(2L, 1L, "Птица"),
+        category(3L, 2L, "Курица")
+    ));
+
+    // Act
+    List<FoodCategoryMinimalDto> path = hierarchy.pathTo(3L).orElseThrow();
+
+    // Assert
+    assertEquals(List.of(1L, 2L, 3L), path.stream().map(FoodCategoryMinimalDto::id).toList());
+  }
+
+  @Test
+  void pathTo_shouldReturnEmptyForUnknownCategory() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(1L, null, "Фрукты")));
+
+    // Act & Assert
+    assertTrue(hierarchy.pathTo(2L).isEmpty());
+    assertTrue(hierarchy.pathTo(null).isEmpty());
+  }
+
+  @Test
+  void pathTo_shouldStopOnCycle() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(1L, 2L, "Первая"),
+        category(2L, 1L, "Вторая")
+    ));
+
+    // Act
+    List<FoodCategoryMinimalDto> path = hierarchy.pathTo(1L).orElseThrow();
+
+    // Assert
+    assertTrue(path.size() <= 3);
+  }
+
+  @Test
+  void isWithin_shouldCompareBranchIntervals() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(1L, null, "Молочные продукты"),
+        category(2L, null, "Овощи"),
+        category(3L, 1L, "Сыры"),
+        category(4L, 1L, "Йогурты"),
+        category(5L, 3L, "Чеддер"),
+        category(6L, 99L, "Потерянная")
+    ));
+
+    // Act & Assert
+    assertTrue(hierarchy.isWithin(5L, 1L));
+    assertTrue(hierarchy.isWithin(5L, 3L));
+    assertTrue(hierarchy.isWithin(3L, 3L));
+    assertFalse(hierarchy.isWithin(4L, 3L));
+    assertFalse(hierarchy.isWithin(1L, 5L));
+    assertFalse(hierarchy.isWithin(5L, 2L));
+    assertTrue(hierarchy.isWithin(6L, 6L));
+    assertFalse(hierarchy.isWithin(6L, 1L));
+    assertFalse(hierarchy.isWithin(1L, 6L));
+    assertFalse(hierarchy.isWithin(42L, 1L));
+  }
+
+  @Test
+  void isWithin_shouldHandleDeepHierarchy() {
+    // Arrange
+    int depth = 100_000;
+    List<FoodCategory> chain = new ArrayList<>(depth);
+    for (long id = 1; id <= depth; id++) {
+      chain.add(category(id, id == 1 ? null : id - 1, "Уровень " + id));
+    }
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(chain);
+
+    // Act & Assert
+    assertTrue(hierarchy.isWithin((long) depth, 1L));
+    assertTrue(hierarchy.isWithin(50_001L, 50_000L));
+    assertFalse(hierarchy.isWithin(50_000L, 50_001L));
+  }
+
+  @Test
+  void isWithin_shouldIgnoreCycles() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(1L, 2L, "Первая"),
+        category(2L, 1L, "Вторая")
+    ));
+
+    // Act & Assert
+    assertTrue(hierarchy.isWithin(1L, 1L));
+    assertFalse(hierarchy.isWithin(1L, 2L));
+  }
+
+  @Test
+  void builder_shouldShareEqualNames() {
+    // Arrange
+    FoodCategoryHierarchy.Builder builder = FoodCategoryHierarchy.builder(2);
+
+    // Act
+    FoodCategoryHierarchy hierarchy = builder
+        .add(category(1L, null, new String("Прочее")))
+        .add(category(2L, null, new String("Прочее")))
+        .build();
+
+    // Assert
+    List<FoodCategoryTreeDto> forest = hierarchy.forest();
+    assertSame(forest.get(0).name(), forest.get(1).name());
+  }
+
+  @Test
+  void builder_shouldRejectIdsOutOfOrder() {
+    // Arrange
+    FoodCategoryHierarchy.Builder builder = FoodCategoryHierarchy.builder(2)
+        .add(category(2L, null, "Овощи"));
+
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class,
+        () -> builder.add(category(1L, null, "Фрукты")));
+  }
+
+  @Test
+  void forest_shouldHandleDeepHierarchyWithoutRecursion() {
+    // Arrange
+    int depth = 100_000;
+    List<FoodCategory> chain = new ArrayList<>(depth);
+    for (long id = 1; id <= depth; id++) {
+      chain.add(category(id, id == 1 ? null : id - 1, "Уровень " + id));
+    }
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(chain);
+
+    // Act
+    List<FoodCategoryTreeDto> forest = hierarchy.forest();
+
+    // Assert
+    assertEquals(1, forest.size());
+    assertEquals(depth, hierarchy.pathTo((long) depth).orElseThrow().size());
+  }
+
+  @Test
+  void with_shouldRenameWithoutChangingSourceSnapshot() {
+    // Arrange
+    List<FoodCategory> categories = List.of(
+        category(1L, null, "Молочные продукты"),
+        category(3L, 1L, "Сыры"),
+        category(5L, 3L, "Чеддер")
+    );
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(categories);
+    FoodCategory renamed = category(3L, 1L, "Твердые сыры");
+    renamed.setIsFinal(true);
+
+    // Act
+    FoodCategoryHierarchy changed = hierarchy.with(renamed, 8);
+
+    // Assert
+    assertEquals(8, changed.catalogVersion());
+    assertEquals("Твердые сыры", changed.subtree(3L, 0).orElseThrow().name());
+    assertTrue(changed.subtree(3L, 0).orElseThrow().isFinal());
+    assertEquals("Сыры", hierarchy.subtree(3L, 0).orElseThrow().name());
+    assertTrue(changed.isWithin(5L, 1L));
+  }
+
+  @Test
+  void with_shouldMatchSnapshotBuiltFromChangedCategories() {
+    // Arrange
+    List<FoodCategory> categories = List.of(
+        category(1L, null, "Молочные продукты"),
+        category(2L, null, "Овощи"),
+        category(3L, 1L, "Сыры"),
+        category(5L, 3L, "Чеддер"),
+        category(6L, 99L, "Потерянная")
+    );
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(categories);
+
+    // Act
+    FoodCategoryHierarchy changed = hierarchy
+        .with(category(3L, 2L, "Сыры"), 2)
+        .with(category(4L, 1L, "Йогурты"), 3)
+        .with(category(7L, null, "Фрукты"), 4);
+
+    // Assert
+    assertEquals(FoodCategoryHierarchy.of(List.of(
+        category(1L, null, "Молочные продукты"),
+        category(2L, null, "Овощи"),
+        category(3L, 2L, "Сыры"),
+        category(4L, 1L, "Йогурты"),
+        category(5L, 3L, "Чеддер"),
+        category(6L, 99L, "Потерянная"),
+        category(7L, null, "Фрукты")
+    )).forest(), changed.forest());
+    assertTrue(changed.isWithin(5L, 2L));
+    assertFalse(changed.isWithin(5L, 1L));
+    assertEquals(4, changed.catalogVersion());
+    assertTrue(changed.with(category(99L, null, "Найденная"), 5).isWithin(6L, 99L));
+  }
+
+  @Test
+  void without_shouldRemoveDeletedSubtree() {
+    // Arrange
+    FoodCategoryHierarchy hierarchy = FoodCategoryHierarchy.of(List.of(
+        category(1L, null, "Молочные продукты"),
+        category(3L, 1L, "Сыры"),
+        category(5L, 3L, "Чеддер")
+    ));
+
+    // Act
+    FoodCategoryHierarchy changed = hierarchy.without(List.of(3L, 5L), 9);
+
+    // Assert
+    assertEquals(1, changed.size());
+    assertTrue(changed.children(1L).orElseThrow().isEmpty());
+    assertFalse(changed.contains(5L));
+    assertEquals(9, changed.catalogVersion());
+    assertEquals(3, hierarchy.size());
+  }
+
+  private FoodCategory category(Long id, Long parentId, String name) {
+    return FoodCategory.builder()
+        .id(id)
+        .parentId(parentId)
+        .name(name)
+        .build();
+  }
+}
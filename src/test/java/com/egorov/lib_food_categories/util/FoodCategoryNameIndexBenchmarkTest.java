@@ -0,0 +1,52 @@
+package com.egorov.lib_food_categories.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Замер скорости поиска по префиксу на большом количестве названий. Запускается только явно:
+ * {@code mvn test -Dtest=FoodCategoryNameIndexBenchmarkTest -Dbenchmark=true}.
+ *
+ * @author i.egorov
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FoodCategoryNameIndexBenchmarkTest {
+
+  private static final int NAMES = Integer.getInteger("benchmark.rows", 100_000);
+  private static final int QUERIES = 200_000;
+  private static final String[] WORDS = {
+      "Сыр", "Молоко", "Йогурт", "Свёкла", "Творог", "Кефир", "Хлеб", "Crème", "Яблоко", "Мёд"
+  };
+
+  @Test
+  void measurePrefixSearch() {
+    Random random = new Random(42);
+    FoodCategoryNameIndex index = new FoodCategoryNameIndex();
+    long loadStart = System.nanoTime();
+    for (long id = 0; id < NAMES; id++) {
+      index.put(id, WORDS[random.nextInt(WORDS.length)] + " " + Long.toString(id, 36));
+    }
+    long loadNanos = System.nanoTime() - loadStart;
+    assertEquals(NAMES, index.size());
+
+    String[] prefixes = {"сы", "свек", "crem", "мед 1", "йогурт a", "хлеб zz"};
+    for (int i = 0; i < QUERIES / 10; i++) {
+      index.search(prefixes[i % prefixes.length], 10);
+    }
+
+    long found = 0;
+    long searchStart = System.nanoTime();
+    for (int i = 0; i < QUERIES; i++) {
+      found += index.search(prefixes[i % prefixes.length], 10).size();
+    }
+    long searchNanos = System.nanoTime() - searchStart;
+
+    log.info("Loaded {} names in {} ms; prefix search: {} ns/op ({} results)",
+        NAMES, loadNanos / 1_000_000, searchNanos / QUERIES, found);
+  }
+}
@@ -0,0 +1,84 @@
+package com.egorov.lib_food_categories.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMinimalDto;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Тесты для {@link FoodCategoryNameIndex}.
+ *
+ * @author i.egorov
+ */
+class FoodCategoryNameIndexTest {
+
+  private final FoodCategoryNameIndex index = new FoodCategoryNameIndex();
+
+  @BeforeEach
+  void setUp() {
+    index.put(1L, "Сыры");
+    index.put(2L, "Сырки глазированные");
+    index.put(3L, "Свёкла");
+    index.put(4L, "Crème fraîche");
+    index.put(5L, "Сыворотка");
+  }
+
+  @Test
+  void search_shouldIgnoreCaseAndDiacritics() {
+    // Act & Assert
+    assertEquals(List.of(3L), ids(index.search("СВЕК", 10)));
+    assertEquals(List.of(3L), ids(index.search("свёк", 10)));
+    assertEquals(List.of(4L), ids(index.search("creme  fr", 10)));
+  }
+
+  @Test
+  void search_shouldReturnMatchesInAlphabeticalOrderUpToLimit() {
+    // Act
+    List<FoodCategoryMinimalDto> all = index.search("сы", 10);
+    List<FoodCategoryMinimalDto> limited = index.search("сы", 2);
+
+    // Assert
+    assertEquals(List.of(5L, 2L, 1L), ids(all));
+    assertEquals("Сыворотка", all.get(0).name());
+    assertEquals(List.of(5L, 2L), ids(limited));
+    assertTrue(index.search("молоко", 10).isEmpty());
+  }
+
+  @Test
+  void put_shouldReplacePreviousNameOfCategory() {
+    // Act
+    index.put(1L, "Творог");
+
+    // Assert
+    assertEquals(List.of(5L, 2L), ids(index.search("сы", 10)));
+    assertEquals(List.of(1L), ids(index.search("тв", 10)));
+    assertEquals(5, index.size());
+  }
+
+  @Test
+  void remove_shouldDropCategoryFromResults() {
+    // Act
+    index.remove(2L);
+    index.remove(99L);
+
+    // Assert
+    assertEquals(List.of(5L, 1L), ids(index.search("сы", 10)));
+    assertEquals(4, index.size());
+  }
+
+  @Test
+  void search_shouldDistinguishCategoriesWithSameName() {
+    // Arrange
+    index.put(6L, "Сыры");
+
+    // Act & Assert
+    assertEquals(List.of(1L, 6L), ids(index.search("сыры", 10)));
+  }
+
+  private List<Long> ids(List<FoodCategoryMinimalDto> categories) {
+    return categories.stream().map(FoodCategoryMinimalDto::id).toList();
+  }
+}
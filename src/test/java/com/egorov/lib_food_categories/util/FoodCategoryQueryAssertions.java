@@ -0,0 +1,64 @@
+package com.egorov.lib_food_categories.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.Supplier;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+
+/**
+ * Проверки верхней границы количества SQL-запросов (в тестах с Hibernate) и обращений к
+ * mock-объектам (в модульных тестах) для эндпоинта или метода сервиса.
+ *
+ * @author i.egorov
+ */
+public final class FoodCategoryQueryAssertions {
+
+  private FoodCategoryQueryAssertions() {
+  }
+
+  /**
+   * Выполняет действие и проверяет, что оно выполнило не больше заданного количества SQL-запросов.
+   * Запросы считаются {@link FoodCategorySqlStatementListener}, поэтому проверка предназначена для
+   * тестов с настоящим контекстом Hibernate.
+   *
+   * @param max    допустимое количество запросов
+   * @param action проверяемое действие
+   * @param <T>    тип результата
+   * @return результат действия
+   */
+  public static <T> T assertMaxStatements(int max, Supplier<T> action) {
+    FoodCategorySqlStatistics statistics = FoodCategorySqlStatistics.start();
+    try {
+      T result = action.get();
+      assertTrue(statistics.getStatements() <= max, () -> "Expected at most " + max
+          + " SQL statements, but " + statistics.getStatements() + " were executed");
+      return result;
+    } finally {
+      FoodCategorySqlStatistics.stop();
+    }
+  }
+
+  /**
+   * Проверяет, что к mock-объектам было сделано не больше заданного количества обращений. Это
+   * подсчет вызовов, а не SQL-запросов: один вызов репозитория может выполнить несколько
+   * запросов, а в тестах контроллера считаются вызовы сервиса. Количество запросов проверяет
+   * {@link #assertMaxStatements(int, Supplier)}.
+   *
+   * @param max   допустимое количество обращений
+   * @param mocks mock-объекты, обращения к которым считаются
+   */
+  public static void assertMaxInvocations(int max, Object... mocks) {
+    int invocations = 0;
+    StringBuilder calls = new StringBuilder();
+    for (Object mock : mocks) {
+      for (Invocation invocation : Mockito.mockingDetails(mock).getInvocations()) {
+        invocations++;
+        calls.append(System.lineSeparator()).append("  ").append(invocation);
+      }
+    }
+    int total = invocations;
+    assertTrue(total <= max,
+        () -> "Expected at most " + max + " invocations, but " + total + " were made:" + calls);
+  }
+}
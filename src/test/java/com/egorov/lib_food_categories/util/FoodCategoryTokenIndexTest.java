@@ -0,0 +1,94 @@
+package com.egorov.lib_food_categories.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.egorov.lib_food_categories.dto.response.FoodCategoryMatchDto;
+import com.egorov.lib_food_categories.model.FoodCategory;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Тесты для {@link FoodCategoryTokenIndex}.
+ *
+ * @author i.egorov
+ */
+class FoodCategoryTokenIndexTest {
+
+  private final FoodCategoryTokenIndex index = FoodCategoryTokenIndex.of(List.of(
+      category(1L, "Молочные продукты", null),
+      category(2L, "Сыры", "Твердые и мягкие сыры"),
+      category(3L, "Чеддер", "Твердый сыр, cheddar"),
+      category(4L, "Копченые колбасы", "Мясные продукты горячего копчения"),
+      category(5L, "Сыры копченые", null)
+  ));
+
+  @Test
+  void of_shouldBuildSameIndexFromHierarchySnapshot() {
+    // Arrange
+    FoodCategoryTokenIndex fromSnapshot = FoodCategoryTokenIndex.of(FoodCategoryHierarchy.of(
+        List.of(
+            category(5L, "Сыры копченые", null),
+            category(2L, "Сыры", "Твердые и мягкие сыры"),
+            category(1L, "Молочные продукты", null),
+            category(3L, "Чеддер", "Твердый сыр, cheddar"),
+            category(4L, "Копченые колбасы", "Мясные продукты горячего копчения")
+        )));
+
+    // Act & Assert
+    assertEquals(index.vocabularySize(), fromSnapshot.vocabularySize());
+    assertEquals(index.match("Сыр копчёный 150 г", 5),
+        fromSnapshot.match("Сыр копчёный 150 г", 5));
+  }
+
+  @Test
+  void tokenize_shouldDropNumbersUnitsAndShortWords() {
+    // Act & Assert
+    assertEquals(Set.of("smoked", "cheddar"),
+        FoodCategoryTokenIndex.tokenize("Smoked cheddar 200g"));
+    assertEquals(Set.of("сыр", "копченыи"),
+        FoodCategoryTokenIndex.tokenize("Сыр копчёный, 0.5 кг"));
+  }
+
+  @Test
+  void match_shouldRankExactNameMatchFirst() {
+    // Act
+    List<FoodCategoryMatchDto> matches = index.match("smoked cheddar 200g", 3);
+
+    // Assert
+    assertEquals(3L, matches.get(0).id());
+    assertEquals(1, matches.size());
+  }
+
+  @Test
+  void match_shouldMatchWordFormsAndPreferFullNameCoverage() {
+    // Act
+    List<FoodCategoryMatchDto> matches = index.match("Сыр копчёный 150 г", 5);
+
+    // Assert
+    assertEquals(5L, matches.get(0).id());
+    assertTrue(matches.stream().anyMatch(match -> match.id() == 2L));
+    for (int i = 1; i < matches.size(); i++) {
+      assertTrue(matches.get(i - 1).score() >= matches.get(i).score());
+    }
+    assertTrue(matches.get(0).score() <= 1.0);
+  }
+
+  @Test
+  void match_shouldRespectLimitAndReturnEmptyForUnknownText() {
+    // Act & Assert
+    assertEquals(1, index.match("сыры", 1).size());
+    assertTrue(index.match("шоколад 100 г", 3).isEmpty());
+    assertTrue(index.match("", 3).isEmpty());
+  }
+
+  private FoodCategory category(Long id, String name, String description) {
+    return FoodCategory.builder()
+        .id(id)
+        .name(name)
+        .description(description)
+        .isFinal(false)
+        .build();
+  }
+}